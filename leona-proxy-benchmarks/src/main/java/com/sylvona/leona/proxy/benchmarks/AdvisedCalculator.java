@@ -0,0 +1,24 @@
+package com.sylvona.leona.proxy.benchmarks;
+
+import com.sylvona.leona.proxy.aspects.AspectAware;
+
+/**
+ * The same computations as {@link Calculator}, proxied by leona-proxy. Only {@link #compute(int)} and
+ * {@link #scale(int)} are advised, the {@code long} overload of {@code compute} is not.
+ */
+@AspectAware(IncrementingAspect.class)
+public class AdvisedCalculator implements Computing {
+    @Override
+    public int compute(int value) {
+        return value * 31 + 7;
+    }
+
+    public long compute(long value) {
+        return value * 31 + 7;
+    }
+
+    @Override
+    public int scale(int value) {
+        return value * 31;
+    }
+}
@@ -0,0 +1,64 @@
+package com.sylvona.leona.proxy.benchmarks;
+
+import com.sylvona.leona.proxy.aspects.LeonaAspectAutoConfiguration;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * The minimal Spring context shared by all benchmarks. Spring's own auto-proxying is not enabled, so beans are only
+ * proxied by leona-proxy; Spring AOP proxies are created explicitly with {@link #springProxy(Object, boolean)}.
+ */
+public final class BenchmarkContext {
+    private BenchmarkContext() {
+    }
+
+    /**
+     * Starts a new context containing the benchmark aspects, an {@link AdvisedCalculator}, a {@link MemoizedCalculator},
+     * a {@link PayloadProducer}, a {@link DelegatingPayloadProducer} and an {@link ElementPayloadProducer}.
+     *
+     * @return the started context, to be closed by the caller
+     */
+    public static AnnotationConfigApplicationContext start() {
+        return new AnnotationConfigApplicationContext(Config.class);
+    }
+
+    /**
+     * Starts a new context like {@link #start()}, configured with additional properties.
+     *
+     * @param properties The properties, e.g. {@code leona.proxy.weaving}.
+     * @return the started context, to be closed by the caller
+     */
+    public static AnnotationConfigApplicationContext start(Map<String, Object> properties) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.register(Config.class);
+        context.refresh();
+        return context;
+    }
+
+    /**
+     * Creates a Spring AOP proxy advised by {@link IncrementingAspect}.
+     *
+     * @param target           The proxied object.
+     * @param proxyTargetClass Whether to create a CGLIB subclass proxy rather than a JDK dynamic proxy.
+     * @param <T>              The type of the proxy.
+     * @return the proxy
+     */
+    public static <T> T springProxy(Object target, boolean proxyTargetClass) {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.setProxyTargetClass(proxyTargetClass);
+        proxyFactory.addAspect(IncrementingAspect.class);
+        return proxyFactory.getProxy();
+    }
+
+    @Configuration
+    @Import({LeonaAspectAutoConfiguration.class, IncrementingAspect.class, PayloadAspect.class, AdvisedCalculator.class, MemoizedCalculator.class,
+            PayloadProducer.class, DelegatingPayloadProducer.class, ElementPayloadProducer.class})
+    static class Config {
+    }
+}
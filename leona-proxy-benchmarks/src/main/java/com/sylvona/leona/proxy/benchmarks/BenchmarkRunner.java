@@ -0,0 +1,41 @@
+package com.sylvona.leona.proxy.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Runs the benchmarks with JMH's regular command line options, writing results as JSON to
+ * {@code target/jmh-result.json} unless another result format or file is given, so runs can be compared over time.
+ * <p>
+ * Example: {@code java -jar target/benchmarks.jar InvocationBenchmark -f 1 -wi 3 -i 5}
+ */
+public final class BenchmarkRunner {
+    private static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        if (commandLineOptions.shouldHelp()) {
+            commandLineOptions.showHelp();
+            return;
+        }
+        if (commandLineOptions.shouldList()) {
+            new Runner(commandLineOptions).list();
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+        if (!commandLineOptions.getResultFormat().hasValue()) options.resultFormat(ResultFormatType.JSON);
+        if (!commandLineOptions.getResult().hasValue()) options.result(DEFAULT_RESULT_FILE);
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,16 @@
+package com.sylvona.leona.proxy.benchmarks;
+
+/**
+ * An unannotated computation, invoked directly or through Spring AOP proxies.
+ */
+public class Calculator implements Computing {
+    @Override
+    public int compute(int value) {
+        return value * 31 + 7;
+    }
+
+    @Override
+    public int scale(int value) {
+        return value * 31;
+    }
+}
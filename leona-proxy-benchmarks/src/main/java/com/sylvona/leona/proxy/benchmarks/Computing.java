@@ -0,0 +1,10 @@
+package com.sylvona.leona.proxy.benchmarks;
+
+/**
+ * The interface through which JDK dynamic proxies of a {@link Calculator} are invoked.
+ */
+public interface Computing {
+    int compute(int value);
+
+    int scale(int value);
+}
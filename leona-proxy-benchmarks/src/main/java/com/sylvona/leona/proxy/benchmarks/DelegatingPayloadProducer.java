@@ -0,0 +1,13 @@
+package com.sylvona.leona.proxy.benchmarks;
+
+import com.sylvona.leona.proxy.aspects.ProxyProducer;
+
+/**
+ * Produces {@link Payload}s which are wrapped by leona-proxy's delegating proxies rather than copied.
+ */
+@ProxyProducer(delegating = true)
+public class DelegatingPayloadProducer {
+    public Payload create(int id) {
+        return new Payload(id, "payload");
+    }
+}
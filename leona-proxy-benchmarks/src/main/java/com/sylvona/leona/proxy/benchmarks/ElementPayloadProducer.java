@@ -0,0 +1,24 @@
+package com.sylvona.leona.proxy.benchmarks;
+
+import com.sylvona.leona.proxy.aspects.ProxyProducer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Produces lists and streams of {@link Payload}s whose elements are proxied by leona-proxy.
+ */
+@ProxyProducer(proxyElements = true)
+public class ElementPayloadProducer {
+    public List<Payload> createList(int count) {
+        List<Payload> payloads = new ArrayList<>(count);
+        for (int id = 0; id < count; id++) payloads.add(new Payload(id, "payload"));
+        return payloads;
+    }
+
+    public Stream<Payload> createStream(int count) {
+        return IntStream.range(0, count).mapToObj(id -> new Payload(id, "payload"));
+    }
+}
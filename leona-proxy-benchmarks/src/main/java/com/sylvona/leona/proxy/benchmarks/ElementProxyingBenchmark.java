@@ -0,0 +1,66 @@
+package com.sylvona.leona.proxy.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of producing {@code count} proxied {@link Payload}s: one producer call per payload, compared with a single
+ * producer call returning a list whose elements are proxied in bulk, and with a stream of which only the first
+ * element is read, and thus proxied.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ElementProxyingBenchmark {
+    @Param({"100", "10000"})
+    private int count;
+
+    private AnnotationConfigApplicationContext context;
+    private PayloadProducer producer;
+    private ElementPayloadProducer elementProducer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        producer = context.getBean(PayloadProducer.class);
+        elementProducer = context.getBean(ElementPayloadProducer.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void producedOneByOne(Blackhole blackhole) {
+        for (int id = 0; id < count; id++) blackhole.consume(producer.create(id));
+    }
+
+    @Benchmark
+    public void producedList(Blackhole blackhole) {
+        for (Payload payload : elementProducer.createList(count)) blackhole.consume(payload);
+    }
+
+    @Benchmark
+    public Payload producedStreamFirst() {
+        return elementProducer.createStream(count).findFirst().orElseThrow();
+    }
+}
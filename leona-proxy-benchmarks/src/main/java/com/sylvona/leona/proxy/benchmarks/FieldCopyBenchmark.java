@@ -0,0 +1,123 @@
+package com.sylvona.leona.proxy.benchmarks;
+
+import com.sylvona.leona.proxy.GeneratedFieldsCopier;
+import com.sylvona.leona.proxy.ReflectionFieldsCopier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cost of copying all fields of an object into another by field count, with the deprecated
+ * {@link ReflectionFieldsCopier} and with {@link GeneratedFieldsCopier}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+@SuppressWarnings("deprecation")
+public class FieldCopyBenchmark {
+    @Param({"1", "8", "32"})
+    public int fieldCount;
+
+    private final ReflectionFieldsCopier reflectionFieldsCopier = new ReflectionFieldsCopier();
+    private final GeneratedFieldsCopier generatedFieldsCopier = new GeneratedFieldsCopier();
+    private Object source;
+    private Object target;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Supplier<Object> factory = switch (fieldCount) {
+            case 1 -> Fields1::new;
+            case 8 -> Fields8::new;
+            case 32 -> Fields32::new;
+            default -> throw new IllegalArgumentException("Unsupported field count " + fieldCount);
+        };
+        source = factory.get();
+        target = factory.get();
+    }
+
+    @Benchmark
+    public Object reflectionFieldsCopier() {
+        reflectionFieldsCopier.copyFieldValues(source, target);
+        return target;
+    }
+
+    @Benchmark
+    public Object generatedFieldsCopier() {
+        generatedFieldsCopier.copyFieldValues(source, target);
+        return target;
+    }
+
+    /**
+     * A class declaring 1 copyable field.
+     */
+    public static class Fields1 {
+        private int f0 = 0;
+    }
+
+    /**
+     * A class declaring 8 copyable fields.
+     */
+    public static class Fields8 {
+        private int f0 = 0;
+        private int f1 = 1;
+        private int f2 = 2;
+        private int f3 = 3;
+        private int f4 = 4;
+        private int f5 = 5;
+        private int f6 = 6;
+        private int f7 = 7;
+    }
+
+    /**
+     * A class declaring 32 copyable fields.
+     */
+    public static class Fields32 {
+        private int f0 = 0;
+        private int f1 = 1;
+        private int f2 = 2;
+        private int f3 = 3;
+        private int f4 = 4;
+        private int f5 = 5;
+        private int f6 = 6;
+        private int f7 = 7;
+        private int f8 = 8;
+        private int f9 = 9;
+        private int f10 = 10;
+        private int f11 = 11;
+        private int f12 = 12;
+        private int f13 = 13;
+        private int f14 = 14;
+        private int f15 = 15;
+        private int f16 = 16;
+        private int f17 = 17;
+        private int f18 = 18;
+        private int f19 = 19;
+        private int f20 = 20;
+        private int f21 = 21;
+        private int f22 = 22;
+        private int f23 = 23;
+        private int f24 = 24;
+        private int f25 = 25;
+        private int f26 = 26;
+        private int f27 = 27;
+        private int f28 = 28;
+        private int f29 = 29;
+        private int f30 = 30;
+        private int f31 = 31;
+    }
+}
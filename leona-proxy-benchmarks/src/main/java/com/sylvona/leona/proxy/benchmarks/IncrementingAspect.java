@@ -0,0 +1,21 @@
+package com.sylvona.leona.proxy.benchmarks;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Minimal around advice, so benchmarks measure the cost of the proxy rather than of the advice.
+ */
+@Aspect
+public class IncrementingAspect {
+    @Around("execution(int com.sylvona.leona.proxy.benchmarks.Computing+.compute(int))")
+    public Object increment(ProceedingJoinPoint joinPoint) throws Throwable {
+        return (int) joinPoint.proceed() + 1;
+    }
+
+    @Around("execution(int com.sylvona.leona.proxy.benchmarks.Computing+.scale(int))")
+    public Object incrementArgument(ProceedingJoinPoint joinPoint) throws Throwable {
+        return joinPoint.proceed(new Object[] {(int) joinPoint.getArgs()[0] + 1});
+    }
+}
@@ -0,0 +1,100 @@
+package com.sylvona.leona.proxy.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a single advised method invocation through a leona-proxy subclass proxy (and its
+ * {@code CompositedProceedingJoinPoint}), compared with a plain call and with Spring's CGLIB and JDK proxies applying
+ * the same around advice. An unadvised overload of the advised method is expected to cost as much as a plain call, and
+ * an advice replacing the arguments with {@code proceed(Object[])} about as much as one proceeding with the original
+ * arguments. With inline weaving, the advice is copied into the proxy method and should cost about as much as the
+ * same code written by hand.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InvocationBenchmark {
+    private AnnotationConfigApplicationContext context;
+    private AnnotationConfigApplicationContext inlineContext;
+    private Computing plain;
+    private AdvisedCalculator leona;
+    private AdvisedCalculator leonaInline;
+    private Computing springCglib;
+    private Computing springJdk;
+    private int value = 42;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        plain = new Calculator();
+        leona = context.getBean(AdvisedCalculator.class);
+        inlineContext = BenchmarkContext.start(Map.of("leona.proxy.weaving", "INLINE"));
+        leonaInline = inlineContext.getBean(AdvisedCalculator.class);
+        springCglib = BenchmarkContext.springProxy(new Calculator(), true);
+        springJdk = BenchmarkContext.springProxy(new Calculator(), false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        inlineContext.close();
+    }
+
+    @Benchmark
+    public int plainCall() {
+        return plain.compute(value);
+    }
+
+    @Benchmark
+    public int leonaProxy() {
+        return leona.compute(value);
+    }
+
+    @Benchmark
+    public int leonaInlineProxy() {
+        return leonaInline.compute(value);
+    }
+
+    @Benchmark
+    public long leonaUnadvisedOverload() {
+        return leona.compute((long) value);
+    }
+
+    @Benchmark
+    public int leonaRewritingProxy() {
+        return leona.scale(value);
+    }
+
+    @Benchmark
+    public int springCglibProxy() {
+        return springCglib.compute(value);
+    }
+
+    @Benchmark
+    public int springJdkProxy() {
+        return springJdk.compute(value);
+    }
+
+    @Benchmark
+    public int springCglibRewritingProxy() {
+        return springCglib.scale(value);
+    }
+}
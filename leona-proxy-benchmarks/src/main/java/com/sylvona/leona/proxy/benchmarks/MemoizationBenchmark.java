@@ -0,0 +1,103 @@
+package com.sylvona.leona.proxy.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a memoized call of a method with two {@code int} arguments returning a memoized result, through
+ * leona-proxy's {@code @Memoized} compared with Spring's {@code @Cacheable} on a CGLIB proxy, and with the uncached
+ * method. The calls made by the object itself are only memoized by leona-proxy, as Spring's cache proxy wraps the
+ * object instead of subclassing it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MemoizationBenchmark {
+    private static final int ROUNDS = 64;
+
+    private AnnotationConfigApplicationContext context;
+    private AnnotationConfigApplicationContext springContext;
+    private MemoizedCalculator plain;
+    private MemoizedCalculator leona;
+    private MemoizedCalculator spring;
+    private int value;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        springContext = new AnnotationConfigApplicationContext(SpringCachingConfig.class);
+        plain = new MemoizedCalculator();
+        leona = context.getBean(MemoizedCalculator.class);
+        spring = springContext.getBean(MemoizedCalculator.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        springContext.close();
+    }
+
+    /**
+     * Cycles through 16 distinct arguments, all memoized after the first iteration.
+     */
+    private int nextValue() {
+        return value = (value + 1) & 15;
+    }
+
+    @Benchmark
+    public double uncached() {
+        return plain.score(nextValue(), ROUNDS);
+    }
+
+    @Benchmark
+    public double leonaMemoized() {
+        return leona.score(nextValue(), ROUNDS);
+    }
+
+    @Benchmark
+    public double springCacheable() {
+        return spring.score(nextValue(), ROUNDS);
+    }
+
+    @Benchmark
+    public double leonaMemoizedSelfInvocation() {
+        return leona.scoreTwice(nextValue(), ROUNDS);
+    }
+
+    @Benchmark
+    public double springCacheableSelfInvocation() {
+        return spring.scoreTwice(nextValue(), ROUNDS);
+    }
+
+    @Configuration
+    @EnableCaching(proxyTargetClass = true)
+    @Import(MemoizedCalculator.class)
+    static class SpringCachingConfig {
+        @Bean
+        public CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("scores");
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.sylvona.leona.proxy.benchmarks;
+
+import com.sylvona.leona.proxy.aspects.AspectAware;
+import com.sylvona.leona.proxy.aspects.Memoized;
+import com.sylvona.leona.proxy.aspects.MemoizingAspect;
+import org.springframework.cache.annotation.Cacheable;
+
+/**
+ * A calculator whose {@link #score(int, int)} is memoized by leona-proxy, or cached by Spring when used in a context
+ * enabling Spring's caching instead. {@link #scoreTwice(int, int)} calls it internally.
+ */
+@AspectAware(MemoizingAspect.class)
+public class MemoizedCalculator {
+    @Memoized
+    @Cacheable("scores")
+    public double score(int value, int rounds) {
+        double score = value;
+        for (int i = 0; i < rounds; i++) {
+            score = Math.log1p(score + i);
+        }
+        return score;
+    }
+
+    public double scoreTwice(int value, int rounds) {
+        return score(value, rounds) + score(value, rounds);
+    }
+}
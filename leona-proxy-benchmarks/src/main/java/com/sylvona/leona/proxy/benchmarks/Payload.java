@@ -0,0 +1,26 @@
+package com.sylvona.leona.proxy.benchmarks;
+
+/**
+ * A value object returned by {@link PayloadProducer}.
+ */
+public class Payload {
+    private int id;
+    private String name;
+
+    public Payload(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public Payload(Payload source) {
+        this(source.id, source.name);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,16 @@
+package com.sylvona.leona.proxy.benchmarks;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Advises {@link Payload}s proxied by {@link PayloadProducer}.
+ */
+@Aspect
+public class PayloadAspect {
+    @Around("execution(String com.sylvona.leona.proxy.benchmarks.Payload.getName())")
+    public Object name(ProceedingJoinPoint joinPoint) throws Throwable {
+        return joinPoint.proceed();
+    }
+}
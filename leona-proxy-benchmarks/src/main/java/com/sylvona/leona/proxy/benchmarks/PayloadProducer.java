@@ -0,0 +1,13 @@
+package com.sylvona.leona.proxy.benchmarks;
+
+import com.sylvona.leona.proxy.aspects.ProxyProducer;
+
+/**
+ * Produces {@link Payload}s which are proxied by leona-proxy.
+ */
+@ProxyProducer
+public class PayloadProducer {
+    public Payload create(int id) {
+        return new Payload(id, "payload");
+    }
+}
@@ -0,0 +1,79 @@
+package com.sylvona.leona.proxy.benchmarks;
+
+import com.sylvona.leona.proxy.CachingBeanProxyMachine;
+import com.sylvona.leona.proxy.ProxyMachine;
+import com.sylvona.leona.proxy.aspects.AspectBeanRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.Advisor;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link CachingBeanProxyMachine#create}: warm, with the proxy class already cached, and cold, generating and
+ * loading the proxy class with a fresh machine on every invocation.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProxyCreationBenchmark {
+    private AnnotationConfigApplicationContext context;
+    private ProxyMachine warmMachine;
+    private List<Advisor> advisors;
+    private Payload source;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        context = BenchmarkContext.start();
+        warmMachine = context.getBean(ProxyMachine.class);
+        advisors = context.getBean(AspectBeanRegistry.class).getAdvisorsForClass(Payload.class);
+        source = new Payload(1, "payload");
+        warmMachine.create(source, advisors, true, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 5, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public Object warmCreate() throws ReflectiveOperationException {
+        return warmMachine.create(source, advisors, true, false);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 50)
+    public Object coldCreate(ColdMachine coldMachine) throws ReflectiveOperationException {
+        return coldMachine.machine.create(source, advisors, true, false);
+    }
+
+    /**
+     * A machine with an empty proxy class cache for every invocation.
+     */
+    @State(Scope.Thread)
+    public static class ColdMachine {
+        ProxyMachine machine;
+
+        @Setup(Level.Invocation)
+        public void setUp(ProxyCreationBenchmark benchmark) {
+            machine = new CachingBeanProxyMachine(benchmark.context);
+        }
+    }
+}
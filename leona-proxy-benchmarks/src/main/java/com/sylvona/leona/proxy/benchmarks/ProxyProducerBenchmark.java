@@ -0,0 +1,64 @@
+package com.sylvona.leona.proxy.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end overhead of a {@link com.sylvona.leona.proxy.aspects.ProxyProducer} per returned object: producing a
+ * proxied {@link Payload} and invoking its advised method, compared with creating and using a plain payload. Payloads
+ * are either copied into a subclass proxy or wrapped by a delegating proxy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProxyProducerBenchmark {
+    private AnnotationConfigApplicationContext context;
+    private PayloadProducer plainProducer;
+    private PayloadProducer proxyProducer;
+    private DelegatingPayloadProducer delegatingProducer;
+    private int id = 7;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        plainProducer = new PayloadProducer();
+        proxyProducer = context.getBean(PayloadProducer.class);
+        delegatingProducer = context.getBean(DelegatingPayloadProducer.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String plainPayload() {
+        return plainProducer.create(id).getName();
+    }
+
+    @Benchmark
+    public String producedPayload() {
+        return proxyProducer.create(id).getName();
+    }
+
+    @Benchmark
+    public String delegatingPayload() {
+        return delegatingProducer.create(id).getName();
+    }
+}
@@ -0,0 +1,80 @@
+package com.sylvona.leona.proxy.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a shared {@link com.sylvona.leona.proxy.aspects.AspectAware} singleton invoked by one thread and by
+ * several contending threads, compared with a Spring CGLIB proxy singleton.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThroughputBenchmark {
+    private static final int CONTENDING_THREADS = 8;
+
+    private AnnotationConfigApplicationContext context;
+    private Computing leona;
+    private Computing springCglib;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        leona = context.getBean(AdvisedCalculator.class);
+        springCglib = BenchmarkContext.springProxy(new Calculator(), true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int leonaSingleThreaded(ThreadValue threadValue) {
+        return leona.compute(threadValue.value);
+    }
+
+    @Benchmark
+    @Threads(CONTENDING_THREADS)
+    public int leonaContended(ThreadValue threadValue) {
+        return leona.compute(threadValue.value);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int springCglibSingleThreaded(ThreadValue threadValue) {
+        return springCglib.compute(threadValue.value);
+    }
+
+    @Benchmark
+    @Threads(CONTENDING_THREADS)
+    public int springCglibContended(ThreadValue threadValue) {
+        return springCglib.compute(threadValue.value);
+    }
+
+    /**
+     * A per-thread argument, so threads only share the proxy.
+     */
+    @State(Scope.Thread)
+    public static class ThreadValue {
+        int value = 42;
+    }
+}
@@ -0,0 +1,159 @@
+package com.sylvona.leona.proxy.indexer;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Writes an index of the classes leona-proxy's {@code AspectBeanRegistry} post-processes to
+ * {@value #INDEX_LOCATION}, listing every compiled class annotated with {@code @AspectAware}, {@code @ProxyProducer}
+ * or {@code @Aspect}, directly, through meta-annotations or through its superclasses and interfaces.
+ * <p>
+ * At runtime, beans whose class was compiled along with an index but is not listed in it are known not to carry any of
+ * these annotations, so the registry skips looking them up reflectively. An index is therefore written for every
+ * compilation, even one without any annotated class.
+ * <p>
+ * Incremental compilations merge their entries into the existing index, keeping the entries of classes which were not
+ * recompiled. A class whose superclass gains one of the annotations is only indexed once it is recompiled itself, which
+ * a full compilation guarantees.
+ */
+@SupportedAnnotationTypes("*")
+public class AspectCandidateIndexer extends AbstractProcessor {
+    /**
+     * The location of the index, relative to the root of the class output.
+     */
+    public static final String INDEX_LOCATION = "META-INF/leona-proxy.index";
+
+    private static final Map<String, String> STEREOTYPES = Map.of(
+            "com.sylvona.leona.proxy.aspects.AspectAware", "aspect-aware",
+            "com.sylvona.leona.proxy.aspects.ProxyProducer", "proxy-producer",
+            "org.aspectj.lang.annotation.Aspect", "aspect");
+
+    /**
+     * The stereotypes of every indexed class, by binary name.
+     */
+    private final Map<String, Set<String>> entries = new TreeMap<>();
+    /**
+     * The binary names of every class compiled by this compilation.
+     */
+    private final Set<String> compiledTypes = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement type) index(type);
+        }
+        if (roundEnv.processingOver() && !compiledTypes.isEmpty()) writeIndex();
+        // Annotations are never claimed, other processors see all of them
+        return false;
+    }
+
+    private void index(TypeElement type) {
+        String name = processingEnv.getElementUtils().getBinaryName(type).toString();
+        compiledTypes.add(name);
+
+        Set<String> stereotypes = new LinkedHashSet<>();
+        collectHierarchyStereotypes(type, stereotypes, new HashSet<>());
+        if (!stereotypes.isEmpty()) entries.put(name, stereotypes);
+
+        for (Element enclosed : type.getEnclosedElements()) {
+            if (enclosed instanceof TypeElement nested) index(nested);
+        }
+    }
+
+    private void collectHierarchyStereotypes(TypeElement type, Set<String> stereotypes, Set<String> visitedTypes) {
+        if (!visitedTypes.add(type.getQualifiedName().toString())) return;
+        collectAnnotationStereotypes(type, stereotypes, new HashSet<>());
+
+        collectHierarchyStereotypes(type.getSuperclass(), stereotypes, visitedTypes);
+        for (TypeMirror interfaceType : type.getInterfaces()) {
+            collectHierarchyStereotypes(interfaceType, stereotypes, visitedTypes);
+        }
+    }
+
+    private void collectHierarchyStereotypes(TypeMirror type, Set<String> stereotypes, Set<String> visitedTypes) {
+        if (type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).asElement() instanceof TypeElement typeElement) {
+            collectHierarchyStereotypes(typeElement, stereotypes, visitedTypes);
+        }
+    }
+
+    private void collectAnnotationStereotypes(Element element, Set<String> stereotypes, Set<String> visitedAnnotations) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            String annotationName = annotationType.getQualifiedName().toString();
+            if (!visitedAnnotations.add(annotationName)) continue;
+
+            String stereotype = STEREOTYPES.get(annotationName);
+            if (stereotype != null) stereotypes.add(stereotype);
+            if (!annotationName.startsWith("java.lang.annotation.")) {
+                collectAnnotationStereotypes(annotationType, stereotypes, visitedAnnotations);
+            }
+        }
+    }
+
+    private void writeIndex() {
+        Properties index = readExistingIndex();
+        // Entries of recompiled classes are replaced, those of deleted classes are harmless and kept
+        for (String name : index.stringPropertyNames()) {
+            if (compiledTypes.contains(name)) index.remove(name);
+        }
+        entries.forEach((name, stereotypes) -> index.setProperty(name, String.join(",", stereotypes)));
+
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+            try (OutputStream outputStream = file.openOutputStream(); Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)) {
+                writer.write("# Classes post-processed by leona-proxy, and their stereotypes\n");
+                for (String name : new TreeSet<>(index.stringPropertyNames())) {
+                    writer.write(name + "=" + index.getProperty(name) + "\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Unable to write " + INDEX_LOCATION + ": " + e);
+        }
+    }
+
+    private Properties readExistingIndex() {
+        Properties index = new Properties();
+        try {
+            FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+            try (InputStream inputStream = file.openInputStream()) {
+                index.load(inputStream);
+            }
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            // Full compilation, or first incremental one
+        } catch (IOException | IllegalArgumentException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Ignoring unreadable " + INDEX_LOCATION + ": " + e);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,162 @@
+package com.sylvona.leona.proxy.indexer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compiles sources with the indexer and reads back the index it writes, as a build tool would across full and
+ * incremental compilations.
+ */
+class AspectCandidateIndexerTest {
+    /**
+     * Stand-ins for the indexed annotations, which are only recognized by name.
+     */
+    private static final Map<String, String> ANNOTATIONS = Map.of(
+            "com.sylvona.leona.proxy.aspects.AspectAware", """
+                    package com.sylvona.leona.proxy.aspects;
+                    @java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)
+                    public @interface AspectAware {}
+                    """,
+            "com.sylvona.leona.proxy.aspects.ProxyProducer", """
+                    package com.sylvona.leona.proxy.aspects;
+                    @java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)
+                    public @interface ProxyProducer {}
+                    """,
+            "org.aspectj.lang.annotation.Aspect", """
+                    package org.aspectj.lang.annotation;
+                    @java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)
+                    public @interface Aspect {}
+                    """,
+            "beans.Audited", """
+                    package beans;
+                    @com.sylvona.leona.proxy.aspects.AspectAware
+                    @java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)
+                    public @interface Audited {}
+                    """);
+
+    @TempDir
+    Path output;
+
+    @Test
+    void indexListsStereotypesOfEveryCompiledClass() throws IOException {
+        Map<String, String> sources = new HashMap<>(ANNOTATIONS);
+        sources.put("beans.Aware", """
+                package beans;
+                @com.sylvona.leona.proxy.aspects.AspectAware
+                public class Aware {
+                    @com.sylvona.leona.proxy.aspects.ProxyProducer
+                    public static class Producer {}
+                }
+                """);
+        sources.put("beans.MetaAnnotated", "package beans; @Audited public class MetaAnnotated {}");
+        sources.put("beans.Subclass", "package beans; public class Subclass extends Aware implements Producing {}");
+        sources.put("beans.Producing", "package beans; @com.sylvona.leona.proxy.aspects.ProxyProducer public interface Producing {}");
+        sources.put("beans.LoggingAspect", "package beans; @org.aspectj.lang.annotation.Aspect public class LoggingAspect {}");
+        sources.put("beans.Plain", "package beans; public class Plain { public static class Nested {} }");
+
+        compile(sources);
+
+        assertThat(readIndex()).containsExactlyInAnyOrder(
+                "beans.Audited=aspect-aware",
+                "beans.Aware=aspect-aware",
+                "beans.Aware$Producer=proxy-producer",
+                "beans.LoggingAspect=aspect",
+                "beans.MetaAnnotated=aspect-aware",
+                "beans.Producing=proxy-producer",
+                "beans.Subclass=aspect-aware,proxy-producer");
+        assertThat(Files.readAllLines(output.resolve(AspectCandidateIndexer.INDEX_LOCATION)).get(0)).startsWith("#");
+    }
+
+    @Test
+    void indexIsWrittenWithoutAnnotatedClasses() throws IOException {
+        compile(Map.of("beans.Plain", "package beans; public class Plain {}"));
+
+        // An empty index still tells the runtime that the compiled classes need no reflective lookups
+        assertThat(output.resolve(AspectCandidateIndexer.INDEX_LOCATION)).exists();
+        assertThat(readIndex()).isEmpty();
+    }
+
+    @Test
+    void incrementalCompilationMergesIntoExistingIndex() throws IOException {
+        Map<String, String> sources = new HashMap<>(ANNOTATIONS);
+        sources.put("beans.Kept", "package beans; @com.sylvona.leona.proxy.aspects.AspectAware public class Kept {}");
+        sources.put("beans.Changed", "package beans; @com.sylvona.leona.proxy.aspects.AspectAware public class Changed {}");
+        compile(sources);
+
+        compile(Map.of(
+                "beans.Changed", "package beans; public class Changed {}",
+                "beans.Added", "package beans; @org.aspectj.lang.annotation.Aspect public class Added {}"));
+
+        assertThat(readIndex()).contains("beans.Kept=aspect-aware", "beans.Added=aspect")
+                .noneMatch(entry -> entry.startsWith("beans.Changed="));
+    }
+
+    @Test
+    void unreadableExistingIndexIsReplaced() throws IOException {
+        Path index = output.resolve(AspectCandidateIndexer.INDEX_LOCATION);
+        Files.createDirectories(index.getParent());
+        Files.writeString(index, "beans.Stale=\\uZZZZ\n");
+
+        Map<String, String> sources = new HashMap<>(ANNOTATIONS);
+        sources.put("beans.Aware", "package beans; @com.sylvona.leona.proxy.aspects.AspectAware public class Aware {}");
+        compile(sources);
+
+        assertThat(readIndex()).contains("beans.Aware=aspect-aware").noneMatch(entry -> entry.startsWith("beans.Stale="));
+    }
+
+    /**
+     * Compiles sources into the output directory with the indexer, the output directory being on the class path as
+     * in an incremental compilation.
+     */
+    private void compile(Map<String, String> sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            fileManager.setLocationFromPaths(StandardLocation.CLASS_OUTPUT, List.of(output));
+            fileManager.setLocationFromPaths(StandardLocation.CLASS_PATH, List.of(output));
+
+            List<JavaFileObject> compilationUnits = new ArrayList<>();
+            sources.forEach((name, source) -> compilationUnits.add(new SourceFile(name, source)));
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, null, null, compilationUnits);
+            task.setProcessors(List.of(new AspectCandidateIndexer()));
+            assertThat(task.call()).isTrue();
+        }
+    }
+
+    private List<String> readIndex() throws IOException {
+        return Files.readAllLines(output.resolve(AspectCandidateIndexer.INDEX_LOCATION)).stream()
+                .filter(line -> !line.startsWith("#"))
+                .toList();
+    }
+
+    private static class SourceFile extends SimpleJavaFileObject {
+        private final String source;
+
+        SourceFile(String name, String source) {
+            super(URI.create("string:///" + name.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package com.sylvona.leona.proxy;
+
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.scaffold.InstrumentedType;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.bytecode.ByteCodeAppender;
+import net.bytebuddy.implementation.bytecode.Removal;
+import net.bytebuddy.implementation.bytecode.StackManipulation;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+import net.bytebuddy.implementation.bytecode.constant.NullConstant;
+import net.bytebuddy.implementation.bytecode.member.FieldAccess;
+import net.bytebuddy.implementation.bytecode.member.MethodInvocation;
+import net.bytebuddy.implementation.bytecode.member.MethodReturn;
+import net.bytebuddy.implementation.bytecode.member.MethodVariableAccess;
+import net.bytebuddy.jar.asm.AnnotationVisitor;
+import net.bytebuddy.jar.asm.Attribute;
+import net.bytebuddy.jar.asm.ClassReader;
+import net.bytebuddy.jar.asm.ClassVisitor;
+import net.bytebuddy.jar.asm.Handle;
+import net.bytebuddy.jar.asm.Label;
+import net.bytebuddy.jar.asm.MethodVisitor;
+import net.bytebuddy.jar.asm.Opcodes;
+import net.bytebuddy.jar.asm.Type;
+import net.bytebuddy.jar.asm.TypePath;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+import org.springframework.aop.aspectj.AspectJAroundAdvice;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+
+/**
+ * Weaves around advice directly into the proxy methods it advises, rather than delegating them to an
+ * {@link AdvisedMethodInterceptor}: the bytecode of the advice method is copied into the proxy method, and its call of
+ * {@link ProceedingJoinPoint#proceed()} is replaced by a call of the super implementation. The advised method then
+ * involves no join point, no interceptor chain and no boxed argument array.
+ * <p>
+ * Only simple advice can be inlined. A method qualifies if it is advised by a single around advice declared as
+ * {@code Object advice(ProceedingJoinPoint)}, and the advice:
+ * <ul>
+ *     <li>has a pointcut which needs no runtime test (unlike e.g. {@code args(java.lang.Long)}), as inlined advice
+ *     runs on every call of the methods its pointcut statically matches (see {@link AdviceInvokers#canBind}),</li>
+ *     <li>is stateless, i.e. never uses its aspect instance (neither its fields nor its instance methods),</li>
+ *     <li>calls {@link ProceedingJoinPoint#proceed()} exactly once, and otherwise only calls the join point's
+ *     {@code getThis()}, {@code getTarget()} and {@code getSignature()} methods, without passing the join point on,</li>
+ *     <li>only references public classes and members which the proxied class's class loader resolves to the same
+ *     classes as the aspect's, and creates no lambdas.</li>
+ * </ul>
+ * Methods of interfaces are not inlined, nor are methods which do not qualify: they are delegated to their
+ * interceptor as usual, and the reason is logged.
+ */
+@Slf4j
+final class AdviceInliner {
+    private static final String JOIN_POINT = Type.getInternalName(JoinPoint.class);
+    private static final String PROCEEDING_JOIN_POINT = Type.getInternalName(ProceedingJoinPoint.class);
+    private static final String STRING_CONCAT_FACTORY = "java/lang/invoke/StringConcatFactory";
+    private static final TypeDescription.Generic OBJECT = TypeDescription.Generic.OfNonGenericType.ForLoadedType.of(Object.class);
+    /**
+     * The join point methods inlined advice may call, by name and descriptor.
+     */
+    private static final Set<String> JOIN_POINT_ACCESSORS = Set.of(
+            "proceed()Ljava/lang/Object;", "getThis()Ljava/lang/Object;", "getTarget()Ljava/lang/Object;", "getSignature()Lorg/aspectj/lang/Signature;");
+    /**
+     * The local variable slot of the join point parameter of an advice method.
+     */
+    private static final int JOIN_POINT_SLOT = 1;
+
+    private AdviceInliner() {}
+
+    /**
+     * Checks if the advice of a method can be inlined into a proxy class of the source class, logging why not otherwise.
+     *
+     * @param advisedMethod The advised method.
+     * @param sourceClass   The class to be proxied.
+     * @return true if the advice can be inlined
+     */
+    static boolean canInline(ProxyClassPlan.AdvisedMethod advisedMethod, Class<?> sourceClass) {
+        String rejection = findRejection(advisedMethod, sourceClass);
+        if (rejection == null) return true;
+        log.info("Not inlining the advice of {}, delegating it instead: {}", advisedMethod.method(), rejection);
+        return false;
+    }
+
+    /**
+     * Creates the implementation of a proxy method inlining its advice.
+     *
+     * @param advisedMethod    The advised method, which must have been accepted by {@link #canInline}.
+     * @param interceptorField The name of the static field holding the method's interceptor, which provides the method
+     *                         signature.
+     * @return the implementation
+     */
+    static Implementation inline(ProxyClassPlan.AdvisedMethod advisedMethod, String interceptorField) {
+        return new Inlining(advisedMethod.advices().get(0).getAspectJAdviceMethod(), interceptorField);
+    }
+
+    /**
+     * Finds why the advice of a method cannot be inlined into a proxy class of the source class.
+     *
+     * @param advisedMethod The advised method.
+     * @param sourceClass   The class to be proxied.
+     * @return the reason, or null if the advice can be inlined
+     */
+    static String findRejection(ProxyClassPlan.AdvisedMethod advisedMethod, Class<?> sourceClass) {
+        if (advisedMethod.advices().size() != 1) return "it has %d advices".formatted(advisedMethod.advices().size());
+        AbstractAspectJAdvice advice = advisedMethod.advices().get(0);
+        if (!(advice instanceof AspectJAroundAdvice)) return "its advice is not an around advice";
+        if (advisedMethod.method().getDeclaringClass().isInterface()) return "it is declared by an interface";
+
+        Method adviceMethod = advice.getAspectJAdviceMethod();
+        if (Modifier.isStatic(adviceMethod.getModifiers()) || adviceMethod.getReturnType() != Object.class
+                || !Arrays.equals(adviceMethod.getParameterTypes(), new Class<?>[] {ProceedingJoinPoint.class})) {
+            return "its advice is not declared as Object %s(ProceedingJoinPoint)".formatted(adviceMethod.getName());
+        }
+        if (!AdviceInvokers.canBind(advice)) return "its pointcut is tested against the arguments or objects of each call";
+
+        Verifier verifier = new Verifier(adviceMethod.getDeclaringClass().getClassLoader(), sourceClass.getClassLoader());
+        try {
+            if (!readAdviceMethod(adviceMethod, verifier)) return "the bytecode of its advice cannot be found";
+        } catch (RuntimeException e) {
+            log.debug("Unable to analyze advice {}", adviceMethod, e);
+            return "the bytecode of its advice cannot be read";
+        }
+        if (verifier.rejection != null) return verifier.rejection;
+        if (verifier.proceeds != 1) return "its advice proceeds %d times".formatted(verifier.proceeds);
+        return null;
+    }
+
+    /**
+     * Reads the code of an advice method, skipping debug information and stack map frames.
+     *
+     * @return true if the method was found
+     */
+    private static boolean readAdviceMethod(Method adviceMethod, MethodVisitor methodVisitor) {
+        String name = adviceMethod.getName();
+        String descriptor = Type.getMethodDescriptor(adviceMethod);
+        boolean[] found = new boolean[1];
+        new ClassReader(ClassFileLocator.ForClassLoader.read(adviceMethod.getDeclaringClass())).accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public MethodVisitor visitMethod(int access, String methodName, String methodDescriptor, String signature, String[] exceptions) {
+                if (!name.equals(methodName) || !descriptor.equals(methodDescriptor)) return null;
+                found[0] = true;
+                return methodVisitor;
+            }
+        }, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return found[0];
+    }
+
+    /**
+     * Checks that the code of an advice method can be copied into a proxy class, recording the first reason why not.
+     */
+    private static final class Verifier extends MethodVisitor {
+        private final ClassLoader aspectClassLoader;
+        private final ClassLoader proxyClassLoader;
+        private final Map<String, Class<?>> resolvedTypes = new HashMap<>();
+        private String rejection;
+        private int proceeds;
+        /**
+         * Whether the previous instruction loaded the join point.
+         */
+        private boolean loaded;
+
+        Verifier(ClassLoader aspectClassLoader, ClassLoader proxyClassLoader) {
+            super(Opcodes.ASM9);
+            this.aspectClassLoader = aspectClassLoader;
+            this.proxyClassLoader = proxyClassLoader;
+        }
+
+        private void reject(String reason) {
+            if (rejection == null) rejection = reason;
+        }
+
+        /**
+         * Invoked for every instruction other than a method call, none of which may consume the join point.
+         */
+        private void instruction() {
+            if (loaded) reject("its advice passes its join point on, or proceeds with other arguments");
+            loaded = false;
+        }
+
+        /**
+         * Resolves a class referenced by the advice, checking that the proxy class can access it.
+         *
+         * @param internalName The internal name of the class, or the descriptor of an array class.
+         * @return the class, or null if it cannot be accessed
+         */
+        private Class<?> checkType(String internalName) {
+            Type type = internalName.startsWith("[") ? Type.getType(internalName) : Type.getObjectType(internalName);
+            if (type.getSort() == Type.ARRAY) type = type.getElementType();
+            if (type.getSort() != Type.OBJECT) return null;
+
+            String className = type.getClassName();
+            if (resolvedTypes.containsKey(className)) return resolvedTypes.get(className);
+            Class<?> resolved = null;
+            try {
+                Class<?> fromAspect = ClassUtils.forName(className, aspectClassLoader);
+                if (fromAspect != ClassUtils.forName(className, proxyClassLoader)) {
+                    reject("its advice references %s, which is not visible to the proxied class".formatted(className));
+                } else if (!Modifier.isPublic(fromAspect.getModifiers())) {
+                    reject("its advice references %s, which is not public".formatted(className));
+                } else {
+                    resolved = fromAspect;
+                }
+            } catch (ClassNotFoundException | LinkageError e) {
+                reject("its advice references %s, which is not visible to the proxied class".formatted(className));
+            }
+            resolvedTypes.put(className, resolved);
+            return resolved;
+        }
+
+        private void checkField(String owner, String name, String descriptor) {
+            Class<?> ownerType = checkType(owner);
+            if (ownerType == null) return;
+            try {
+                Field field = ownerType.getField(name);
+                if (Type.getDescriptor(field.getType()).equals(descriptor)) return;
+            } catch (NoSuchFieldException ignored) {}
+            reject("its advice accesses %s.%s, which is not public".formatted(ownerType.getName(), name));
+        }
+
+        private void checkMethod(String owner, String name, String descriptor) {
+            if (owner.startsWith("[")) {
+                // Methods of arrays (e.g. clone()) are as accessible as their component type
+                checkType(owner);
+                return;
+            }
+            Class<?> ownerType = checkType(owner);
+            if (ownerType == null) return;
+            boolean accessible;
+            if (name.equals("<init>")) {
+                accessible = Arrays.stream(ownerType.getConstructors()).map(Type::getConstructorDescriptor).anyMatch(descriptor::equals);
+            } else {
+                accessible = Arrays.stream(ownerType.getMethods()).anyMatch(method -> method.getName().equals(name) && Type.getMethodDescriptor(method).equals(descriptor))
+                        || Arrays.stream(Object.class.getMethods()).anyMatch(method -> method.getName().equals(name) && Type.getMethodDescriptor(method).equals(descriptor));
+            }
+            if (!accessible) reject("its advice calls %s.%s, which is not public".formatted(ownerType.getName(), name));
+        }
+
+        @Override
+        public void visitVarInsn(int opcode, int varIndex) {
+            instruction();
+            if (varIndex == 0) {
+                reject("its advice uses its aspect instance");
+            } else if (varIndex == JOIN_POINT_SLOT) {
+                if (opcode == Opcodes.ALOAD) loaded = true;
+                else reject("its advice reassigns its join point");
+            }
+        }
+
+        @Override
+        public void visitIincInsn(int varIndex, int increment) {
+            instruction();
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+            if (loaded) {
+                loaded = false;
+                if (opcode != Opcodes.INVOKEINTERFACE || !(owner.equals(JOIN_POINT) || owner.equals(PROCEEDING_JOIN_POINT)) || !JOIN_POINT_ACCESSORS.contains(name + descriptor)) {
+                    reject("its advice uses JoinPoint.%s".formatted(name));
+                } else if (name.equals("proceed")) {
+                    proceeds++;
+                }
+                return;
+            }
+            if (opcode == Opcodes.INVOKESPECIAL && !name.equals("<init>")) {
+                reject("its advice calls a super or private method");
+                return;
+            }
+            checkMethod(owner, name, descriptor);
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+            instruction();
+            checkField(owner, name, descriptor);
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type) {
+            instruction();
+            checkType(type);
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+            instruction();
+            checkType(descriptor);
+        }
+
+        @Override
+        public void visitLdcInsn(Object value) {
+            instruction();
+            if (value instanceof Type type) {
+                if (type.getSort() == Type.OBJECT || type.getSort() == Type.ARRAY) checkType(type.getInternalName());
+                else reject("its advice loads a method type constant");
+            } else if (!(value instanceof Number || value instanceof String)) {
+                reject("its advice loads a dynamic constant");
+            }
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+            instruction();
+            if (!bootstrapMethodHandle.getOwner().equals(STRING_CONCAT_FACTORY)) reject("its advice uses invokedynamic, e.g. to create a lambda");
+        }
+
+        @Override
+        public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+            if (type != null) checkType(type);
+        }
+
+        @Override
+        public void visitInsn(int opcode) {
+            instruction();
+        }
+
+        @Override
+        public void visitIntInsn(int opcode, int operand) {
+            instruction();
+        }
+
+        @Override
+        public void visitJumpInsn(int opcode, Label label) {
+            instruction();
+        }
+
+        @Override
+        public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+            instruction();
+        }
+
+        @Override
+        public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+            instruction();
+        }
+    }
+
+    /**
+     * Implements a proxy method by copying the code of its advice method.
+     */
+    private record Inlining(Method adviceMethod, String interceptorField) implements Implementation {
+        @Override
+        public InstrumentedType prepare(InstrumentedType instrumentedType) {
+            return instrumentedType;
+        }
+
+        @Override
+        public ByteCodeAppender appender(Target implementationTarget) {
+            return (methodVisitor, implementationContext, instrumentedMethod) -> {
+                Copier copier = new Copier(methodVisitor, implementationContext, implementationTarget, instrumentedMethod, interceptorField);
+                if (!readAdviceMethod(adviceMethod, copier)) throw new IllegalStateException("Unable to find the bytecode of advice " + adviceMethod);
+                return new ByteCodeAppender.Size(copier.maxStack, instrumentedMethod.getStackSize() + copier.maxLocals);
+            };
+        }
+    }
+
+    /**
+     * Copies the code of an advice method into a proxy method, replacing the uses of its join point and adapting its
+     * returned value. Local variables of the advice are moved past the proxy method's parameters.
+     */
+    private static final class Copier extends MethodVisitor {
+        private final Implementation.Context implementationContext;
+        /**
+         * Invokes the super implementation with the proxy method's arguments, leaving its boxed result on the stack.
+         */
+        private final StackManipulation proceed;
+        /**
+         * Leaves the advised method's signature on the stack.
+         */
+        private final StackManipulation signature;
+        /**
+         * Adapts the value returned by the advice to the proxy method's return type, and returns it.
+         */
+        private final StackManipulation returning;
+        /**
+         * Added to the slot of every local variable of the advice: the advice's instance and join point slots are
+         * never used, the following ones are moved past the proxy method's parameters.
+         */
+        private final int slotOffset;
+        private int maxStack;
+        private int maxLocals;
+        private boolean loaded;
+
+        Copier(MethodVisitor methodVisitor, Implementation.Context implementationContext, Implementation.Target implementationTarget,
+               MethodDescription instrumentedMethod, String interceptorField) {
+            super(Opcodes.ASM9, methodVisitor);
+            this.implementationContext = implementationContext;
+            this.slotOffset = instrumentedMethod.getStackSize() - (JOIN_POINT_SLOT + 1);
+
+            Implementation.SpecialMethodInvocation superCall = implementationTarget.invokeSuper(instrumentedMethod.asSignatureToken());
+            if (!superCall.isValid()) throw new IllegalStateException("Unable to invoke the super implementation of " + instrumentedMethod);
+            TypeDescription.Generic returnType = instrumentedMethod.getReturnType();
+            boolean isVoid = returnType.represents(void.class);
+            this.proceed = new StackManipulation.Compound(
+                    MethodVariableAccess.allArgumentsOf(instrumentedMethod).prependThisReference(),
+                    superCall,
+                    isVoid ? NullConstant.INSTANCE : Assigner.DEFAULT.assign(returnType, OBJECT, Assigner.Typing.STATIC));
+            this.returning = isVoid
+                    ? new StackManipulation.Compound(Removal.SINGLE, MethodReturn.VOID)
+                    : new StackManipulation.Compound(Assigner.DEFAULT.assign(OBJECT, returnType, Assigner.Typing.DYNAMIC), MethodReturn.of(returnType));
+            try {
+                this.signature = new StackManipulation.Compound(
+                        FieldAccess.forField(implementationTarget.getInstrumentedType().getDeclaredFields().filter(named(interceptorField)).getOnly()).read(),
+                        MethodInvocation.invoke(new MethodDescription.ForLoadedMethod(AdvisedMethodInterceptor.class.getMethod("getMethodSignature"))));
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void apply(StackManipulation stackManipulation) {
+            StackManipulation.Size size = stackManipulation.apply(mv, implementationContext);
+            maxStack = Math.max(maxStack, size.getMaximalSize());
+        }
+
+        @Override
+        public void visitVarInsn(int opcode, int varIndex) {
+            if (opcode == Opcodes.ALOAD && varIndex == JOIN_POINT_SLOT) {
+                // Always followed by a call of one of the join point's accessors, which replaces it
+                loaded = true;
+                return;
+            }
+            super.visitVarInsn(opcode, varIndex + slotOffset);
+        }
+
+        @Override
+        public void visitIincInsn(int varIndex, int increment) {
+            super.visitIincInsn(varIndex + slotOffset, increment);
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+            if (!loaded) {
+                super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+                return;
+            }
+            loaded = false;
+            switch (name) {
+                case "proceed" -> apply(proceed);
+                case "getSignature" -> apply(signature);
+                // Subclass proxies are both the target and the proxy of the invocation
+                default -> super.visitVarInsn(Opcodes.ALOAD, 0);
+            }
+        }
+
+        @Override
+        public void visitInsn(int opcode) {
+            if (opcode == Opcodes.ARETURN) apply(returning);
+            else super.visitInsn(opcode);
+        }
+
+        @Override
+        public void visitMaxs(int maxStack, int maxLocals) {
+            // The frames and maximums of the proxy class are computed when it is written
+            this.maxStack = Math.max(this.maxStack, maxStack + 2);
+            this.maxLocals = maxLocals;
+        }
+
+        @Override
+        public void visitCode() {}
+
+        @Override
+        public void visitEnd() {}
+
+        @Override
+        public void visitParameter(String name, int access) {}
+
+        @Override
+        public AnnotationVisitor visitAnnotationDefault() {
+            return null;
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            return null;
+        }
+
+        @Override
+        public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+            return null;
+        }
+
+        @Override
+        public void visitAnnotableParameterCount(int parameterCount, boolean visible) {}
+
+        @Override
+        public AnnotationVisitor visitParameterAnnotation(int parameter, String descriptor, boolean visible) {
+            return null;
+        }
+
+        @Override
+        public void visitAttribute(Attribute attribute) {}
+
+        @Override
+        public AnnotationVisitor visitInsnAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+            return null;
+        }
+
+        @Override
+        public AnnotationVisitor visitTryCatchAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+            return null;
+        }
+
+        @Override
+        public AnnotationVisitor visitLocalVariableAnnotation(int typeRef, TypePath typePath, Label[] start, Label[] end, int[] index, String descriptor, boolean visible) {
+            return null;
+        }
+    }
+}
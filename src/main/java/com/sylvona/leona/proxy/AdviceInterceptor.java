@@ -0,0 +1,161 @@
+package com.sylvona.leona.proxy;
+
+import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+import org.springframework.aop.aspectj.AspectJAfterAdvice;
+import org.springframework.aop.aspectj.AspectJAfterReturningAdvice;
+import org.springframework.aop.aspectj.AspectJAfterThrowingAdvice;
+import org.springframework.aop.aspectj.AspectJAroundAdvice;
+import org.springframework.aop.aspectj.AspectJMethodBeforeAdvice;
+
+/**
+ * A single link of an advised method's precompiled interceptor chain.
+ * <p>
+ * The kind of advice is resolved once by {@link #of(AbstractAspectJAdvice)} when the proxy class is generated, so
+ * invoking the chain involves no type checks. Proceeding from one link to the next costs an array index, an interface
+ * call and the allocation of the join point positioned at the following link, see {@link CompositedProceedingJoinPoint}.
+ */
+@FunctionalInterface
+interface AdviceInterceptor {
+    /**
+     * Runs this link of the chain.
+     *
+     * @param joinPoint The join point positioned at the next link of the chain.
+     * @return the (possibly advised) result of the method
+     * @throws Throwable Any exception thrown by the advice or the advised method.
+     */
+    Object invoke(CompositedProceedingJoinPoint joinPoint) throws Throwable;
+
+    /**
+     * Creates the interceptor matching the kind of the given Spring AspectJ advice.
+     *
+     * @param advice The advice to create an interceptor for.
+     * @return the interceptor
+     * @throws IllegalArgumentException If the advice is of an unsupported kind or its method cannot be bound.
+     */
+    static AdviceInterceptor of(AbstractAspectJAdvice advice) {
+        return of(advice, AsyncReturnType.SYNCHRONOUS);
+    }
+
+    /**
+     * Creates the interceptor matching the kind of the given Spring AspectJ advice. If the advised method returns an
+     * asynchronous value, after, after-returning and after-throwing advice run once the value completes.
+     *
+     * @param advice     The advice to create an interceptor for.
+     * @param returnType The asynchronous type of the advised method's result.
+     * @return the interceptor
+     * @throws IllegalArgumentException If the advice is of an unsupported kind or its method cannot be bound.
+     */
+    static AdviceInterceptor of(AbstractAspectJAdvice advice, AsyncReturnType returnType) {
+        Object aspect = advice.getAspectInstanceFactory().getAspectInstance();
+
+        if (advice instanceof AspectJAroundAdvice) {
+            AdviceInvoker invoker = AdviceInvokers.bind(aspect, advice.getAspectJAdviceMethod(), false);
+            return invoker::invoke;
+        }
+        if (advice instanceof AspectJMethodBeforeAdvice) {
+            AdviceInvoker invoker = AdviceInvokers.bind(aspect, advice.getAspectJAdviceMethod(), false);
+            return joinPoint -> {
+                invoker.invoke(joinPoint);
+                return joinPoint.proceed();
+            };
+        }
+        if (advice instanceof AspectJAfterAdvice) {
+            AdviceInvoker invoker = AdviceInvokers.bind(aspect, advice.getAspectJAdviceMethod(), false);
+            if (returnType.isAsynchronous()) {
+                return joinPoint -> {
+                    Object result;
+                    try {
+                        result = joinPoint.proceed();
+                    } catch (Throwable throwable) {
+                        invoker.invoke(joinPoint);
+                        throw throwable;
+                    }
+                    if (result == null) {
+                        invoker.invoke(joinPoint);
+                        return null;
+                    }
+                    return returnType.onTermination(result, value -> invoker.invoke(joinPoint));
+                };
+            }
+            return joinPoint -> {
+                try {
+                    return joinPoint.proceed();
+                } finally {
+                    invoker.invoke(joinPoint);
+                }
+            };
+        }
+        if (advice instanceof AspectJAfterReturningAdvice) {
+            AdviceInvoker invoker = AdviceInvokers.bind(aspect, advice.getAspectJAdviceMethod(), true);
+            if (returnType.isAsynchronous()) {
+                return joinPoint -> {
+                    Object result = joinPoint.proceed();
+                    if (result != null) {
+                        return returnType.onSuccess(result, value -> {
+                            if (invoker.accepts(value)) invoker.invoke(joinPoint, value);
+                        });
+                    }
+                    if (invoker.accepts(null)) invoker.invoke(joinPoint, null);
+                    return null;
+                };
+            }
+            return joinPoint -> {
+                Object result = joinPoint.proceed();
+                if (invoker.accepts(result)) invoker.invoke(joinPoint, result);
+                return result;
+            };
+        }
+        if (advice instanceof AspectJAfterThrowingAdvice) {
+            AdviceInvoker invoker = AdviceInvokers.bind(aspect, advice.getAspectJAdviceMethod(), true);
+            if (returnType.isAsynchronous()) {
+                return joinPoint -> {
+                    Object result;
+                    try {
+                        result = joinPoint.proceed();
+                    } catch (Throwable throwable) {
+                        if (invoker.accepts(throwable)) invoker.invoke(joinPoint, throwable);
+                        throw throwable;
+                    }
+                    if (result == null) return null;
+                    return returnType.onFailure(result, failure -> {
+                        if (invoker.accepts(failure)) invoker.invoke(joinPoint, failure);
+                    });
+                };
+            }
+            return joinPoint -> {
+                try {
+                    return joinPoint.proceed();
+                } catch (Throwable throwable) {
+                    if (invoker.accepts(throwable)) invoker.invoke(joinPoint, throwable);
+                    throw throwable;
+                }
+            };
+        }
+
+        throw new IllegalArgumentException("Unsupported advice type " + advice.getClass().getName());
+    }
+
+    /**
+     * Wraps an interceptor so that the invocations sampled by a recorder are timed.
+     *
+     * @param interceptor The interceptor to time.
+     * @param recorder    The recorder of the interceptor's invocations.
+     * @return the recording interceptor
+     */
+    static AdviceInterceptor recording(AdviceInterceptor interceptor, ProxyInstrumentation.InvocationRecorder recorder) {
+        return joinPoint -> {
+            if (!recorder.sample()) return interceptor.invoke(joinPoint);
+
+            long start = System.nanoTime();
+            Throwable failure = null;
+            try {
+                return interceptor.invoke(joinPoint);
+            } catch (Throwable throwable) {
+                failure = throwable;
+                throw throwable;
+            } finally {
+                recorder.record(System.nanoTime() - start, failure);
+            }
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package com.sylvona.leona.proxy;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+
+/**
+ * A direct call site for an aspect's advice method, bound once when a proxy class is generated.
+ *
+ * @see AdviceInvokers
+ */
+@FunctionalInterface
+interface AdviceInvoker {
+    /**
+     * Invokes the bound advice method. Any exception thrown by the advice propagates unwrapped.
+     *
+     * @param joinPoint The join point of the current invocation.
+     * @return the value returned by the advice, or null if the advice is void
+     * @throws Throwable Any exception thrown by the advice.
+     */
+    Object invoke(ProceedingJoinPoint joinPoint) throws Throwable;
+
+    /**
+     * Invokes the bound advice method, additionally binding the returned value or thrown exception of the advised
+     * method for after-returning and after-throwing advice. Invokers that do not bind a value ignore it.
+     *
+     * @param joinPoint The join point of the current invocation.
+     * @param value     The returned value or thrown exception of the advised method.
+     * @return the value returned by the advice, or null if the advice is void
+     * @throws Throwable Any exception thrown by the advice.
+     */
+    default Object invoke(ProceedingJoinPoint joinPoint, Object value) throws Throwable {
+        return invoke(joinPoint);
+    }
+
+    /**
+     * Determines if the advice should run for the given returned value or thrown exception, matching the declared
+     * type of the advice's binding parameter.
+     *
+     * @param value The returned value or thrown exception of the advised method.
+     * @return true if the advice accepts the value, false otherwise
+     */
+    default boolean accepts(Object value) {
+        return true;
+    }
+}
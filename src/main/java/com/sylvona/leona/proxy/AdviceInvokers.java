@@ -0,0 +1,162 @@
+package com.sylvona.leona.proxy;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.AfterThrowing;
+import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+import org.springframework.aop.aspectj.AspectJAfterReturningAdvice;
+import org.springframework.aop.aspectj.AspectJAfterThrowingAdvice;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Creates {@link AdviceInvoker} instances for aspect advice methods.
+ * <p>
+ * Invokers are backed by a {@link LambdaMetafactory}-generated class whenever the advice method allows it, and by a
+ * bound {@link MethodHandle} otherwise. Either way, no reflective lookup or accessibility check happens per call.
+ */
+@Slf4j
+final class AdviceInvokers {
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, ProceedingJoinPoint.class);
+    private static final MethodType VALUE_INVOKER_TYPE = MethodType.methodType(Object.class, ProceedingJoinPoint.class, Object.class);
+
+    private AdviceInvokers() {}
+
+    /**
+     * Checks if an advice can be run through an invoker bound by {@link #bind}. Advice binding pointcut parameters
+     * (e.g. {@code args(id)} or {@code @annotation(timed)}) cannot, nor can advice whose pointcut needs runtime tests
+     * (e.g. {@code args(java.lang.Long)} or a non-static {@code this()}), as bound invokers run on every call of the
+     * methods the pointcut statically matches. Such advice is run through Spring instead, see
+     * {@link SpringAdviceInvocation}.
+     * <p>
+     * Only the returning or throwing parameter declared by an annotated after-returning or after-throwing advice can be
+     * bound besides the join point, any other parameter is bound from the pointcut.
+     *
+     * @param advice The advice.
+     * @return true if the advice needs no runtime test and its method only declares parameters which {@link #bind} supports
+     */
+    static boolean canBind(AbstractAspectJAdvice advice) {
+        Method adviceMethod = advice.getAspectJAdviceMethod();
+        if (Modifier.isStatic(adviceMethod.getModifiers()) || advice.getPointcut().isRuntime()) return false;
+
+        int values = 0;
+        for (Class<?> parameterType : adviceMethod.getParameterTypes()) {
+            if (parameterType != JoinPoint.class && parameterType != ProceedingJoinPoint.class) values++;
+        }
+        return values <= (declaresValueParameter(advice) ? 1 : 0);
+    }
+
+    private static boolean declaresValueParameter(AbstractAspectJAdvice advice) {
+        Method adviceMethod = advice.getAspectJAdviceMethod();
+        if (advice instanceof AspectJAfterReturningAdvice) {
+            AfterReturning afterReturning = adviceMethod.getAnnotation(AfterReturning.class);
+            return afterReturning != null && !afterReturning.returning().isEmpty();
+        }
+        if (advice instanceof AspectJAfterThrowingAdvice) {
+            AfterThrowing afterThrowing = adviceMethod.getAnnotation(AfterThrowing.class);
+            return afterThrowing != null && !afterThrowing.throwing().isEmpty();
+        }
+        return false;
+    }
+
+    /**
+     * Binds the given advice method of an aspect instance to a new {@link AdviceInvoker}.
+     * <p>
+     * Every parameter of the advice method must either accept the join point, or (if {@code bindsValue} is true) be
+     * the single parameter receiving the returned value or thrown exception of the advised method.
+     *
+     * @param aspect       The aspect instance declaring the advice.
+     * @param adviceMethod The advice method.
+     * @param bindsValue   Whether the advice may declare a returned value or thrown exception parameter.
+     * @return the bound invoker
+     * @throws IllegalArgumentException If the advice method cannot be bound.
+     */
+    static AdviceInvoker bind(Object aspect, Method adviceMethod, boolean bindsValue) {
+        if (Modifier.isStatic(adviceMethod.getModifiers())) {
+            throw new IllegalArgumentException("Advice method %s must be an instance method".formatted(adviceMethod));
+        }
+
+        Class<?>[] parameterTypes = adviceMethod.getParameterTypes();
+        int[] reorder = new int[parameterTypes.length];
+        Class<?> valueType = null;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (parameterTypes[i] == JoinPoint.class || parameterTypes[i] == ProceedingJoinPoint.class) continue;
+            if (!bindsValue || valueType != null) {
+                throw new IllegalArgumentException("Advice method %s declares unsupported parameter %s".formatted(adviceMethod, parameterTypes[i]));
+            }
+            valueType = parameterTypes[i];
+            reorder[i] = 1;
+        }
+
+        Class<?> declaringClass = adviceMethod.getDeclaringClass();
+        MethodHandles.Lookup lookup;
+        MethodHandle handle;
+        try {
+            lookup = MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup());
+            handle = lookup.unreflect(adviceMethod);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Unable to access advice method " + adviceMethod, e);
+        }
+
+        // Void advice cannot be adapted to the invoker's Object return by the metafactory
+        if (parameterTypes.length == 1 && valueType == null && adviceMethod.getReturnType() != void.class) {
+            try {
+                CallSite callSite = LambdaMetafactory.metafactory(lookup, "invoke",
+                        MethodType.methodType(AdviceInvoker.class, declaringClass),
+                        INVOKER_TYPE,
+                        handle,
+                        MethodType.methodType(adviceMethod.getReturnType(), ProceedingJoinPoint.class));
+                return (AdviceInvoker) callSite.getTarget().invoke(aspect);
+            } catch (Throwable e) {
+                log.debug("Falling back to a method handle invoker for advice {}", adviceMethod, e);
+            }
+        }
+
+        // Adapt the advice to (joinPoint, value) -> Object, dropping whichever of the two it does not declare
+        MethodType adaptedType = MethodType.methodType(Object.class);
+        for (int source : reorder) {
+            adaptedType = adaptedType.appendParameterTypes(VALUE_INVOKER_TYPE.parameterType(source));
+        }
+        MethodHandle adapted = MethodHandles.permuteArguments(handle.bindTo(aspect).asType(adaptedType), VALUE_INVOKER_TYPE, reorder);
+        return new MethodHandleAdviceInvoker(adapted, valueType == null ? null : ClassUtils.resolvePrimitiveIfNecessary(valueType), valueType != null && valueType.isPrimitive());
+    }
+
+    /**
+     * An {@link AdviceInvoker} delegating to a bound {@link MethodHandle} of type {@code (ProceedingJoinPoint, Object)Object}.
+     */
+    @RequiredArgsConstructor
+    private static final class MethodHandleAdviceInvoker implements AdviceInvoker {
+        private final MethodHandle handle;
+        /**
+         * The (boxed) type of the value parameter, or null if the advice does not bind one.
+         */
+        private final Class<?> valueType;
+        private final boolean primitiveValue;
+
+        @Override
+        public Object invoke(ProceedingJoinPoint joinPoint) throws Throwable {
+            return (Object) handle.invokeExact(joinPoint, (Object) null);
+        }
+
+        @Override
+        public Object invoke(ProceedingJoinPoint joinPoint, Object value) throws Throwable {
+            return (Object) handle.invokeExact(joinPoint, value);
+        }
+
+        @Override
+        public boolean accepts(Object value) {
+            if (valueType == null) return true;
+            return value == null ? !primitiveValue : valueType.isInstance(value);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.sylvona.leona.proxy;
+
+import net.bytebuddy.implementation.bind.annotation.*;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+
+/**
+ * The delegation target installed into a generated proxy class for a single advised method.
+ * <p>
+ * Instances of this class are created once per advised method when the proxy class is generated and are shared by
+ * every invocation (and every thread) that passes through that method. All invocation-specific state is carried by
+ * short-lived {@link CompositedProceedingJoinPoint}s, one per link of the interceptor chain.
+ */
+public final class AdvisedMethodInterceptor {
+    /**
+     * The preallocated signature shared by every join point of this method.
+     */
+    private final MethodSignature methodSignature;
+    /**
+     * The ordered interceptor chain of this method, flattened when the proxy class was generated.
+     */
+    final AdviceInterceptor[] chain;
+    /**
+     * Invokes the advised method on a target with an argument array, as {@code (Object, Object[])Object}, or null if
+     * the method is invoked reflectively.
+     */
+    private final MethodHandle targetInvoker;
+
+    /**
+     * Creates an interceptor which runs the provided interceptor chain for each call to the advised method.
+     *
+     * @param advisedMethod The method being advised.
+     * @param chain         The ordered interceptor chain, outermost advice first.
+     */
+    AdvisedMethodInterceptor(Method advisedMethod, AdviceInterceptor[] chain) {
+        this(advisedMethod, chain, null);
+    }
+
+    /**
+     * Creates an interceptor which runs the provided interceptor chain for each call to the advised method.
+     *
+     * @param advisedMethod The method being advised.
+     * @param chain         The ordered interceptor chain, outermost advice first.
+     * @param targetInvoker Invokes the advised method on a target, as {@code (Object, Object[])Object}, or null.
+     */
+    AdvisedMethodInterceptor(Method advisedMethod, AdviceInterceptor[] chain, MethodHandle targetInvoker) {
+        this.methodSignature = new CompositedProceedingJoinPoint.MethodSignatureImpl(advisedMethod);
+        this.chain = chain;
+        this.targetInvoker = targetInvoker;
+    }
+
+    /**
+     * Gets the signature shared by all join points created for this method.
+     *
+     * @return the method signature
+     */
+    public MethodSignature getMethodSignature() {
+        return methodSignature;
+    }
+
+    /**
+     * Entry point invoked by the generated proxy method.
+     *
+     * @param thisObject  The proxy instance the method was invoked on.
+     * @param superMethod Invokes the original (super) implementation with any arguments.
+     * @param arguments   The arguments the method was invoked with.
+     * @return the value produced by the interceptor chain
+     * @throws Throwable Any exception thrown by the advice or the advised method, unwrapped.
+     */
+    @RuntimeType
+    public Object intercept(@This Object thisObject, @Morph SuperMethodInvoker superMethod, @AllArguments Object[] arguments) throws Throwable {
+        return proceed(superMethod, null, thisObject, thisObject, arguments);
+    }
+
+    /**
+     * Entry point invoked by the generated proxy method if none of the advice reads the method's arguments, which are
+     * then neither copied into an array nor boxed. Such join points do not expose the arguments.
+     *
+     * @param thisObject The proxy instance the method was invoked on.
+     * @param superCall  Invokes the original (super) implementation with the original arguments.
+     * @return the value produced by the interceptor chain
+     * @throws Throwable Any exception thrown by the advice or the advised method, unwrapped.
+     */
+    @RuntimeType
+    public Object interceptWithoutArguments(@This Object thisObject, @SuperCall(serializableProxy = false) Callable<?> superCall) throws Throwable {
+        return proceed(null, superCall, thisObject, thisObject, null);
+    }
+
+    /**
+     * Entry point invoked by the generated method of a delegating proxy, see {@link ProxyClassPlan#isDelegating()}.
+     *
+     * @param thisObject The proxy instance the method was invoked on.
+     * @param delegate   The object the proxy delegates to, which the advised method is invoked on.
+     * @param arguments  The arguments the method was invoked with.
+     * @return the value produced by the interceptor chain
+     * @throws Throwable Any exception thrown by the advice or the advised method, unwrapped.
+     */
+    @RuntimeType
+    public Object interceptDelegating(@This Object thisObject, @FieldValue(ProxyClassPlan.DELEGATE_FIELD) Object delegate, @AllArguments Object[] arguments) throws Throwable {
+        return proceed(null, null, thisObject, delegate, arguments);
+    }
+
+    /**
+     * Runs the interceptor chain. The first link is invoked directly with a join point positioned at the second one,
+     * rather than through a join point positioned at the first link, saving an allocation per call.
+     */
+    private Object proceed(SuperMethodInvoker superMethod, Callable<?> superCall, Object thisObject, Object target, Object[] arguments) throws Throwable {
+        if (chain.length == 0) return new CompositedProceedingJoinPoint(this, 0, superMethod, superCall, thisObject, target, arguments).proceed();
+        return chain[0].invoke(new CompositedProceedingJoinPoint(this, 1, superMethod, superCall, thisObject, target, arguments));
+    }
+
+    /**
+     * Invokes the advised method on a target.
+     *
+     * @param target    The object to invoke the method on.
+     * @param arguments The arguments of the method.
+     * @return the value returned by the method
+     * @throws Throwable Any exception thrown by the method.
+     */
+    Object invokeTarget(Object target, Object[] arguments) throws Throwable {
+        if (targetInvoker != null) return (Object) targetInvoker.invokeExact(target, arguments);
+        return methodSignature.getMethod().invoke(target, arguments);
+    }
+
+    /**
+     * Invokes the super implementation of an advised method with a given argument array, through an accessor class
+     * generated along with the proxy class (see {@link Morph}). Unlike a reflective call, the super implementation is
+     * invoked directly rather than dispatched virtually, so it never re-enters the proxy.
+     */
+    public interface SuperMethodInvoker {
+        /**
+         * Invokes the super implementation of the advised method.
+         *
+         * @param arguments The arguments to invoke the method with, matching its parameters.
+         * @return the value returned by the method, boxed if primitive
+         */
+        Object invoke(Object[] arguments);
+    }
+}
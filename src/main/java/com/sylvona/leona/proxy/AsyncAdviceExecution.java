@@ -0,0 +1,126 @@
+package com.sylvona.leona.proxy;
+
+import com.sylvona.leona.proxy.aspects.BlockingAdvice;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Determines how advice applies to advised methods returning a {@link java.util.concurrent.CompletionStage},
+ * {@link java.util.concurrent.CompletableFuture}, Reactor {@code Mono} or Reactor {@code Flux}.
+ * <p>
+ * When disabled, such methods are advised like any other method: advice completes once the asynchronous value is
+ * returned. When enabled:
+ * <ul>
+ *     <li>After, after-returning and after-throwing advice run once the returned value completes. After-returning
+ *     advice receives the completed value (null for a {@code Flux}).</li>
+ *     <li>Advice annotated with {@link BlockingAdvice} runs on the blocking advice executor. The caller immediately
+ *     receives an asynchronous value.</li>
+ *     <li>Around and before advice is unchanged. Around advice can attach its own completion logic to the value
+ *     returned by {@code proceed()}.</li>
+ * </ul>
+ * The asynchronous type of each method is resolved once, when its interceptors are created.
+ */
+@Slf4j
+public final class AsyncAdviceExecution implements AutoCloseable {
+    /**
+     * Advises asynchronous methods like any other method.
+     */
+    public static final AsyncAdviceExecution DISABLED = new AsyncAdviceExecution(null, false);
+
+    private final Executor blockingAdviceExecutor;
+    private final boolean ownsExecutor;
+
+    private AsyncAdviceExecution(Executor blockingAdviceExecutor, boolean ownsExecutor) {
+        this.blockingAdviceExecutor = blockingAdviceExecutor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Enables asynchronous advice execution, running {@link BlockingAdvice} on the given executor.
+     *
+     * @param blockingAdviceExecutor The executor of blocking advice, not shut down by {@link #close()}.
+     * @return the execution settings
+     */
+    public static AsyncAdviceExecution withExecutor(Executor blockingAdviceExecutor) {
+        return new AsyncAdviceExecution(blockingAdviceExecutor, false);
+    }
+
+    /**
+     * Enables asynchronous advice execution, running {@link BlockingAdvice} on a new virtual thread per task if the
+     * JVM supports virtual threads, and on a cached pool of daemon threads otherwise.
+     *
+     * @return the execution settings, which shut the executor down when closed
+     */
+    public static AsyncAdviceExecution withDefaultExecutor() {
+        return new AsyncAdviceExecution(createDefaultExecutor(), true);
+    }
+
+    /**
+     * Checks if asynchronous advice execution is enabled.
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return blockingAdviceExecutor != null;
+    }
+
+    /**
+     * Gets the executor running {@link BlockingAdvice}.
+     *
+     * @return the executor, or null if disabled
+     */
+    public Executor getBlockingAdviceExecutor() {
+        return blockingAdviceExecutor;
+    }
+
+    /**
+     * Shuts down the blocking advice executor if it was created by {@link #withDefaultExecutor()}.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor && blockingAdviceExecutor instanceof ExecutorService executorService) executorService.shutdown();
+    }
+
+    /**
+     * Resolves the asynchronous type of an advised method.
+     *
+     * @param method The advised method.
+     * @return the asynchronous type, always {@link AsyncReturnType#SYNCHRONOUS} if disabled
+     */
+    AsyncReturnType returnTypeOf(Method method) {
+        return isEnabled() ? AsyncReturnType.of(method.getReturnType()) : AsyncReturnType.SYNCHRONOUS;
+    }
+
+    /**
+     * Checks if an advice is annotated (directly or through its aspect) with {@link BlockingAdvice}.
+     *
+     * @param advice The advice.
+     * @return true if the advice blocks
+     */
+    static boolean isBlocking(AbstractAspectJAdvice advice) {
+        Method adviceMethod = advice.getAspectJAdviceMethod();
+        return AnnotatedElementUtils.hasAnnotation(adviceMethod, BlockingAdvice.class)
+                || AnnotatedElementUtils.hasAnnotation(adviceMethod.getDeclaringClass(), BlockingAdvice.class);
+    }
+
+    private static Executor createDefaultExecutor() {
+        try {
+            // Virtual threads require Java 21, while this library targets Java 17
+            ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            log.debug("Running blocking advice on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            log.debug("Virtual threads are unavailable, running blocking advice on a cached thread pool");
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("leona-blocking-advice-");
+            threadFactory.setDaemon(true);
+            return Executors.newCachedThreadPool(threadFactory);
+        }
+    }
+}
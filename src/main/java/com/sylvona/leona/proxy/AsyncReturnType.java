@@ -0,0 +1,209 @@
+package com.sylvona.leona.proxy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * The asynchronous result type of an advised method, resolved once from the method's declared return type when its
+ * interceptor chain is created.
+ * <p>
+ * Each asynchronous type attaches callbacks to the value returned by the method without blocking, returning a value
+ * of the same declared type. Reactor types are handled by {@link ReactorAdvice}, which is only loaded if an advised
+ * method actually returns one.
+ */
+enum AsyncReturnType {
+    /**
+     * The method's result is available once it returns.
+     */
+    SYNCHRONOUS {
+        @Override
+        Object onTermination(Object result, Callback callback) throws Throwable {
+            callback.accept(null);
+            return result;
+        }
+
+        @Override
+        Object onSuccess(Object result, Callback callback) throws Throwable {
+            callback.accept(result);
+            return result;
+        }
+
+        @Override
+        Object onFailure(Object result, Callback callback) {
+            return result;
+        }
+
+        @Override
+        AdviceInterceptor offload(AdviceInterceptor interceptor, Executor executor) {
+            return interceptor;
+        }
+    },
+    /**
+     * The method returns a {@link CompletionStage} or {@link CompletableFuture}.
+     */
+    COMPLETION_STAGE {
+        @Override
+        Object onTermination(Object result, Callback callback) {
+            return ((CompletionStage<?>) result).whenComplete((value, failure) -> run(callback, null));
+        }
+
+        @Override
+        Object onSuccess(Object result, Callback callback) {
+            return ((CompletionStage<?>) result).thenApply(value -> {
+                run(callback, value);
+                return value;
+            });
+        }
+
+        @Override
+        Object onFailure(Object result, Callback callback) {
+            return ((CompletionStage<?>) result).whenComplete((value, failure) -> {
+                if (failure != null) run(callback, failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure);
+            });
+        }
+
+        @Override
+        AdviceInterceptor offload(AdviceInterceptor interceptor, Executor executor) {
+            return joinPoint -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    return interceptor.invoke(joinPoint);
+                } catch (Throwable throwable) {
+                    throw throwable instanceof CompletionException completionException ? completionException : new CompletionException(throwable);
+                }
+            }, executor).thenCompose(result -> result == null ? CompletableFuture.completedFuture(null) : (CompletionStage<?>) result);
+        }
+    },
+    /**
+     * The method returns a Reactor {@code Mono}.
+     */
+    MONO {
+        @Override
+        Object onTermination(Object result, Callback callback) {
+            return ReactorAdvice.monoOnTermination(result, callback);
+        }
+
+        @Override
+        Object onSuccess(Object result, Callback callback) {
+            return ReactorAdvice.monoOnSuccess(result, callback);
+        }
+
+        @Override
+        Object onFailure(Object result, Callback callback) {
+            return ReactorAdvice.monoOnFailure(result, callback);
+        }
+
+        @Override
+        AdviceInterceptor offload(AdviceInterceptor interceptor, Executor executor) {
+            return ReactorAdvice.offloadMono(interceptor, executor);
+        }
+    },
+    /**
+     * The method returns a Reactor {@code Flux}.
+     */
+    FLUX {
+        @Override
+        Object onTermination(Object result, Callback callback) {
+            return ReactorAdvice.fluxOnTermination(result, callback);
+        }
+
+        @Override
+        Object onSuccess(Object result, Callback callback) {
+            return ReactorAdvice.fluxOnSuccess(result, callback);
+        }
+
+        @Override
+        Object onFailure(Object result, Callback callback) {
+            return ReactorAdvice.fluxOnFailure(result, callback);
+        }
+
+        @Override
+        AdviceInterceptor offload(AdviceInterceptor interceptor, Executor executor) {
+            return ReactorAdvice.offloadFlux(interceptor, executor);
+        }
+    };
+
+    private static final String MONO_CLASS_NAME = "reactor.core.publisher.Mono";
+    private static final String FLUX_CLASS_NAME = "reactor.core.publisher.Flux";
+
+    /**
+     * Resolves the asynchronous type of a method's declared return type. Subtypes of the supported types are treated
+     * as synchronous, since the values returned by their callbacks may not be assignable to them.
+     *
+     * @param returnType The declared return type of the method.
+     * @return the asynchronous type
+     */
+    static AsyncReturnType of(Class<?> returnType) {
+        if (returnType == CompletionStage.class || returnType == CompletableFuture.class) return COMPLETION_STAGE;
+        if (returnType.getName().equals(MONO_CLASS_NAME)) return MONO;
+        if (returnType.getName().equals(FLUX_CLASS_NAME)) return FLUX;
+        return SYNCHRONOUS;
+    }
+
+    /**
+     * Checks if the result of the method completes after the method returns.
+     *
+     * @return true unless this is {@link #SYNCHRONOUS}
+     */
+    boolean isAsynchronous() {
+        return this != SYNCHRONOUS;
+    }
+
+    /**
+     * Runs a callback once a returned value completes, successfully or not, or is cancelled.
+     *
+     * @param result   The non-null value returned by the method.
+     * @param callback The callback, receiving null.
+     * @return the value to return in place of the method's result
+     * @throws Throwable Any exception thrown by a callback run synchronously.
+     */
+    abstract Object onTermination(Object result, Callback callback) throws Throwable;
+
+    /**
+     * Runs a callback once a returned value completes successfully. Multi-valued types pass null to the callback.
+     *
+     * @param result   The non-null value returned by the method.
+     * @param callback The callback, receiving the completed value.
+     * @return the value to return in place of the method's result
+     * @throws Throwable Any exception thrown by a callback run synchronously.
+     */
+    abstract Object onSuccess(Object result, Callback callback) throws Throwable;
+
+    /**
+     * Runs a callback once a returned value completes exceptionally. The value still completes with its original
+     * exception.
+     *
+     * @param result   The non-null value returned by the method.
+     * @param callback The callback, receiving the exception.
+     * @return the value to return in place of the method's result
+     */
+    abstract Object onFailure(Object result, Callback callback);
+
+    /**
+     * Wraps an interceptor so that it, and therefore every link of the chain it proceeds to, runs on an executor.
+     *
+     * @param interceptor The interceptor to offload.
+     * @param executor    The executor running the interceptor.
+     * @return an interceptor returning an asynchronous value as soon as the interceptor is scheduled
+     */
+    abstract AdviceInterceptor offload(AdviceInterceptor interceptor, Executor executor);
+
+    private static void run(Callback callback, Object value) {
+        try {
+            callback.accept(value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable throwable) {
+            throw new CompletionException(throwable);
+        }
+    }
+
+    /**
+     * A callback attached to an asynchronous result.
+     */
+    @FunctionalInterface
+    interface Callback {
+        void accept(Object value) throws Throwable;
+    }
+}
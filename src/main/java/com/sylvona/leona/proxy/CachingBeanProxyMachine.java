@@ -1,111 +1,753 @@
 package com.sylvona.leona.proxy;
 
 import com.sylvona.leona.core.utils.SpringBridgeUtils;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import net.bytebuddy.ByteBuddy;
-import net.bytebuddy.TypeCache;
-import net.bytebuddy.description.modifier.Visibility;
 import net.bytebuddy.dynamic.DynamicType;
-import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
-import net.bytebuddy.implementation.MethodCall;
-import net.bytebuddy.implementation.MethodDelegation;
-import org.aopalliance.aop.Advice;
 import org.springframework.aop.Advisor;
-import org.springframework.aop.aspectj.AspectJAroundAdvice;
-import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+import org.springframework.aot.AotDetector;
 import org.springframework.context.ApplicationContext;
+import org.springframework.core.NativeDetector;
+import org.springframework.objenesis.SpringObjenesis;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-
-import static net.bytebuddy.matcher.ElementMatchers.named;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 
 
 /**
  * The standard implementation of {@link ProxyMachine} which leverages reflections and spring to create a proxy-aware proxy object.
  * This class additionally caches the dynamically created proxy class to optimize subsequent proxy creations.
+ * <p>
+ * When running with Spring AOT generated artifacts, proxy classes generated at build time are loaded instead of
+ * generating them with ByteBuddy.
+ * <p>
+ * Cache lookups and proxy class generation are reported as JFR events ({@link ProxyClassLookupEvent} and
+ * {@link ProxyClassGenerationEvent}), which cost nothing unless a recording enables them. Invocations of the created
+ * proxies are reported to the machine's {@link ProxyInstrumentation}.
+ * <p>
+ * Proxy classes are defined next to the class they proxy by a {@link ProxyClassDefiner}. Closing the machine (which
+ * Spring does when the owning application context is closed) releases every cached proxy class. Generated proxy
+ * classes can additionally be persisted in a {@link ProxyClassDiskCache}, so that later runs load them instead of
+ * generating them again.
+ * <p>
+ * With {@link ProxyClassPlan.Weaving#INLINE} weaving, simple around advice is copied into the proxy classes generated
+ * at runtime rather than delegated to interceptors. Advice is not inlined while proxies are instrumented (inlined
+ * advice cannot be timed), nor when running with AOT generated artifacts (whose proxy classes always delegate).
  */
 @Slf4j
-@RequiredArgsConstructor
-public class CachingBeanProxyMachine implements ProxyMachine {
+public class CachingBeanProxyMachine implements ProxyMachine, AutoCloseable {
+    private static final SpringObjenesis OBJENESIS = new SpringObjenesis();
+    private static final MethodType TARGET_INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
     /**
-     * The cache responsible for containing newly generated proxy classes.
+     * The claim token of the machine whose interceptors are installed into each pregenerated proxy class, if any.
      */
-    protected final TypeCache<Class<?>> typeCache = new TypeCache<>();
+    private static final ClassValue<AtomicReference<Object>> PREGENERATED_CLASS_OWNERS = new ClassValue<>() {
+        @Override
+        protected AtomicReference<Object> computeValue(Class<?> proxyClass) {
+            return new AtomicReference<>();
+        }
+    };
+
     private final ApplicationContext applicationContext;
-    private final ClassLoader classLoader = getClass().getClassLoader();
+    /**
+     * The cache responsible for containing newly generated proxy classes.
+     */
+    protected final ProxyClassCache proxyClassCache;
+    /**
+     * The cache of pointcut match results, shared with the registry of advisors.
+     */
+    protected final PointcutMatchIndex pointcutMatchIndex;
+    /**
+     * The instrumentation of created proxies, consulted when installing each proxy class's interceptors.
+     */
+    protected final ProxyInstrumentation instrumentation;
+    /**
+     * Determines how advice applies to methods returning asynchronous values.
+     */
+    protected final AsyncAdviceExecution asyncAdviceExecution;
+    /**
+     * Defines the proxy classes generated at runtime.
+     */
+    protected final ProxyClassDefiner proxyClassDefiner;
+    /**
+     * The persistent cache of proxy classes generated at runtime, or null if they are only cached in memory.
+     */
+    protected final ProxyClassDiskCache proxyClassDiskCache;
+    /**
+     * How advice is applied to the methods of the proxy classes generated at runtime.
+     */
+    protected final ProxyClassPlan.Weaving weaving;
+    /**
+     * The generator of proxy classes which were not generated ahead of time.
+     */
+    protected final ProxyClassGenerator proxyClassGenerator = new ProxyClassGenerator();
+    /**
+     * The interceptors of each loaded proxy class, until they are installed. Installing interceptors resolves aspect
+     * beans, so it is deferred to the first proxy creation rather than done while (possibly concurrently) preparing
+     * the class. Held by the proxy class itself, so that pending interceptors never keep an evicted class reachable.
+     */
+    private final ClassValue<PendingInterceptors> pendingInterceptors = new ClassValue<>() {
+        @Override
+        protected PendingInterceptors computeValue(Class<?> proxyClass) {
+            return new PendingInterceptors();
+        }
+    };
+    /**
+     * The loaded proxy classes whose interceptors are pending, weakly referenced so that they can be discarded when the
+     * classes are invalidated or this machine is closed.
+     */
+    private final Set<Class<?>> pendingClasses = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    /**
+     * Identifies this machine as the owner of the pregenerated proxy classes it claimed, without keeping it reachable.
+     */
+    private final Object claimToken = new Object();
+    /**
+     * The pregenerated proxy classes claimed by this machine, released when it is closed.
+     */
+    private final Set<Class<?>> claimedClasses = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Lazily resolved factories invoking the constructor of each generated proxy class.
+     */
+    private final ClassValue<ProxyFactory> constructingFactories = new ClassValue<>() {
+        @Override
+        protected ProxyFactory computeValue(Class<?> proxyClass) {
+            return ProxyFactories.constructing(proxyClass, CachingBeanProxyMachine.this::resolveConstructorArguments);
+        }
+    };
+    /**
+     * Lazily resolved factories bypassing the constructor of each generated proxy class, falling back to the
+     * constructing factory if constructors cannot be bypassed.
+     */
+    private final ClassValue<ProxyFactory> instantiatingFactories = new ClassValue<>() {
+        @Override
+        protected ProxyFactory computeValue(Class<?> proxyClass) {
+            ProxyFactory factory = ProxyFactories.instantiating(proxyClass, OBJENESIS);
+            return factory != null ? factory : constructingFactories.get(proxyClass);
+        }
+    };
+    /**
+     * Lazily resolved factories allocating each generated delegating proxy class and setting its delegate.
+     */
+    private final ClassValue<ProxyFactory> delegatingFactories = new ClassValue<>() {
+        @Override
+        protected ProxyFactory computeValue(Class<?> proxyClass) {
+            return ProxyFactories.delegating(proxyClass, instantiatingFactories.get(proxyClass));
+        }
+    };
+
+    /**
+     * Creates a proxy machine with an unbounded, strongly referencing proxy class cache and the defaults of
+     * {@link #builder(ApplicationContext)}.
+     *
+     * @param applicationContext The spring {@link ApplicationContext}.
+     */
+    public CachingBeanProxyMachine(ApplicationContext applicationContext) {
+        this(builder(applicationContext));
+    }
+
+    /**
+     * Creates a new proxy machine, binding its proxy class cache and definer to the instrumentation.
+     *
+     * @param builder The configuration of the proxy machine.
+     */
+    protected CachingBeanProxyMachine(Builder builder) {
+        this.applicationContext = builder.applicationContext;
+        this.proxyClassCache = builder.proxyClassCache;
+        this.pointcutMatchIndex = builder.pointcutMatchIndex;
+        this.instrumentation = builder.instrumentation;
+        this.asyncAdviceExecution = builder.asyncAdviceExecution;
+        this.proxyClassDefiner = builder.proxyClassDefiner;
+        this.proxyClassDiskCache = builder.proxyClassDiskCache;
+        this.weaving = builder.weaving;
+        if (weaving == ProxyClassPlan.Weaving.INLINE && instrumentation != ProxyInstrumentation.NONE) {
+            log.info("Proxies are instrumented, advice is delegated rather than inlined");
+        }
+        instrumentation.bindProxyClasses(proxyClassCache, proxyClassDefiner);
+    }
+
+    /**
+     * Starts configuring a proxy machine. Unless configured otherwise, the machine has an unbounded, strongly
+     * referencing proxy class cache and its own pointcut match index, is not instrumented, advises methods returning
+     * asynchronous values like any other method, defines regular proxy classes, does not persist them and delegates
+     * advice.
+     *
+     * @param applicationContext The spring {@link ApplicationContext}.
+     * @return a builder of proxy machines
+     */
+    public static Builder builder(ApplicationContext applicationContext) {
+        return new Builder(applicationContext);
+    }
 
     @Override
     public Object create(Object source, List<Advisor> advisors, boolean useCopyConstructor, boolean useSpringAutowiring) throws InstantiationException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
-        Class<?> sourceClass = source.getClass();
-        Class<?> proxyClass = typeCache.findOrInsert(classLoader, sourceClass, () -> createDynamicType(source, sourceClass, advisors, useCopyConstructor, useSpringAutowiring).load(classLoader, ClassLoadingStrategy.Default.INJECTION).getLoaded());
-        return proxyClass.getDeclaredConstructor().newInstance();
+        return create(source, advisors, useCopyConstructor, useSpringAutowiring, false);
+    }
+
+    @Override
+    public Object create(Object source, List<Advisor> advisors, boolean useCopyConstructor, boolean useSpringAutowiring, boolean bypassConstructor) throws InstantiationException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
+        return getProxyFactory(source.getClass(), advisors, useCopyConstructor, useSpringAutowiring, bypassConstructor).newInstance(source);
+    }
+
+    @Override
+    public Object createDelegating(Object source, List<Advisor> advisors) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        return getDelegatingProxyFactory(source.getClass(), advisors).newInstance(source);
+    }
+
+    @Override
+    public ProxyFactory getProxyFactory(Class<?> sourceClass, List<Advisor> advisors, boolean useCopyConstructor, boolean useSpringAutowiring, boolean bypassConstructor) {
+        Class<?> proxyClass = getProxyClass(sourceClass, advisors, useCopyConstructor, useSpringAutowiring, bypassConstructor);
+        return bypassConstructor ? instantiatingFactories.get(proxyClass) : constructingFactories.get(proxyClass);
+    }
+
+    @Override
+    public ProxyFactory getDelegatingProxyFactory(Class<?> sourceClass, List<Advisor> advisors) {
+        Class<?> proxyClass = findInstalledProxyClass(ProxyClassKey.delegating(sourceClass, advisors));
+        return delegatingFactories.get(proxyClass);
+    }
+
+    @Override
+    public void prepare(Class<?> sourceClass, List<Advisor> advisors, boolean useCopyConstructor, boolean useSpringAutowiring) {
+        prepare(sourceClass, advisors, useCopyConstructor, useSpringAutowiring, false);
+    }
+
+    @Override
+    public void prepare(Class<?> sourceClass, List<Advisor> advisors, boolean useCopyConstructor, boolean useSpringAutowiring, boolean bypassConstructor) {
+        findOrLoadProxyClass(ProxyClassKey.of(sourceClass, advisors, useCopyConstructor, useSpringAutowiring, bypassConstructor));
+    }
+
+    @Override
+    public void prepareDelegating(Class<?> sourceClass, List<Advisor> advisors) {
+        findOrLoadProxyClass(ProxyClassKey.delegating(sourceClass, advisors));
+    }
+
+    @Override
+    public void invalidate(Class<?> sourceClass) {
+        invalidate(sourceClass, key -> key.getSourceClass() == sourceClass);
+    }
+
+    @Override
+    public void invalidate(Class<?> sourceClass, List<Advisor> advisors) {
+        invalidate(sourceClass, key -> key.getSourceClass() == sourceClass && key.hasAdvisors(advisors));
+    }
+
+    private void invalidate(Class<?> sourceClass, Predicate<ProxyClassKey> predicate) {
+        int invalidated = proxyClassCache.invalidate(predicate);
+        discardPendingInterceptors(predicate);
+        if (invalidated > 0) log.debug("Invalidated {} proxy class(es) of {}", invalidated, sourceClass);
     }
 
     /**
-     * Implementation for generating a dynamic class using a provided {@link Advisor} list.
+     * Finds the cached proxy class for the given configuration, loading or generating (and caching) it if necessary.
      *
-     * @param source              The source object to be proxied.
-     * @param sourceClass         The class of the source object.
+     * @param sourceClass         The class to be proxied.
      * @param advisors            The list of advisors to be applied to the proxy.
      * @param useCopyConstructor  Whether to use a copy constructor for proxy creation.
      * @param useSpringAutowiring Whether to use Spring's autowiring for proxy creation.
-     * @return An unloaded dynamic type representing the proxy class.
+     * @return the proxy class, with its interceptors installed
      */
-    protected DynamicType.Unloaded<?> createDynamicType(Object source, Class<?> sourceClass, List<Advisor> advisors, boolean useCopyConstructor, boolean useSpringAutowiring) {
-
-        DynamicType.Builder<?> typeBuilder = new ByteBuddy().subclass(sourceClass);
+    protected Class<?> getProxyClass(Class<?> sourceClass, List<Advisor> advisors, boolean useCopyConstructor, boolean useSpringAutowiring) {
+        return getProxyClass(sourceClass, advisors, useCopyConstructor, useSpringAutowiring, false);
+    }
 
-        for (Advisor advisor : advisors) {
-            Advice advice = advisor.getAdvice();
-            if (!(advice instanceof AspectJAroundAdvice aroundAdvice)) continue;
-            AspectJExpressionPointcut pointcutExpression = aroundAdvice.getPointcut();
+    /**
+     * Finds the cached proxy class for the given configuration, loading or generating (and caching) it if necessary.
+     *
+     * @param sourceClass         The class to be proxied.
+     * @param advisors            The list of advisors to be applied to the proxy.
+     * @param useCopyConstructor  Whether to use a copy constructor for proxy creation.
+     * @param useSpringAutowiring Whether to use Spring's autowiring for proxy creation.
+     * @param bypassConstructor   Whether proxies are allocated without invoking a constructor.
+     * @return the proxy class, with its interceptors installed
+     */
+    protected Class<?> getProxyClass(Class<?> sourceClass, List<Advisor> advisors, boolean useCopyConstructor, boolean useSpringAutowiring, boolean bypassConstructor) {
+        return findInstalledProxyClass(ProxyClassKey.of(sourceClass, advisors, useCopyConstructor, useSpringAutowiring, bypassConstructor));
+    }
 
-            for (Method method : sourceClass.getDeclaredMethods()) {
-                if (!pointcutExpression.matches(method, sourceClass)) continue;
+    private Class<?> findInstalledProxyClass(ProxyClassKey key) {
+        Class<?> proxyClass;
+        // A class invalidated before its interceptors were installed is never installed, and is loaded again
+        do proxyClass = findOrLoadProxyClass(key);
+        while (!installPendingInterceptors(proxyClass));
+        return proxyClass;
+    }
 
-                log.info("Creating interception for method {}", method);
-                CompositedProceedingJoinPoint composite = new CompositedProceedingJoinPoint(aroundAdvice.getAspectInstanceFactory().getAspectInstance(), aroundAdvice.getAspectJAdviceMethod());
-                MethodDelegation delegation = MethodDelegation.withDefaultConfiguration()
-                        .filter(named("intercept"))
-                        .to(composite);
+    private boolean installPendingInterceptors(Class<?> proxyClass) {
+        PendingInterceptors pending = pendingInterceptors.get(proxyClass);
+        if (pending.plan == null) return !pending.discarded;
+        synchronized (pending) {
+            if (pending.plan != null) {
+                installInterceptors(proxyClass, pending.plan);
+                pending.plan = null;
+                pending.key = null;
+                pendingClasses.remove(proxyClass);
+            }
+            return !pending.discarded;
+        }
+    }
 
-                typeBuilder = typeBuilder.method(named(method.getName())).intercept(delegation);
+    private void discardPendingInterceptors(Predicate<ProxyClassKey> predicate) {
+        List<Class<?>> proxyClasses;
+        synchronized (pendingClasses) {
+            proxyClasses = new ArrayList<>(pendingClasses);
+        }
+        for (Class<?> proxyClass : proxyClasses) {
+            PendingInterceptors pending = pendingInterceptors.get(proxyClass);
+            synchronized (pending) {
+                if (pending.plan != null && predicate.test(pending.key)) {
+                    pending.plan = null;
+                    pending.key = null;
+                    pending.discarded = true;
+                    pendingClasses.remove(proxyClass);
+                }
             }
         }
+    }
 
-        if (useCopyConstructor) {
-            try {
-                log.info("Creating custom constructor");
-                Constructor<?> constructor = sourceClass.getDeclaredConstructor(sourceClass);
-                typeBuilder = typeBuilder.defineConstructor(Visibility.PUBLIC).intercept(MethodCall.invoke(constructor).with(source));
+    private Class<?> findOrLoadProxyClass(ProxyClassKey key) {
+        ProxyClassLookupEvent lookupEvent = new ProxyClassLookupEvent();
+        lookupEvent.begin();
+        boolean[] generated = new boolean[1];
 
-                return typeBuilder.make();
-            }
-            catch (NoSuchMethodException ignored) {}
+        Class<?> proxyClass = proxyClassCache.findOrInsert(key, () -> {
+            generated[0] = true;
+            return loadProxyClass(key);
+        });
+
+        lookupEvent.end();
+        if (lookupEvent.shouldCommit()) {
+            lookupEvent.sourceClass = key.getSourceClass();
+            lookupEvent.hit = !generated[0];
+            lookupEvent.commit();
+        }
+        return proxyClass;
+    }
+
+    private Class<?> loadProxyClass(ProxyClassKey key) {
+        ProxyClassGenerationEvent generationEvent = new ProxyClassGenerationEvent();
+        generationEvent.begin();
+
+        Class<?> sourceClass = key.getSourceClass();
+        List<Advisor> advisors = key.getAdvisors();
+        ProxyClassPlan plan = key.isDelegating()
+                ? createDelegatingPlan(sourceClass, advisors)
+                : createPlan(sourceClass, advisors, key.isUseCopyConstructor(), key.isUseSpringAutowiring(), key.isBypassConstructor());
+        Class<?> proxyClass = loadPregeneratedClass(plan);
+        boolean pregenerated = proxyClass != null;
+        boolean diskCached = false;
+        long bytesGenerated = 0;
+        if (!pregenerated) {
+            proxyClass = loadDiskCachedClass(plan);
+            diskCached = proxyClass != null;
+        }
+        if (proxyClass == null) {
+            DynamicType.Unloaded<?> dynamicType = createDynamicType(plan);
+            for (byte[] bytes : dynamicType.getAllTypes().values()) bytesGenerated += bytes.length;
+            proxyClass = proxyClassDefiner.define(plan, dynamicType);
+            if (proxyClassDiskCache != null) proxyClassDiskCache.store(plan, dynamicType);
+        }
+        PendingInterceptors pending = pendingInterceptors.get(proxyClass);
+        synchronized (pending) {
+            pending.key = key;
+            pending.plan = plan;
+            pending.discarded = false;
+            pendingClasses.add(proxyClass);
+        }
+
+        generationEvent.end();
+        if (generationEvent.shouldCommit()) {
+            generationEvent.sourceClass = sourceClass;
+            generationEvent.proxyClass = proxyClass;
+            generationEvent.advisorCount = advisors.size();
+            generationEvent.advisedMethodCount = plan.getAdvisedMethods().size();
+            generationEvent.bytesGenerated = bytesGenerated;
+            generationEvent.pregenerated = pregenerated;
+            generationEvent.diskCached = diskCached;
+            generationEvent.hidden = proxyClass.isHidden();
+            generationEvent.commit();
+        }
+        return proxyClass;
+    }
+
+    /**
+     * Takes a snapshot of the proxy class cache's hit, miss, generation-time and eviction counters.
+     *
+     * @return the current cache statistics
+     */
+    public ProxyClassCache.Statistics getCacheStatistics() {
+        return proxyClassCache.getStatistics();
+    }
+
+    /**
+     * Takes a snapshot of the number and size of the proxy classes defined by this machine, and of the JVM's metaspace
+     * usage.
+     *
+     * @return the current class definition statistics
+     */
+    public ProxyClassDefiner.Statistics getClassStatistics() {
+        return proxyClassDefiner.getStatistics();
+    }
+
+    /**
+     * Releases every cached proxy class, so that neither this machine nor its cache keep the classes proxied for the
+     * application context (nor their class loader) reachable once the context is closed. Proxies created beforehand
+     * remain usable, and proxy classes requested afterwards are generated again. Pregenerated proxy classes claimed by
+     * this machine may then be claimed by another machine, see {@link #loadPregeneratedClass(ProxyClassPlan)}.
+     */
+    @Override
+    public void close() {
+        int cached = proxyClassCache.size();
+        proxyClassCache.clear();
+        discardPendingInterceptors(key -> true);
+        for (Class<?> claimedClass : claimedClasses) {
+            PREGENERATED_CLASS_OWNERS.get(claimedClass).compareAndSet(claimToken, null);
         }
+        claimedClasses.clear();
+        log.debug("Released {} cached proxy class(es)", cached);
+    }
 
+    /**
+     * Creates the plan of the proxy class for the given configuration, inlining the advice of eligible methods if this
+     * machine uses {@link ProxyClassPlan.Weaving#INLINE} weaving.
+     *
+     * @param sourceClass         The class to be proxied.
+     * @param advisors            The list of advisors to be applied to the proxy.
+     * @param useCopyConstructor  Whether to use a copy constructor for proxy creation.
+     * @param useSpringAutowiring Whether to use Spring's autowiring for proxy creation.
+     * @return the plan
+     */
+    protected ProxyClassPlan createPlan(Class<?> sourceClass, List<Advisor> advisors, boolean useCopyConstructor, boolean useSpringAutowiring) {
+        return createPlan(sourceClass, advisors, useCopyConstructor, useSpringAutowiring, false);
+    }
 
+    /**
+     * Creates the plan of the proxy class for the given configuration, inlining the advice of eligible methods if this
+     * machine uses {@link ProxyClassPlan.Weaving#INLINE} weaving.
+     *
+     * @param sourceClass         The class to be proxied.
+     * @param advisors            The list of advisors to be applied to the proxy.
+     * @param useCopyConstructor  Whether to use a copy constructor for proxy creation.
+     * @param useSpringAutowiring Whether to use Spring's autowiring for proxy creation.
+     * @param bypassConstructor   Whether proxies are allocated without invoking a constructor.
+     * @return the plan
+     */
+    protected ProxyClassPlan createPlan(Class<?> sourceClass, List<Advisor> advisors, boolean useCopyConstructor, boolean useSpringAutowiring, boolean bypassConstructor) {
         // Used if the object is a spring bean
-        if (useSpringAutowiring) {
-            Constructor<?> eligibleCtor = SpringBridgeUtils.determineAutowiredConstructor(sourceClass, applicationContext);
-            if (eligibleCtor != null) {
-                Object[] arguments = SpringBridgeUtils.resolveAutowiredConstructorArguments(eligibleCtor, applicationContext);
-                typeBuilder = typeBuilder.defineConstructor(Visibility.PUBLIC).intercept(MethodCall.invoke(eligibleCtor).with(arguments));
-                return typeBuilder.make();
+        Constructor<?> autowiredConstructor = useSpringAutowiring ? SpringBridgeUtils.determineAutowiredConstructor(sourceClass, applicationContext) : null;
+        ProxyClassPlan plan = ProxyClassPlan.create(pointcutMatchIndex.match(advisors, sourceClass), useCopyConstructor, autowiredConstructor, bypassConstructor);
+        if (weaving != ProxyClassPlan.Weaving.INLINE || instrumentation != ProxyInstrumentation.NONE || AotDetector.useGeneratedArtifacts()) return plan;
+        // Blocking advice of asynchronous methods must be offloaded by its interceptor
+        return plan.inlineAdvice(advisedMethod -> !asyncAdviceExecution.returnTypeOf(advisedMethod.method()).isAsynchronous()
+                || advisedMethod.advices().stream().noneMatch(AsyncAdviceExecution::isBlocking));
+    }
+
+    /**
+     * Creates the plan of the delegating proxy class for the given configuration.
+     *
+     * @param sourceClass The class to be proxied.
+     * @param advisors    The list of advisors to be applied to the proxy.
+     * @return the plan
+     */
+    protected ProxyClassPlan createDelegatingPlan(Class<?> sourceClass, List<Advisor> advisors) {
+        return ProxyClassPlan.createDelegating(pointcutMatchIndex.match(advisors, sourceClass));
+    }
+
+    /**
+     * Implementation for generating a dynamic class from a {@link ProxyClassPlan}.
+     *
+     * @param plan The plan of the proxy class.
+     * @return An unloaded dynamic type representing the proxy class.
+     */
+    protected DynamicType.Unloaded<?> createDynamicType(ProxyClassPlan plan) {
+        return proxyClassGenerator.generate(plan, false);
+    }
+
+    /**
+     * Loads the proxy class generated ahead of time for a plan, if AOT generated artifacts are in use.
+     * <p>
+     * The interceptors of a pregenerated class are static, so the class can only be used by one machine at a time: a
+     * machine claims it until it is closed. Outside a native image, a class claimed by another machine is generated
+     * again at runtime instead.
+     *
+     * @param plan The plan of the proxy class.
+     * @return the pregenerated proxy class, or null if it should be generated at runtime
+     * @throws IllegalStateException If running in a native image, where proxy classes cannot be generated at runtime,
+     *                               and the class was not generated ahead of time or is claimed by another machine.
+     */
+    protected Class<?> loadPregeneratedClass(ProxyClassPlan plan) {
+        if (!AotDetector.useGeneratedArtifacts()) return null;
+
+        Class<?> sourceClass = plan.getSourceClass();
+        Class<?> proxyClass;
+        try {
+            proxyClass = ClassUtils.forName(plan.getProxyClassName(), sourceClass.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            if (NativeDetector.inNativeImage()) {
+                throw new IllegalStateException("No proxy class %s was generated ahead of time for %s, which cannot be generated in a native image"
+                        .formatted(plan.getProxyClassName(), sourceClass.getName()), e);
+            }
+            log.debug("No pregenerated proxy class found for {}", sourceClass);
+            return null;
+        }
+
+        AtomicReference<Object> owner = PREGENERATED_CLASS_OWNERS.get(proxyClass);
+        if (owner.get() != claimToken && !owner.compareAndSet(null, claimToken)) {
+            if (NativeDetector.inNativeImage()) {
+                throw new IllegalStateException("Pregenerated proxy class %s is used by another proxy machine, whose proxies would run the advice of this machine. Close the other application context first"
+                        .formatted(proxyClass.getName()));
+            }
+            log.debug("Pregenerated proxy class {} is used by another proxy machine, generating it again", proxyClass.getName());
+            return null;
+        }
+        claimedClasses.add(proxyClass);
+        log.debug("Using pregenerated proxy class {}", proxyClass.getName());
+        return proxyClass;
+    }
+
+    /**
+     * Loads the proxy class persisted for a plan by a previous run, if a {@link ProxyClassDiskCache} is in use.
+     *
+     * @param plan The plan of the proxy class.
+     * @return the persisted proxy class, or null if it should be generated
+     */
+    protected Class<?> loadDiskCachedClass(ProxyClassPlan plan) {
+        if (proxyClassDiskCache == null) return null;
+        DynamicType.Unloaded<?> dynamicType = proxyClassDiskCache.load(plan);
+        if (dynamicType == null) return null;
+
+        try {
+            Class<?> proxyClass = proxyClassDefiner.define(plan, dynamicType);
+            log.debug("Using persisted proxy class {}", proxyClass.getName());
+            return proxyClass;
+        } catch (LinkageError | IllegalStateException e) {
+            // Typically because another machine of this JVM already defined the persisted class, which cannot be shared
+            log.debug("Unable to define persisted proxy class {}, generating it again", dynamicType.getTypeDescription().getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Binds the advice of each advised method to its aspect instance and installs the resulting interceptors into the
+     * proxy class.
+     *
+     * @param proxyClass The loaded proxy class.
+     * @param plan       The plan the proxy class was generated from.
+     */
+    protected void installInterceptors(Class<?> proxyClass, ProxyClassPlan plan) {
+        List<ProxyClassPlan.AdvisedMethod> advisedMethods = plan.getAdvisedMethods();
+        for (int i = 0; i < advisedMethods.size(); i++) {
+            ProxyClassPlan.AdvisedMethod advisedMethod = advisedMethods.get(i);
+            // Delegating proxies invoke the advised method on their delegate rather than through a super call
+            MethodHandle targetInvoker = plan.isDelegating() ? createTargetInvoker(advisedMethod.method()) : null;
+            // The interceptor of a method whose advice is inlined only provides its signature
+            AdviceInterceptor[] chain = advisedMethod.inlined() ? new AdviceInterceptor[0] : createInterceptorChain(plan.getSourceClass(), advisedMethod);
+            AdvisedMethodInterceptor interceptor = new AdvisedMethodInterceptor(advisedMethod.method(), chain, targetInvoker);
+            try {
+                proxyClass.getField(ProxyClassPlan.INTERCEPTOR_FIELD_PREFIX + i).set(null, interceptor);
+            } catch (NoSuchFieldException | IllegalAccessException e) {
+                throw new IllegalStateException("Unable to install interceptor into proxy class " + proxyClass.getName(), e);
             }
         }
+    }
 
+    private Object[] resolveConstructorArguments(Constructor<?> proxyConstructor) {
         try {
-            Constructor<?> constructor = sourceClass.getDeclaredConstructor();
-            typeBuilder = typeBuilder.defineConstructor(Visibility.PUBLIC).intercept(MethodCall.invoke(constructor));
-            log.info("Created empty custom constructor");
-            return typeBuilder.make();
+            Constructor<?> superConstructor = proxyConstructor.getDeclaringClass().getSuperclass().getDeclaredConstructor(proxyConstructor.getParameterTypes());
+            return SpringBridgeUtils.resolveAutowiredConstructorArguments(superConstructor, applicationContext);
         } catch (NoSuchMethodException e) {
-            throw new RuntimeException(e);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Creates a handle invoking a method on a target with an argument array, as {@code (Object, Object[])Object}.
+     *
+     * @param method The method.
+     * @return the handle, or null if the method is not accessible through a method handle
+     */
+    private static MethodHandle createTargetInvoker(Method method) {
+        try {
+            MethodHandle handle = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup()).unreflect(method);
+            return handle.asSpreader(Object[].class, method.getParameterCount()).asType(TARGET_INVOKER_TYPE);
+        } catch (IllegalAccessException e) {
+            log.debug("Falling back to reflective invocation of {}", method, e);
+            ReflectionUtils.makeAccessible(method);
+            return null;
+        }
+    }
+
+    /**
+     * Binds all advice applicable to a method into an ordered interceptor chain, outermost advice first. Links
+     * recording the method's and each advice's invocations are only added if the instrumentation requests them, and
+     * blocking advice of asynchronous methods is offloaded if asynchronous advice execution is enabled.
+     * <p>
+     * Advice which cannot be bound to a direct invoker, because it binds pointcut parameters or its pointcut has
+     * runtime tests, is run through Spring's own advice invocation instead, see {@link SpringAdviceInvocation}.
+     *
+     * @param sourceClass   The proxied class.
+     * @param advisedMethod The advised method of the proxy class plan.
+     * @return the interceptor chain
+     * @throws IllegalStateException If an advice can be run neither directly nor through Spring.
+     */
+    private AdviceInterceptor[] createInterceptorChain(Class<?> sourceClass, ProxyClassPlan.AdvisedMethod advisedMethod) {
+        Method method = advisedMethod.method();
+        AsyncReturnType returnType = asyncAdviceExecution.returnTypeOf(method);
+        List<AdviceInterceptor> chain = new ArrayList<>(advisedMethod.advices().size() + 1);
+
+        ProxyInstrumentation.InvocationRecorder methodRecorder = instrumentation.methodRecorder(method);
+        if (methodRecorder != null) chain.add(AdviceInterceptor.recording(CompositedProceedingJoinPoint::proceed, methodRecorder));
+
+        for (AbstractAspectJAdvice advice : advisedMethod.advices()) {
+            AdviceInterceptor interceptor = createAdviceInterceptor(sourceClass, method, advice, returnType);
+            ProxyInstrumentation.InvocationRecorder adviceRecorder = instrumentation.adviceRecorder(method, advice);
+            if (adviceRecorder != null) interceptor = AdviceInterceptor.recording(interceptor, adviceRecorder);
+            if (returnType.isAsynchronous() && AsyncAdviceExecution.isBlocking(advice)) {
+                interceptor = returnType.offload(interceptor, asyncAdviceExecution.getBlockingAdviceExecutor());
+            }
+            chain.add(interceptor);
+        }
+        return chain.toArray(AdviceInterceptor[]::new);
+    }
+
+    private static AdviceInterceptor createAdviceInterceptor(Class<?> sourceClass, Method method, AbstractAspectJAdvice advice, AsyncReturnType returnType) {
+        try {
+            if (AdviceInvokers.canBind(advice)) return AdviceInterceptor.of(advice, returnType);
+        } catch (IllegalArgumentException e) {
+            // Typically because the advice method is not accessible
+            log.debug("Unable to bind advice {} of method {}, running it through Spring", advice.getAspectJAdviceMethod(), method, e);
+        }
+        try {
+            return SpringAdviceInvocation.interceptor(advice, sourceClass);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Unable to apply advice %s to method %s".formatted(advice.getAspectJAdviceMethod(), method), e);
+        }
+    }
+
+    /**
+     * The plan of a loaded proxy class, and the key it was loaded for, until its interceptors are installed. A class
+     * whose pending interceptors were discarded (because it was invalidated) is never installed.
+     */
+    private static final class PendingInterceptors {
+        private volatile ProxyClassPlan plan;
+        private ProxyClassKey key;
+        private volatile boolean discarded;
+    }
+
+    /**
+     * Configures a {@link CachingBeanProxyMachine}, see {@link #builder(ApplicationContext)}.
+     */
+    public static final class Builder {
+        private final ApplicationContext applicationContext;
+        private ProxyClassCache proxyClassCache = new ProxyClassCache();
+        private PointcutMatchIndex pointcutMatchIndex = new PointcutMatchIndex();
+        private ProxyInstrumentation instrumentation = ProxyInstrumentation.NONE;
+        private AsyncAdviceExecution asyncAdviceExecution = AsyncAdviceExecution.DISABLED;
+        private ProxyClassDefiner proxyClassDefiner = new ProxyClassDefiner();
+        private ProxyClassDiskCache proxyClassDiskCache;
+        private ProxyClassPlan.Weaving weaving = ProxyClassPlan.Weaving.DELEGATION;
+
+        private Builder(ApplicationContext applicationContext) {
+            this.applicationContext = applicationContext;
+        }
+
+        /**
+         * Sets the cache of generated proxy classes.
+         *
+         * @param proxyClassCache The proxy class cache.
+         * @return this builder
+         */
+        public Builder proxyClassCache(ProxyClassCache proxyClassCache) {
+            this.proxyClassCache = proxyClassCache;
+            return this;
+        }
+
+        /**
+         * Sets the cache of pointcut match results, typically shared with the registry of advisors.
+         *
+         * @param pointcutMatchIndex The pointcut match index.
+         * @return this builder
+         */
+        public Builder pointcutMatchIndex(PointcutMatchIndex pointcutMatchIndex) {
+            this.pointcutMatchIndex = pointcutMatchIndex;
+            return this;
+        }
+
+        /**
+         * Sets the instrumentation of created proxies.
+         *
+         * @param instrumentation The proxy instrumentation.
+         * @return this builder
+         */
+        public Builder instrumentation(ProxyInstrumentation instrumentation) {
+            this.instrumentation = instrumentation;
+            return this;
+        }
+
+        /**
+         * Sets how advice applies to methods returning asynchronous values.
+         *
+         * @param asyncAdviceExecution The asynchronous advice execution.
+         * @return this builder
+         */
+        public Builder asyncAdviceExecution(AsyncAdviceExecution asyncAdviceExecution) {
+            this.asyncAdviceExecution = asyncAdviceExecution;
+            return this;
+        }
+
+        /**
+         * Sets how the proxy classes generated at runtime are defined.
+         *
+         * @param proxyClassDefiner The proxy class definer.
+         * @return this builder
+         */
+        public Builder proxyClassDefiner(ProxyClassDefiner proxyClassDefiner) {
+            this.proxyClassDefiner = proxyClassDefiner;
+            return this;
+        }
+
+        /**
+         * Sets the persistent cache of proxy classes generated at runtime.
+         *
+         * @param proxyClassDiskCache The proxy class disk cache, or null to only cache proxy classes in memory.
+         * @return this builder
+         */
+        public Builder proxyClassDiskCache(ProxyClassDiskCache proxyClassDiskCache) {
+            this.proxyClassDiskCache = proxyClassDiskCache;
+            return this;
+        }
+
+        /**
+         * Sets how advice is applied to the methods of the proxy classes generated at runtime.
+         *
+         * @param weaving The weaving of advice.
+         * @return this builder
+         */
+        public Builder weaving(ProxyClassPlan.Weaving weaving) {
+            this.weaving = weaving;
+            return this;
+        }
+
+        /**
+         * Creates the configured proxy machine.
+         *
+         * @return a new proxy machine
+         */
+        public CachingBeanProxyMachine build() {
+            return new CachingBeanProxyMachine(this);
         }
     }
 }
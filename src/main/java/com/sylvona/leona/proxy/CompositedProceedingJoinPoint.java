@@ -1,68 +1,86 @@
 package com.sylvona.leona.proxy;
 
 import lombok.RequiredArgsConstructor;
-import net.bytebuddy.implementation.bind.annotation.*;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.Signature;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.aspectj.lang.reflect.SourceLocation;
 import org.aspectj.runtime.internal.AroundClosure;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.util.Arrays;
 import java.util.concurrent.Callable;
-import java.util.function.Function;
 
+/**
+ * The immutable, per-invocation {@link ProceedingJoinPoint} handed to advice by an {@link AdvisedMethodInterceptor}.
+ * <p>
+ * A new instance is created for every call of an advised method and for every link of its interceptor chain, making it
+ * safe to use from any number of threads: each join point is positioned at the next link, so proceeding allocates the
+ * join point handed to that link. A call through a chain of {@code n} links thus allocates {@code n} join points (the
+ * join point positioned at the first link is never needed, see {@link AdvisedMethodInterceptor}). As join points are
+ * handed to advice through interface calls, the JIT can only eliminate these allocations where it inlines the whole
+ * chain. The {@link MethodSignature} is shared across all invocations of the same method.
+ * <p>
+ * If none of the advice of the method reads its arguments, the join point is created without them and invokes the
+ * super implementation through a {@link Callable} holding the original arguments instead.
+ */
 @RequiredArgsConstructor
 class CompositedProceedingJoinPoint implements ProceedingJoinPoint {
-    private final Function<ProceedingJoinPoint, Object> joinPointFunction;
-
-    private Callable<?> defaultCall;
-    private Object thisObject;
-    private Object defaultObject;
-    private Object[] arguments;
-    private MethodSignature methodSignature;
-
-    public CompositedProceedingJoinPoint(Object aspect, Method aspectMethod) {
-        joinPointFunction = pjp -> {
-            try {
-                aspectMethod.setAccessible(true);
-                return aspectMethod.invoke(aspect, pjp);
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                throw new RuntimeException(e);
-            }
-        };
-    }
-
-    @RuntimeType
-    public Object intercept(@This Object thisObject, @Origin Method targetMethod, @SuperCall Callable<?> defaultCall, @Super Object target, @AllArguments Object[] arguments) {
-        this.defaultCall = defaultCall;
-        this.thisObject = thisObject;
-        this.defaultObject = target;
-        this.methodSignature = new MethodSignatureImpl(targetMethod);
-        this.arguments = arguments;
-
-        return joinPointFunction.apply(this);
-    }
+    private final AdvisedMethodInterceptor interceptor;
+    /**
+     * The index of the next link of the interceptor chain to run on {@link #proceed()}.
+     */
+    private final int position;
+    /**
+     * Invokes the super implementation of a subclass proxy, or null if the advised method is invoked on a delegate.
+     */
+    private final AdvisedMethodInterceptor.SuperMethodInvoker superMethod;
+    /**
+     * Invokes the super implementation with the original arguments if they are not captured, or null.
+     */
+    private final Callable<?> superCall;
+    private final Object thisObject;
+    private final Object defaultObject;
+    /**
+     * The arguments of the method, or null if they are not captured.
+     */
+    private final Object[] arguments;
 
     @Override
     public void set$AroundClosure(AroundClosure arc) {}
 
     @Override
     public Object proceed() throws Throwable {
-        return defaultCall.call();
+        AdviceInterceptor[] chain = interceptor.chain;
+        if (position < chain.length) {
+            return chain[position].invoke(new CompositedProceedingJoinPoint(interceptor, position + 1, superMethod, superCall, thisObject, defaultObject, arguments));
+        }
+        if (superCall != null) return superCall.call();
+        return invokeTarget(arguments);
     }
 
     @Override
     public Object proceed(Object[] args) throws Throwable {
-        return methodSignature.getMethod().invoke(defaultObject, args);
+        if (arguments == null) throw argumentsNotCaptured();
+        if (args.length != arguments.length) {
+            throw new IllegalArgumentException("Expecting %d arguments to proceed, but was passed %d arguments".formatted(arguments.length, args.length));
+        }
+        AdviceInterceptor[] chain = interceptor.chain;
+        if (position < chain.length) {
+            return chain[position].invoke(new CompositedProceedingJoinPoint(interceptor, position + 1, superMethod, null, thisObject, defaultObject, args));
+        }
+        return invokeTarget(args);
+    }
+
+    private Object invokeTarget(Object[] args) throws Throwable {
+        if (superMethod != null) return superMethod.invoke(args);
+        return interceptor.invokeTarget(defaultObject, args);
     }
 
     @Override
     public String toShortString() {
-        return "ProceedingJoinPoint(target=%s)".formatted(methodSignature.getName());
+        return "ProceedingJoinPoint(target=%s)".formatted(interceptor.getMethodSignature().getName());
     }
 
     @Override
@@ -82,12 +100,17 @@ class CompositedProceedingJoinPoint implements ProceedingJoinPoint {
 
     @Override
     public Object[] getArgs() {
+        if (arguments == null) throw argumentsNotCaptured();
         return arguments;
     }
 
+    private IllegalStateException argumentsNotCaptured() {
+        return new IllegalStateException("Arguments of %s are not captured, as none of its advice was found to read them".formatted(interceptor.getMethodSignature().getMethod()));
+    }
+
     @Override
     public Signature getSignature() {
-        return methodSignature;
+        return interceptor.getMethodSignature();
     }
 
     @Override
@@ -105,10 +128,14 @@ class CompositedProceedingJoinPoint implements ProceedingJoinPoint {
         return null;
     }
 
-    @RequiredArgsConstructor
-    private static class MethodSignatureImpl implements MethodSignature {
+    static class MethodSignatureImpl implements MethodSignature {
         private final Method method;
-        private String[] parameterNames;
+        private final String[] parameterNames;
+
+        MethodSignatureImpl(Method method) {
+            this.method = method;
+            this.parameterNames = Arrays.stream(method.getParameters()).map(Parameter::getName).toArray(String[]::new);
+        }
 
         @Override
         public Class getReturnType() {
@@ -127,8 +154,7 @@ class CompositedProceedingJoinPoint implements ProceedingJoinPoint {
 
         @Override
         public String[] getParameterNames() {
-            if (parameterNames != null) return parameterNames;
-            return parameterNames = Arrays.stream(method.getParameters()).map(Parameter::getName).toArray(String[]::new);
+            return parameterNames;
         }
 
         @Override
@@ -0,0 +1,17 @@
+package com.sylvona.leona.proxy;
+
+/**
+ * Copies the values of a fixed set of fields from one object to another.
+ * <p>
+ * This interface is public so that copiers generated by {@link GeneratedFieldsCopier} can implement it from any
+ * package; it is not intended to be implemented by users.
+ */
+public interface FieldCopier {
+    /**
+     * Copies the field values of the source object into the target object.
+     *
+     * @param source The object from which field values are read.
+     * @param target The object into which field values are written.
+     */
+    void copy(Object source, Object target);
+}
@@ -0,0 +1,223 @@
+package com.sylvona.leona.proxy;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.field.FieldDescription;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.scaffold.TypeValidation;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.bytecode.StackManipulation;
+import net.bytebuddy.implementation.bytecode.assign.TypeCasting;
+import net.bytebuddy.implementation.bytecode.member.FieldAccess;
+import net.bytebuddy.implementation.bytecode.member.MethodReturn;
+import net.bytebuddy.implementation.bytecode.member.MethodVariableAccess;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+
+/**
+ * A utility class which copies field values from one object to another using a bytecode copier generated once per
+ * source type.
+ * <p>
+ * Every class of the source type's hierarchy receives its own copier, defined as a hidden nestmate of that class so it
+ * can read and write even private fields directly. Classes for which a copier cannot be defined fall back to
+ * {@link VarHandle}s, and fields which cannot be reached that way (e.g. because their package is not open to this
+ * module) fall back to reflection. Fields which cannot even be made accessible are not copied. Copiers are cached per
+ * source type in a {@link ClassValue} shared by all instances of this class, and are safe to use concurrently.
+ */
+@Slf4j
+public class GeneratedFieldsCopier {
+    private static final String COPIER_SUFFIX = "$LeonaFieldCopier";
+
+    private static final ClassValue<FieldCopier> COPIERS = new ClassValue<>() {
+        @Override
+        protected FieldCopier computeValue(Class<?> type) {
+            return createCopier(type);
+        }
+    };
+
+    /**
+     * Copies eligible fields from the source object to the target object.
+     * Eligible fields are the non-static and non-final fields declared by the source object's class or any of its
+     * superclasses.
+     *
+     * @param <S>    The type of the source object
+     * @param <T>    The type of the target object
+     * @param source The source object from which fields will be copied.
+     * @param target The target object to which fields will be copied.
+     */
+    public <S, T extends S> void copyFieldValues(S source, T target) {
+        COPIERS.get(source.getClass()).copy(source, target);
+    }
+
+    /**
+     * Gets (creating if necessary) the copier for the given source type.
+     *
+     * @param type The type of the objects to copy.
+     * @return the copier for the type
+     */
+    public FieldCopier getCopier(Class<?> type) {
+        return COPIERS.get(type);
+    }
+
+    private static FieldCopier createCopier(Class<?> type) {
+        List<FieldCopier> hierarchyCopiers = new ArrayList<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            List<Field> fields = new ArrayList<>();
+            for (Field field : current.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isFinal(modifiers) || Modifier.isStatic(modifiers)) continue;
+                fields.add(field);
+            }
+            if (fields.isEmpty()) continue;
+            hierarchyCopiers.add(createDeclaredFieldsCopier(current, fields));
+        }
+
+        if (hierarchyCopiers.size() == 1) return hierarchyCopiers.get(0);
+        return new CompositeFieldCopier(hierarchyCopiers.toArray(FieldCopier[]::new));
+    }
+
+    private static FieldCopier createDeclaredFieldsCopier(Class<?> declaringClass, List<Field> fields) {
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup());
+        } catch (IllegalAccessException | RuntimeException e) {
+            log.debug("Unable to access {}, falling back to reflective field copying", declaringClass, e);
+            return createReflectiveCopier(fields);
+        }
+
+        try {
+            return defineHiddenCopier(lookup, declaringClass, fields);
+        } catch (Throwable e) {
+            log.debug("Unable to generate field copier for {}, falling back to var handles", declaringClass, e);
+        }
+        return createVarHandleCopier(lookup, fields);
+    }
+
+    /**
+     * Creates a copier accessing the given fields through {@link VarHandle}s, and through reflection for fields the
+     * lookup cannot access.
+     *
+     * @param lookup The lookup with private access to the declaring class of the fields.
+     * @param fields The instance fields to copy.
+     * @return the copier
+     */
+    static FieldCopier createVarHandleCopier(MethodHandles.Lookup lookup, List<Field> fields) {
+        List<VarHandle> handles = new ArrayList<>(fields.size());
+        List<Field> unreachableFields = new ArrayList<>();
+        for (Field field : fields) {
+            try {
+                handles.add(lookup.unreflectVarHandle(field));
+            } catch (IllegalAccessException e) {
+                unreachableFields.add(field);
+            }
+        }
+
+        FieldCopier copier = new VarHandleFieldCopier(handles.toArray(VarHandle[]::new));
+        if (unreachableFields.isEmpty()) return copier;
+        return new CompositeFieldCopier(new FieldCopier[] {copier, createReflectiveCopier(unreachableFields)});
+    }
+
+    /**
+     * Creates a copier accessing the given fields through reflection, skipping the fields which cannot be made
+     * accessible.
+     *
+     * @param fields The instance fields to copy.
+     * @return the copier
+     */
+    static FieldCopier createReflectiveCopier(List<Field> fields) {
+        return new ReflectiveFieldCopier(accessibleFields(fields));
+    }
+
+    /**
+     * Generates a copier reading and writing the given fields directly and defines it as a hidden nestmate of their
+     * declaring class.
+     */
+    private static FieldCopier defineHiddenCopier(MethodHandles.Lookup lookup, Class<?> declaringClass, List<Field> fields) throws Throwable {
+        TypeDescription declaringType = TypeDescription.ForLoadedType.of(declaringClass);
+        List<StackManipulation> instructions = new ArrayList<>(fields.size() * 6 + 1);
+        for (Field field : fields) {
+            FieldDescription fieldDescription = new FieldDescription.ForLoadedField(field);
+            instructions.add(MethodVariableAccess.REFERENCE.loadFrom(2));
+            instructions.add(TypeCasting.to(declaringType));
+            instructions.add(MethodVariableAccess.REFERENCE.loadFrom(1));
+            instructions.add(TypeCasting.to(declaringType));
+            instructions.add(FieldAccess.forField(fieldDescription).read());
+            instructions.add(FieldAccess.forField(fieldDescription).write());
+        }
+        instructions.add(MethodReturn.VOID);
+
+        byte[] bytes = new ByteBuddy()
+                .with(TypeValidation.DISABLED)
+                .subclass(FieldCopier.class)
+                .name(declaringClass.getName() + COPIER_SUFFIX)
+                .method(named("copy"))
+                .intercept(new Implementation.Simple(new StackManipulation.Compound(instructions)))
+                .make()
+                .getBytes();
+
+        MethodHandles.Lookup copierLookup = lookup.defineHiddenClass(bytes, true, MethodHandles.Lookup.ClassOption.NESTMATE);
+        return (FieldCopier) copierLookup.findConstructor(copierLookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+    }
+
+    private static Field[] accessibleFields(List<Field> fields) {
+        List<Field> accessibleFields = new ArrayList<>(fields.size());
+        for (Field field : fields) {
+            try {
+                field.setAccessible(true);
+                accessibleFields.add(field);
+            } catch (RuntimeException e) {
+                log.debug("Field {} cannot be copied", field, e);
+            }
+        }
+        return accessibleFields.toArray(Field[]::new);
+    }
+
+    @RequiredArgsConstructor
+    private static final class CompositeFieldCopier implements FieldCopier {
+        private final FieldCopier[] copiers;
+
+        @Override
+        public void copy(Object source, Object target) {
+            for (FieldCopier copier : copiers) {
+                copier.copy(source, target);
+            }
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class VarHandleFieldCopier implements FieldCopier {
+        private final VarHandle[] handles;
+
+        @Override
+        public void copy(Object source, Object target) {
+            for (VarHandle handle : handles) {
+                handle.set(target, handle.get(source));
+            }
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class ReflectiveFieldCopier implements FieldCopier {
+        private final Field[] fields;
+
+        @Override
+        public void copy(Object source, Object target) {
+            try {
+                for (Field field : fields) {
+                    field.set(target, field.get(source));
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.sylvona.leona.proxy;
+
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.jar.asm.ClassReader;
+import net.bytebuddy.jar.asm.ClassVisitor;
+import net.bytebuddy.jar.asm.Handle;
+import net.bytebuddy.jar.asm.Label;
+import net.bytebuddy.jar.asm.MethodVisitor;
+import net.bytebuddy.jar.asm.Opcodes;
+import net.bytebuddy.jar.asm.Type;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+/**
+ * Determines which parts of its join point an advice method uses, by inspecting the advice method's bytecode.
+ * <p>
+ * The analysis is conservative: an advice method only counts as not reading the arguments of the advised method if
+ * every use of its join point parameter is an immediate call of one of {@link JoinPoint}'s or
+ * {@link ProceedingJoinPoint}'s parameterless methods other than {@link JoinPoint#getArgs()}, such as
+ * {@link ProceedingJoinPoint#proceed()} or {@link JoinPoint#getSignature()}. Passing the join point to another method,
+ * capturing it or storing it counts as reading the arguments, as does any advice method whose bytecode cannot be read.
+ */
+@Slf4j
+final class JoinPointUsage {
+    private static final String JOIN_POINT = Type.getInternalName(JoinPoint.class);
+    private static final String PROCEEDING_JOIN_POINT = Type.getInternalName(ProceedingJoinPoint.class);
+
+    private static final Map<Method, Boolean> READS_ARGUMENTS = new ConcurrentReferenceHashMap<>();
+
+    private JoinPointUsage() {}
+
+    /**
+     * Checks if an advice method may read the arguments of the advised method, through {@link JoinPoint#getArgs()} or
+     * by proceeding with different arguments.
+     *
+     * @param adviceMethod The advice method.
+     * @return false if the advice method certainly does not read the arguments, true otherwise
+     */
+    static boolean readsArguments(Method adviceMethod) {
+        return READS_ARGUMENTS.computeIfAbsent(adviceMethod, JoinPointUsage::analyze);
+    }
+
+    private static boolean analyze(Method adviceMethod) {
+        Class<?>[] parameterTypes = adviceMethod.getParameterTypes();
+        boolean[] joinPointSlots = new boolean[Type.getArgumentsAndReturnSizes(Type.getMethodDescriptor(adviceMethod)) >> 2];
+        boolean declaresJoinPoint = false;
+        int slot = 1;
+        for (Class<?> parameterType : parameterTypes) {
+            if (parameterType == JoinPoint.class || parameterType == ProceedingJoinPoint.class) {
+                joinPointSlots[slot] = true;
+                declaresJoinPoint = true;
+            }
+            slot += Type.getType(parameterType).getSize();
+        }
+        if (!declaresJoinPoint) return false;
+
+        byte[] bytes;
+        try {
+            bytes = ClassFileLocator.ForClassLoader.read(adviceMethod.getDeclaringClass());
+        } catch (RuntimeException e) {
+            log.debug("Unable to read the bytecode of advice {}, assuming it reads arguments", adviceMethod, e);
+            return true;
+        }
+
+        String name = adviceMethod.getName();
+        String descriptor = Type.getMethodDescriptor(adviceMethod);
+        JoinPointUseVisitor methodVisitor = new JoinPointUseVisitor(joinPointSlots);
+        try {
+            new ClassReader(bytes).accept(new ClassVisitor(Opcodes.ASM9) {
+                @Override
+                public MethodVisitor visitMethod(int access, String methodName, String methodDescriptor, String signature, String[] exceptions) {
+                    return name.equals(methodName) && descriptor.equals(methodDescriptor) ? methodVisitor : null;
+                }
+            }, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        } catch (RuntimeException e) {
+            log.debug("Unable to analyze advice {}, assuming it reads arguments", adviceMethod, e);
+            return true;
+        }
+        return !methodVisitor.visited || methodVisitor.escapes;
+    }
+
+    /**
+     * Tracks whether a loaded join point is used for anything but a call of one of its argument-free accessors.
+     */
+    private static final class JoinPointUseVisitor extends MethodVisitor {
+        private final boolean[] joinPointSlots;
+        private boolean visited;
+        private boolean loaded;
+        private boolean escapes;
+
+        JoinPointUseVisitor(boolean[] joinPointSlots) {
+            super(Opcodes.ASM9);
+            this.joinPointSlots = joinPointSlots;
+        }
+
+        private boolean isJoinPointSlot(int slot) {
+            return slot < joinPointSlots.length && joinPointSlots[slot];
+        }
+
+        /**
+         * Invoked for every instruction other than a method call, which cannot consume a join point loaded just before.
+         */
+        private void instruction() {
+            if (loaded) escapes = true;
+            loaded = false;
+        }
+
+        @Override
+        public void visitCode() {
+            visited = true;
+        }
+
+        @Override
+        public void visitVarInsn(int opcode, int varIndex) {
+            instruction();
+            if (opcode == Opcodes.ALOAD && isJoinPointSlot(varIndex)) loaded = true;
+            // The join point parameter is reassigned, later loads may not refer to it
+            if (opcode == Opcodes.ASTORE && isJoinPointSlot(varIndex)) escapes = true;
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+            if (loaded) {
+                boolean accessor = opcode == Opcodes.INVOKEINTERFACE && (owner.equals(JOIN_POINT) || owner.equals(PROCEEDING_JOIN_POINT))
+                        && descriptor.startsWith("()") && !name.equals("getArgs");
+                if (!accessor) escapes = true;
+            }
+            loaded = false;
+        }
+
+        @Override
+        public void visitInsn(int opcode) {
+            instruction();
+        }
+
+        @Override
+        public void visitIntInsn(int opcode, int operand) {
+            instruction();
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type) {
+            instruction();
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+            instruction();
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+            instruction();
+        }
+
+        @Override
+        public void visitJumpInsn(int opcode, Label label) {
+            instruction();
+        }
+
+        @Override
+        public void visitLdcInsn(Object value) {
+            instruction();
+        }
+
+        @Override
+        public void visitIincInsn(int varIndex, int increment) {
+            instruction();
+        }
+
+        @Override
+        public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+            instruction();
+        }
+
+        @Override
+        public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+            instruction();
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+            instruction();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.sylvona.leona.proxy;
+
+/**
+ * A marker interface implemented by every proxy class generated by {@link ProxyClassGenerator}, used to avoid
+ * proxying a proxy again.
+ */
+public interface LeonaProxy {
+}
@@ -0,0 +1,167 @@
+package com.sylvona.leona.proxy;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.IntroductionAdvisor;
+import org.springframework.aop.IntroductionAwareMethodMatcher;
+import org.springframework.aop.MethodMatcher;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.PointcutAdvisor;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.MethodClassKey;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Caches the results of matching advisors' pointcuts against classes and methods.
+ * <p>
+ * Each advisor's {@link ClassFilter} is consulted first, so methods of classes the advisor cannot apply to are never
+ * matched. Method match results are cached by the most specific {@link Method}, so they are shared by every class of a
+ * hierarchy inheriting the method; only pointcuts requiring dynamic tests (e.g. {@code this()} or {@code target()})
+ * are cached per target class.
+ * <p>
+ * A single {@link #match(List, Class)} pass produces the {@link MatchTable} from which both the applicable advisors
+ * (see {@link #findAdvisorsThatCanApply(List, Class)}) and the advised methods of a {@link ProxyClassPlan} are derived.
+ * Advisors are weakly referenced, so the index does not prevent discarded advisors from being collected.
+ */
+public class PointcutMatchIndex {
+    private final Map<Advisor, AdvisorMatcher> matchers = new ConcurrentReferenceHashMap<>(16, ConcurrentReferenceHashMap.ReferenceType.WEAK);
+
+    /**
+     * Determines the advisors applicable to a class, equivalent to {@link AopUtils#findAdvisorsThatCanApply(List, Class)}.
+     *
+     * @param advisors    The candidate advisors.
+     * @param targetClass The target class.
+     * @return the applicable advisors, in their original order
+     */
+    public List<Advisor> findAdvisorsThatCanApply(List<Advisor> advisors, Class<?> targetClass) {
+        return match(advisors, targetClass).advisors();
+    }
+
+    /**
+     * Matches advisors against a class and every method it declares, inherits or implements.
+     *
+     * @param advisors    The candidate advisors.
+     * @param targetClass The target class.
+     * @return the table of applicable advisors and advised methods
+     */
+    public MatchTable match(List<Advisor> advisors, Class<?> targetClass) {
+        if (advisors.isEmpty()) return new MatchTable(targetClass, List.of(), Map.of());
+
+        // Introductions apply first, as in AopUtils
+        List<Advisor> applicableAdvisors = new ArrayList<>();
+        for (Advisor advisor : advisors) {
+            if (advisor instanceof IntroductionAdvisor introductionAdvisor && introductionAdvisor.getClassFilter().matches(targetClass)) {
+                applicableAdvisors.add(advisor);
+            }
+        }
+        boolean hasIntroductions = !applicableAdvisors.isEmpty();
+
+        List<Advisor> pointcutAdvisors = new ArrayList<>();
+        for (Advisor advisor : advisors) {
+            if (advisor instanceof PointcutAdvisor && getMatcher(advisor).matchesClass(targetClass)) pointcutAdvisors.add(advisor);
+        }
+
+        Map<Method, List<Advisor>> advisorsByMethod = new LinkedHashMap<>();
+        Set<Advisor> matchedAdvisors = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (!pointcutAdvisors.isEmpty()) {
+            for (Class<?> type : getIntrospectedClasses(targetClass)) {
+                for (Method method : ReflectionUtils.getAllDeclaredMethods(type)) {
+                    List<Advisor> methodAdvisors = null;
+                    for (Advisor advisor : pointcutAdvisors) {
+                        if (!getMatcher(advisor).matchesMethod(method, targetClass, hasIntroductions)) continue;
+                        if (methodAdvisors == null) methodAdvisors = new ArrayList<>(pointcutAdvisors.size());
+                        methodAdvisors.add(advisor);
+                        matchedAdvisors.add(advisor);
+                    }
+                    if (methodAdvisors != null) advisorsByMethod.putIfAbsent(method, List.copyOf(methodAdvisors));
+                }
+            }
+        }
+
+        for (Advisor advisor : advisors) {
+            if (advisor instanceof IntroductionAdvisor) continue;
+            if (!(advisor instanceof PointcutAdvisor) || matchedAdvisors.contains(advisor)) applicableAdvisors.add(advisor);
+        }
+        return new MatchTable(targetClass, List.copyOf(applicableAdvisors), Collections.unmodifiableMap(advisorsByMethod));
+    }
+
+    /**
+     * Discards all cached match results.
+     */
+    public void clear() {
+        matchers.clear();
+    }
+
+    private AdvisorMatcher getMatcher(Advisor advisor) {
+        return matchers.computeIfAbsent(advisor, a -> new AdvisorMatcher(((PointcutAdvisor) a).getPointcut()));
+    }
+
+    /**
+     * Gets the classes whose methods {@link AopUtils#canApply(Pointcut, Class, boolean)} considers.
+     */
+    private static Set<Class<?>> getIntrospectedClasses(Class<?> targetClass) {
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        if (!Proxy.isProxyClass(targetClass)) classes.add(ClassUtils.getUserClass(targetClass));
+        classes.addAll(ClassUtils.getAllInterfacesForClassAsSet(targetClass));
+        return classes;
+    }
+
+    /**
+     * The result of matching advisors against a class.
+     *
+     * @param targetClass      The matched class.
+     * @param advisors         The advisors applicable to the class, in their original order.
+     * @param advisorsByMethod The pointcut advisors matching each method of the class, in their original order.
+     */
+    public record MatchTable(Class<?> targetClass, List<Advisor> advisors, Map<Method, List<Advisor>> advisorsByMethod) {}
+
+    /**
+     * The cached match results of a single pointcut.
+     */
+    private static final class AdvisorMatcher {
+        private final ClassFilter classFilter;
+        private final MethodMatcher methodMatcher;
+        /**
+         * Whether method matches depend on the target class beyond the most specific method.
+         */
+        private final boolean targetSensitive;
+        private final Map<Class<?>, Boolean> classMatches = new ConcurrentReferenceHashMap<>();
+        private final Map<Object, Boolean> methodMatches = new ConcurrentReferenceHashMap<>();
+
+        private AdvisorMatcher(Pointcut pointcut) {
+            this.classFilter = pointcut.getClassFilter();
+            this.methodMatcher = pointcut.getMethodMatcher();
+            this.targetSensitive = methodMatcher.isRuntime();
+        }
+
+        boolean matchesClass(Class<?> targetClass) {
+            return classMatches.computeIfAbsent(targetClass, classFilter::matches);
+        }
+
+        boolean matchesMethod(Method method, Class<?> targetClass, boolean hasIntroductions) {
+            if (methodMatcher == MethodMatcher.TRUE) return true;
+            if (hasIntroductions && methodMatcher instanceof IntroductionAwareMethodMatcher introductionAwareMethodMatcher) {
+                return introductionAwareMethodMatcher.matches(method, targetClass, true);
+            }
+
+            Method specificMethod = method.getDeclaringClass() == targetClass ? method : AopUtils.getMostSpecificMethod(method, targetClass);
+            Object key = targetSensitive || specificMethod.getDeclaringClass().isInterface() ? new MethodClassKey(specificMethod, targetClass) : specificMethod;
+            return methodMatches.computeIfAbsent(key, k -> methodMatcher instanceof IntroductionAwareMethodMatcher introductionAwareMethodMatcher
+                    ? introductionAwareMethodMatcher.matches(method, targetClass, false)
+                    : methodMatcher.matches(method, targetClass));
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.sylvona.leona.proxy;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A concurrent cache of generated proxy classes keyed by {@link ProxyClassKey}, with a configurable
+ * {@link EvictionPolicy} and hit, miss, generation-time and eviction counters.
+ * <p>
+ * Entries are partitioned by source class through a {@link ClassValue}, so the cache never keeps a source class (nor
+ * its class loader) reachable by itself: once a class loader is otherwise unreachable, it is collected along with the
+ * proxy classes cached for its classes. {@link #clear()} releases every partition at once, e.g. when the owning
+ * application context is closed.
+ * <p>
+ * Note that evicting a proxy class only releases it from this cache. Whether the class itself can be unloaded depends
+ * on how it was defined, see {@link ProxyClassDefiner.Strategy}.
+ */
+public class ProxyClassCache {
+    /**
+     * The partitions of every source class which has been looked up, weakly referenced so that they are released
+     * along with their source class.
+     */
+    private final Set<Segment> liveSegments = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private final ClassValue<Segment> segments = new ClassValue<>() {
+        @Override
+        protected Segment computeValue(Class<?> sourceClass) {
+            Segment segment = new Segment(sourceClass);
+            liveSegments.add(segment);
+            return segment;
+        }
+    };
+    private final ReferenceQueue<Class<?>> referenceQueue = new ReferenceQueue<>();
+    /**
+     * Insertion-ordered keys, only maintained for {@link EvictionPolicy#BOUNDED} caches. Keys are weakly referenced,
+     * they remain reachable through their partition as long as they are cached.
+     */
+    private final Queue<WeakReference<ProxyClassKey>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final EvictionPolicy evictionPolicy;
+    private final int maximumSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder generationNanos = new LongAdder();
+
+    /**
+     * Creates an unbounded cache which strongly references its proxy classes.
+     */
+    public ProxyClassCache() {
+        this(EvictionPolicy.STRONG, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param evictionPolicy The policy determining when cached proxy classes are released.
+     * @param maximumSize    The maximum number of proxy classes retained, only used by {@link EvictionPolicy#BOUNDED}.
+     */
+    public ProxyClassCache(EvictionPolicy evictionPolicy, int maximumSize) {
+        if (maximumSize <= 0) throw new IllegalArgumentException("maximumSize must be positive");
+        this.evictionPolicy = evictionPolicy;
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Finds the proxy class cached for a key, generating and caching it if it is absent or was evicted.
+     * Concurrent lookups of the same key generate the proxy class at most once.
+     *
+     * @param key       The key of the proxy class.
+     * @param generator The generator invoked if the proxy class is not cached.
+     * @return the cached or newly generated proxy class
+     */
+    public Class<?> findOrInsert(ProxyClassKey key, Supplier<Class<?>> generator) {
+        expungeStaleEntries();
+
+        Segment segment = segments.get(key.getSourceClass());
+        Map<ProxyClassKey, Entry> entries = segment.entries;
+        Entry entry = entries.get(key);
+        Class<?> proxyClass = entry == null ? null : entry.get();
+        if (proxyClass != null) {
+            hits.increment();
+            return proxyClass;
+        }
+
+        Class<?>[] generated = new Class<?>[1];
+        entry = entries.compute(key, (k, existing) -> {
+            if (existing != null && existing.get() != null) return existing;
+            long start = System.nanoTime();
+            generated[0] = generator.get();
+            generationNanos.add(System.nanoTime() - start);
+            return createEntry(k, segment, generated[0], evictionPolicy, referenceQueue);
+        });
+
+        if (generated[0] == null) {
+            hits.increment();
+            return entry.get();
+        }
+
+        misses.increment();
+        if (evictionPolicy == EvictionPolicy.BOUNDED) {
+            insertionOrder.add(new WeakReference<>(key));
+            evictOverflow();
+        }
+        return generated[0];
+    }
+
+    /**
+     * Removes every proxy class from this cache, releasing the partitions of all source classes.
+     */
+    public void clear() {
+        for (Segment segment : snapshotSegments()) {
+            evictions.add(segment.entries.size());
+            segment.entries.clear();
+            Class<?> sourceClass = segment.sourceClass.get();
+            if (sourceClass != null) segments.remove(sourceClass);
+            liveSegments.remove(segment);
+        }
+        insertionOrder.clear();
+    }
+
+    /**
+     * Removes every proxy class whose key matches a predicate from this cache.
+     *
+     * @param predicate The predicate selecting the keys to remove.
+     * @return the number of removed proxy classes
+     */
+    public int invalidate(Predicate<ProxyClassKey> predicate) {
+        int removed = 0;
+        for (Segment segment : snapshotSegments()) {
+            for (ProxyClassKey key : segment.entries.keySet()) {
+                if (predicate.test(key) && segment.entries.remove(key) != null) removed++;
+            }
+        }
+        if (removed > 0) {
+            insertionOrder.removeIf(reference -> {
+                ProxyClassKey key = reference.get();
+                return key == null || predicate.test(key);
+            });
+            evictions.add(removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Gets the number of proxy classes currently cached.
+     *
+     * @return the cache size
+     */
+    public int size() {
+        expungeStaleEntries();
+        int size = 0;
+        for (Segment segment : snapshotSegments()) size += segment.entries.size();
+        return size;
+    }
+
+    /**
+     * Gets the eviction policy of this cache.
+     *
+     * @return the eviction policy
+     */
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    /**
+     * Takes a snapshot of this cache's counters.
+     *
+     * @return the current statistics
+     */
+    public Statistics getStatistics() {
+        return new Statistics(hits.sum(), misses.sum(), evictions.sum(), generationNanos.sum(), size());
+    }
+
+    private void evictOverflow() {
+        int size = size();
+        while (size > maximumSize) {
+            WeakReference<ProxyClassKey> eldest = insertionOrder.poll();
+            if (eldest == null) return;
+            ProxyClassKey key = eldest.get();
+            // Keys which are no longer reachable were released along with their source class
+            if (key != null && segments.get(key.getSourceClass()).entries.remove(key) != null) {
+                evictions.increment();
+                size--;
+            }
+        }
+    }
+
+    private void expungeStaleEntries() {
+        Reference<? extends Class<?>> reference;
+        while ((reference = referenceQueue.poll()) != null) {
+            ReferenceEntry entry = (ReferenceEntry) reference;
+            if (entry.segment().entries.remove(entry.key(), reference)) evictions.increment();
+        }
+    }
+
+    private List<Segment> snapshotSegments() {
+        synchronized (liveSegments) {
+            return new ArrayList<>(liveSegments);
+        }
+    }
+
+    /**
+     * Determines when cached proxy classes are released.
+     */
+    public enum EvictionPolicy {
+        /**
+         * Proxy classes are retained for the lifetime of the cache.
+         */
+        STRONG,
+        /**
+         * Proxy classes are released once they are no longer strongly reachable (i.e. no proxy instance remains).
+         */
+        WEAK,
+        /**
+         * Proxy classes are released at the discretion of the garbage collector in response to memory demand.
+         */
+        SOFT,
+        /**
+         * At most a maximum number of proxy classes are retained, releasing the oldest proxy classes first.
+         */
+        BOUNDED
+    }
+
+    /**
+     * A snapshot of a {@link ProxyClassCache}'s counters.
+     *
+     * @param hits            The number of lookups served from the cache.
+     * @param misses          The number of lookups which generated a proxy class.
+     * @param evictions       The number of proxy classes released from the cache.
+     * @param generationNanos The total time spent generating proxy classes, in nanoseconds.
+     * @param size            The number of proxy classes currently cached.
+     */
+    public record Statistics(long hits, long misses, long evictions, long generationNanos, int size) {}
+
+    private static Entry createEntry(ProxyClassKey key, Segment segment, Class<?> proxyClass, EvictionPolicy evictionPolicy, ReferenceQueue<Class<?>> queue) {
+        return switch (evictionPolicy) {
+            case WEAK -> new WeakEntry(key, segment, proxyClass, queue);
+            case SOFT -> new SoftEntry(key, segment, proxyClass, queue);
+            default -> new StrongEntry(proxyClass);
+        };
+    }
+
+    /**
+     * The cached proxy classes of a single source class. Segments are compared by identity.
+     */
+    private static final class Segment {
+        private final Map<ProxyClassKey, Entry> entries = new ConcurrentHashMap<>();
+        private final WeakReference<Class<?>> sourceClass;
+
+        private Segment(Class<?> sourceClass) {
+            this.sourceClass = new WeakReference<>(sourceClass);
+        }
+    }
+
+    /**
+     * Holds a cached proxy class, either directly or through a reference depending on the eviction policy.
+     */
+    private interface Entry {
+        Class<?> get();
+    }
+
+    /**
+     * An {@link Entry} enqueued once its proxy class is released, identifying the key to expunge.
+     */
+    private interface ReferenceEntry extends Entry {
+        ProxyClassKey key();
+
+        Segment segment();
+    }
+
+    private record StrongEntry(Class<?> proxyClass) implements Entry {
+        @Override
+        public Class<?> get() {
+            return proxyClass;
+        }
+    }
+
+    private static final class WeakEntry extends WeakReference<Class<?>> implements ReferenceEntry {
+        private final ProxyClassKey key;
+        private final Segment segment;
+
+        private WeakEntry(ProxyClassKey key, Segment segment, Class<?> proxyClass, ReferenceQueue<Class<?>> queue) {
+            super(proxyClass, queue);
+            this.key = key;
+            this.segment = segment;
+        }
+
+        @Override
+        public ProxyClassKey key() {
+            return key;
+        }
+
+        @Override
+        public Segment segment() {
+            return segment;
+        }
+    }
+
+    private static final class SoftEntry extends SoftReference<Class<?>> implements ReferenceEntry {
+        private final ProxyClassKey key;
+        private final Segment segment;
+
+        private SoftEntry(ProxyClassKey key, Segment segment, Class<?> proxyClass, ReferenceQueue<Class<?>> queue) {
+            super(proxyClass, queue);
+            this.key = key;
+            this.segment = segment;
+        }
+
+        @Override
+        public ProxyClassKey key() {
+            return key;
+        }
+
+        @Override
+        public Segment segment() {
+            return segment;
+        }
+    }
+}
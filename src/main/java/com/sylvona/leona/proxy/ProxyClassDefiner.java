@@ -0,0 +1,149 @@
+package com.sylvona.leona.proxy;
+
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Defines generated proxy classes in the class loader, and package, of the class they proxy.
+ * <p>
+ * Proxy classes are not defined in Leona's own class loader: a class loader outliving the proxied classes (e.g. the
+ * base class loader of a devtools restart, or the parent of a plugin's class loader) would otherwise reference them
+ * and prevent their class loader from being collected. Only proxy classes of classes loaded by the bootstrap class
+ * loader, which is never collected anyway, are defined in Leona's class loader.
+ * <p>
+ * With the opt-in {@link Strategy#HIDDEN} strategy, proxy classes are defined as hidden classes which are not bound to
+ * their class loader, so they are unloaded as soon as they are no longer used even if their class loader is still
+ * alive. Hidden classes cannot be referenced by name, so a proxy class which requires auxiliary types is defined as a
+ * regular class instead. As the super method calls of delegated advice are made through auxiliary types, this strategy
+ * effectively only applies to proxy classes whose advice is all inlined (see {@link ProxyClassPlan.Weaving#INLINE}).
+ * Hidden classes cannot be instantiated without invoking one of their constructors either, so a proxy class which
+ * declares none, or whose instances are allocated without invoking its constructor (see
+ * {@link ProxyClassPlan#isBypassingConstructor()}), is also defined as a regular class.
+ * <p>
+ * The number of defined classes and their total size are counted, and reported by {@link #getStatistics()}.
+ */
+@Slf4j
+public class ProxyClassDefiner {
+    private final Strategy strategy;
+
+    private final LongAdder definedClasses = new LongAdder();
+    private final LongAdder hiddenClasses = new LongAdder();
+    private final LongAdder definedBytes = new LongAdder();
+
+    /**
+     * Creates a definer defining regular classes.
+     */
+    public ProxyClassDefiner() {
+        this(Strategy.LOOKUP);
+    }
+
+    /**
+     * Creates a new definer.
+     *
+     * @param strategy How proxy classes are defined.
+     */
+    public ProxyClassDefiner(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Defines a generated proxy class, along with its auxiliary types, next to the class it proxies.
+     *
+     * @param plan        The plan the proxy class was generated from.
+     * @param dynamicType The generated proxy class.
+     * @return the loaded proxy class
+     */
+    public Class<?> define(ProxyClassPlan plan, DynamicType.Unloaded<?> dynamicType) {
+        Class<?> sourceClass = plan.getSourceClass();
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(sourceClass, MethodHandles.lookup());
+        } catch (IllegalAccessException | RuntimeException e) {
+            // The source package is not open to Leona, injection still works but is specific to the running JVM
+            log.debug("Unable to access {}, injecting its proxy class", sourceClass, e);
+            ClassLoader classLoader = sourceClass.getClassLoader() != null ? sourceClass.getClassLoader() : ProxyClassDefiner.class.getClassLoader();
+            return count(dynamicType, false, dynamicType.load(classLoader, ClassLoadingStrategy.Default.INJECTION).getLoaded());
+        }
+
+        if (strategy == Strategy.HIDDEN && dynamicType.getAuxiliaryTypes().isEmpty() && plan.getConstructorMode() != ProxyClassPlan.ConstructorMode.NONE
+                && !plan.isBypassingConstructor()) {
+            try {
+                return count(dynamicType, true, lookup.defineHiddenClass(dynamicType.getBytes(), true).lookupClass());
+            } catch (IllegalAccessException | LinkageError e) {
+                log.debug("Unable to define a hidden proxy class of {}, defining a regular class", sourceClass, e);
+            }
+        }
+        return count(dynamicType, false, dynamicType.load(sourceClass.getClassLoader(), ClassLoadingStrategy.UsingLookup.of(lookup)).getLoaded());
+    }
+
+    /**
+     * Gets how proxy classes are defined.
+     *
+     * @return the strategy
+     */
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Takes a snapshot of the number and size of the classes defined so far, and of the JVM's metaspace usage.
+     *
+     * @return the current statistics
+     */
+    public Statistics getStatistics() {
+        return new Statistics(definedClasses.sum(), hiddenClasses.sum(), definedBytes.sum(), metaspaceUsed());
+    }
+
+    private Class<?> count(DynamicType.Unloaded<?> dynamicType, boolean hidden, Class<?> proxyClass) {
+        definedClasses.add(dynamicType.getAllTypes().size());
+        if (hidden) hiddenClasses.increment();
+        for (byte[] bytes : dynamicType.getAllTypes().values()) definedBytes.add(bytes.length);
+        return proxyClass;
+    }
+
+    /**
+     * Gets the number of bytes used in the JVM's metaspace, which holds the metadata of every loaded class.
+     *
+     * @return the used metaspace, or -1 if the JVM does not report it
+     */
+    public static long metaspaceUsed() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.NON_HEAP && "Metaspace".equals(pool.getName())) return pool.getUsage().getUsed();
+        }
+        return -1;
+    }
+
+    /**
+     * How proxy classes are defined.
+     */
+    public enum Strategy {
+        /**
+         * Proxy classes are defined as hidden classes which can be unloaded independently of their class loader,
+         * falling back to {@link #LOOKUP} for proxy classes requiring auxiliary types (i.e. whose advice is not all
+         * inlined), declaring no constructor or allocated without invoking their constructor.
+         */
+        HIDDEN,
+        /**
+         * Proxy classes are defined as regular classes, which are only unloaded along with their class loader. This
+         * is the default.
+         */
+        LOOKUP
+    }
+
+    /**
+     * A snapshot of a {@link ProxyClassDefiner}'s counters.
+     *
+     * @param definedClasses The number of classes defined, including auxiliary types.
+     * @param hiddenClasses  The number of proxy classes defined as hidden classes.
+     * @param definedBytes   The total size of the defined class files, in bytes.
+     * @param metaspaceUsed  The number of bytes used in the JVM's metaspace, or -1 if unknown.
+     */
+    public record Statistics(long definedClasses, long hiddenClasses, long definedBytes, long metaspaceUsed) {}
+}
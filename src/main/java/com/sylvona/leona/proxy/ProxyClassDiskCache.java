@@ -0,0 +1,273 @@
+package com.sylvona.leona.proxy;
+
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.TypeResolutionStrategy;
+import net.bytebuddy.implementation.LoadedTypeInitializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Persists the bytes of generated proxy classes in a directory, so that they are loaded rather than generated again
+ * after a restart.
+ * <p>
+ * Each proxy class is stored in its own file, named after a digest of its {@link ProxyClassPlan} (which covers the
+ * advised methods, their advice and the construction strategy), the bytecode of every class and interface of the
+ * source class's hierarchy (and of the aspects whose advice is inlined), and the bytecode of the generator itself.
+ * Changing the proxied class, the pointcuts matching it or upgrading Leona therefore results in a different file, and
+ * stale files are simply never read again.
+ * <p>
+ * The directory can be shared by several JVMs: files are written to a temporary file first and atomically moved into
+ * place, so a file is either absent or complete. Any file which cannot be read is ignored, and the proxy class is
+ * generated instead.
+ */
+@Slf4j
+public class ProxyClassDiskCache {
+    private static final int MAGIC = 0x4C50_4343;
+    private static final int FORMAT_VERSION = 1;
+    private static final String FILE_SUFFIX = ".classes";
+    /**
+     * A digest of the classes determining the shape of generated proxy classes, resolved once.
+     */
+    private static final String GENERATOR_DIGEST = digestGenerator();
+
+    private final Path directory;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+
+    /**
+     * Creates a new disk cache. The directory is created when the first proxy class is stored.
+     *
+     * @param directory The directory the proxy classes are stored in.
+     */
+    public ProxyClassDiskCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Loads the proxy class stored for a plan.
+     *
+     * @param plan The plan of the proxy class.
+     * @return the stored proxy class, or null if none is stored or the plan's classes cannot be read
+     */
+    public DynamicType.Unloaded<?> load(ProxyClassPlan plan) {
+        String key = computeKey(plan);
+        if (key == null) return null;
+
+        Path file = directory.resolve(key + FILE_SUFFIX);
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            misses.increment();
+            return null;
+        } catch (IOException e) {
+            log.debug("Unable to read cached proxy class file {}", file, e);
+            misses.increment();
+            return null;
+        }
+
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(content))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION || !key.equals(input.readUTF())) {
+                throw new IOException("Unexpected header");
+            }
+            TypeDescription proxyType = latentType(input.readUTF(), plan);
+            byte[] proxyBytes = input.readNBytes(input.readInt());
+            List<DynamicType> auxiliaryTypes = new ArrayList<>();
+            for (int count = input.readInt(); count > 0; count--) {
+                TypeDescription auxiliaryType = latentType(input.readUTF(), null);
+                auxiliaryTypes.add(new DynamicType.Default(auxiliaryType, input.readNBytes(input.readInt()), LoadedTypeInitializer.NoOp.INSTANCE, List.of()));
+            }
+            hits.increment();
+            return new DynamicType.Default.Unloaded<>(proxyType, proxyBytes, LoadedTypeInitializer.NoOp.INSTANCE, auxiliaryTypes, TypeResolutionStrategy.Passive.INSTANCE);
+        } catch (IOException e) {
+            log.warn("Ignoring malformed cached proxy class file {}", file, e);
+            misses.increment();
+            return null;
+        }
+    }
+
+    /**
+     * Stores a generated proxy class, replacing any proxy class already stored for the same plan.
+     * Proxy classes which must be initialized once loaded (see {@link DynamicType#hasAliveLoadedTypeInitializers()})
+     * cannot be restored from their bytes alone and are not stored.
+     *
+     * @param plan        The plan the proxy class was generated from.
+     * @param dynamicType The generated proxy class.
+     */
+    public void store(ProxyClassPlan plan, DynamicType.Unloaded<?> dynamicType) {
+        if (dynamicType.hasAliveLoadedTypeInitializers()) return;
+        String key = computeKey(plan);
+        if (key == null) return;
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(content)) {
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeUTF(key);
+            writeType(output, dynamicType.getTypeDescription(), dynamicType.getBytes());
+            Map<TypeDescription, byte[]> auxiliaryTypes = dynamicType.getAuxiliaryTypes();
+            output.writeInt(auxiliaryTypes.size());
+            for (Map.Entry<TypeDescription, byte[]> auxiliaryType : auxiliaryTypes.entrySet()) {
+                writeType(output, auxiliaryType.getKey(), auxiliaryType.getValue());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        Path temporaryFile = null;
+        try {
+            Files.createDirectories(directory);
+            // Other JVMs sharing the directory only ever see complete files
+            temporaryFile = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temporaryFile, content.toByteArray());
+            Files.move(temporaryFile, directory.resolve(key + FILE_SUFFIX), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            writes.increment();
+        } catch (IOException e) {
+            log.warn("Unable to store proxy class {} in {}", dynamicType.getTypeDescription().getName(), directory, e);
+            if (temporaryFile != null) {
+                try {
+                    Files.deleteIfExists(temporaryFile);
+                } catch (IOException ignored) {}
+            }
+        }
+    }
+
+    /**
+     * Gets the directory the proxy classes are stored in.
+     *
+     * @return the directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Takes a snapshot of this cache's counters.
+     *
+     * @return the current statistics
+     */
+    public Statistics getStatistics() {
+        return new Statistics(hits.sum(), misses.sum(), writes.sum());
+    }
+
+    /**
+     * Computes the name of the file storing the proxy class of a plan.
+     *
+     * @param plan The plan of the proxy class.
+     * @return the key, or null if the bytecode of the source class's hierarchy cannot be read
+     */
+    static String computeKey(ProxyClassPlan plan) {
+        MessageDigest digest = sha256();
+        digest.update(GENERATOR_DIGEST.getBytes(StandardCharsets.UTF_8));
+        digest.update(plan.getProxyClassName().getBytes(StandardCharsets.UTF_8));
+        for (Class<?> type : collectHierarchy(plan.getSourceClass())) {
+            try {
+                digest.update(ClassFileLocator.ForClassLoader.read(type));
+            } catch (RuntimeException e) {
+                log.debug("Unable to read the bytecode of {}, its proxies are not cached on disk", type, e);
+                return null;
+            }
+        }
+        for (ProxyClassPlan.AdvisedMethod advisedMethod : plan.getAdvisedMethods()) {
+            if (!advisedMethod.inlined()) continue;
+            Class<?> aspectClass = advisedMethod.advices().get(0).getAspectJAdviceMethod().getDeclaringClass();
+            try {
+                digest.update(ClassFileLocator.ForClassLoader.read(aspectClass));
+            } catch (RuntimeException e) {
+                log.debug("Unable to read the bytecode of {}, proxies inlining its advice are not cached on disk", aspectClass, e);
+                return null;
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Collects a class, its superclasses other than {@link Object} and all the interfaces they implement, in a
+     * deterministic order. Delegating proxies implement the interfaces of their source, whose default methods they may
+     * inherit.
+     */
+    private static Set<Class<?>> collectHierarchy(Class<?> sourceClass) {
+        Set<Class<?>> hierarchy = new LinkedHashSet<>();
+        for (Class<?> type = sourceClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            hierarchy.add(type);
+        }
+        Deque<Class<?>> pending = new ArrayDeque<>(hierarchy);
+        while (!pending.isEmpty()) {
+            for (Class<?> implemented : pending.poll().getInterfaces()) {
+                if (hierarchy.add(implemented)) pending.add(implemented);
+            }
+        }
+        return hierarchy;
+    }
+
+    private static String digestGenerator() {
+        MessageDigest digest = sha256();
+        for (Class<?> type : new Class<?>[] {ProxyClassGenerator.class, ProxyClassPlan.class, AdvisedMethodInterceptor.class, AdviceInliner.class, ByteBuddy.class}) {
+            try {
+                digest.update(ClassFileLocator.ForClassLoader.read(type));
+            } catch (RuntimeException e) {
+                // Fall back to the name only, e.g. if classes are not available as resources in a native image
+                digest.update(type.getName().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeType(DataOutputStream output, TypeDescription type, byte[] bytes) throws IOException {
+        output.writeUTF(type.getName());
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Describes a stored type by its name only, which is all that is needed to define it.
+     */
+    private static TypeDescription latentType(String name, ProxyClassPlan plan) {
+        TypeDescription.Generic superClass = TypeDescription.Generic.OfNonGenericType.ForLoadedType.of(plan == null ? Object.class : plan.getSourceClass());
+        return new TypeDescription.Latent(name, Modifier.PUBLIC, superClass);
+    }
+
+    /**
+     * A snapshot of a {@link ProxyClassDiskCache}'s counters.
+     *
+     * @param hits   The number of proxy classes read from the directory.
+     * @param misses The number of proxy classes which were not stored, or could not be read.
+     * @param writes The number of proxy classes stored.
+     */
+    public record Statistics(long hits, long misses, long writes) {}
+}
@@ -0,0 +1,48 @@
+package com.sylvona.leona.proxy;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JFR event emitted by {@link CachingBeanProxyMachine} whenever a proxy class is generated or a pregenerated proxy
+ * class is loaded, whether it was generated ahead of time or persisted by a previous run. The event's duration covers
+ * planning, generating and loading the class.
+ */
+@Name("com.sylvona.leona.proxy.ProxyClassGeneration")
+@Label("Proxy Class Generation")
+@Category({"Leona", "Proxy"})
+@Description("Generation and loading of a proxy class")
+@StackTrace(false)
+final class ProxyClassGenerationEvent extends jdk.jfr.Event {
+    @Label("Source Class")
+    Class<?> sourceClass;
+
+    @Label("Proxy Class")
+    Class<?> proxyClass;
+
+    @Label("Advisor Count")
+    int advisorCount;
+
+    @Label("Advised Method Count")
+    int advisedMethodCount;
+
+    @Label("Bytes Generated")
+    @DataAmount
+    long bytesGenerated;
+
+    @Label("Pregenerated")
+    @Description("Whether the proxy class was generated ahead of time rather than at runtime")
+    boolean pregenerated;
+
+    @Label("Disk Cached")
+    @Description("Whether the proxy class was loaded from the persistent proxy class cache rather than generated")
+    boolean diskCached;
+
+    @Label("Hidden")
+    @Description("Whether the proxy class was defined as a hidden class, which can be unloaded independently of its class loader")
+    boolean hidden;
+}
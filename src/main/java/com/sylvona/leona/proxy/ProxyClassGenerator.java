@@ -0,0 +1,139 @@
+package com.sylvona.leona.proxy;
+
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.asm.AsmVisitorWrapper;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.modifier.Ownership;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.scaffold.TypeValidation;
+import net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy;
+import net.bytebuddy.implementation.MethodCall;
+import net.bytebuddy.implementation.MethodDelegation;
+import net.bytebuddy.implementation.bind.annotation.Morph;
+import net.bytebuddy.implementation.auxiliary.AuxiliaryType;
+import net.bytebuddy.jar.asm.ClassWriter;
+import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.pool.TypePool;
+
+import java.util.List;
+
+import static net.bytebuddy.matcher.ElementMatchers.hasSignature;
+import static net.bytebuddy.matcher.ElementMatchers.isDeclaredBy;
+import static net.bytebuddy.matcher.ElementMatchers.isEquals;
+import static net.bytebuddy.matcher.ElementMatchers.isFinal;
+import static net.bytebuddy.matcher.ElementMatchers.isHashCode;
+import static net.bytebuddy.matcher.ElementMatchers.isPublic;
+import static net.bytebuddy.matcher.ElementMatchers.isToString;
+import static net.bytebuddy.matcher.ElementMatchers.isVirtual;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static net.bytebuddy.matcher.ElementMatchers.not;
+
+/**
+ * Generates proxy classes from a {@link ProxyClassPlan}.
+ * <p>
+ * Every advised method of a generated class, matched by its exact signature, delegates to the
+ * {@link AdvisedMethodInterceptor} held by one of the class's public static fields (see
+ * {@link ProxyClassPlan#INTERCEPTOR_FIELD_PREFIX}). The class bytes therefore do not depend on any runtime state and
+ * can be generated ahead of time, or concurrently. Advice the plan marks as inlined is copied into the advised method
+ * instead (see {@link AdviceInliner}), the method's interceptor then only provides its signature.
+ * <p>
+ * Every generated class implements {@link LeonaProxy}.
+ */
+@Slf4j
+public class ProxyClassGenerator {
+    /**
+     * The ByteBuddy configuration shared by all generators. Generated classes are trivially valid, so type validation
+     * is skipped.
+     */
+    private static final ByteBuddy BYTE_BUDDY = new ByteBuddy().with(TypeValidation.DISABLED);
+    /**
+     * Names auxiliary types by sequence rather than randomly, so that ahead of time generation is reproducible.
+     */
+    private static final ByteBuddy DETERMINISTIC_BYTE_BUDDY = BYTE_BUDDY.with(new AuxiliaryType.NamingStrategy.Enumerating("auxiliary"));
+
+    /**
+     * Generates the proxy class described by a plan.
+     *
+     * @param plan         The plan of the proxy class.
+     * @param deterministic Whether the class should be named {@link ProxyClassPlan#getProxyClassName()}, rather than
+     *                     receiving a unique random name.
+     * @return An unloaded dynamic type representing the proxy class.
+     */
+    public DynamicType.Unloaded<?> generate(ProxyClassPlan plan, boolean deterministic) {
+        Class<?> sourceClass = plan.getSourceClass();
+        DynamicType.Builder<?> typeBuilder = deterministic
+                ? DETERMINISTIC_BYTE_BUDDY.subclass(sourceClass, ConstructorStrategy.Default.NO_CONSTRUCTORS).name(plan.getProxyClassName())
+                : BYTE_BUDDY.subclass(sourceClass, ConstructorStrategy.Default.NO_CONSTRUCTORS);
+        typeBuilder = typeBuilder.implement(LeonaProxy.class);
+
+        // Forwarding is registered first, so that the interception of advised methods takes precedence over it
+        if (plan.isDelegating()) {
+            typeBuilder = typeBuilder
+                    .defineField(ProxyClassPlan.DELEGATE_FIELD, sourceClass, Visibility.PUBLIC)
+                    .method(isForwardable(sourceClass)).intercept(MethodCall.invokeSelf().onField(ProxyClassPlan.DELEGATE_FIELD).withAllArguments());
+        }
+        List<ProxyClassPlan.AdvisedMethod> advisedMethods = plan.getAdvisedMethods();
+        boolean inlining = false;
+        for (int i = 0; i < advisedMethods.size(); i++) {
+            ProxyClassPlan.AdvisedMethod advisedMethod = advisedMethods.get(i);
+            String fieldName = ProxyClassPlan.INTERCEPTOR_FIELD_PREFIX + i;
+            // Methods whose advice never reads the arguments skip allocating (and boxing) them on every call
+            String interceptMethod = plan.isDelegating() ? "interceptDelegating" : advisedMethod.readsArguments() ? "intercept" : "interceptWithoutArguments";
+
+            typeBuilder = typeBuilder.defineField(fieldName, AdvisedMethodInterceptor.class, Visibility.PUBLIC, Ownership.STATIC);
+            ElementMatcher<MethodDescription> isAdvisedMethod = hasSignature(new MethodDescription.ForLoadedMethod(advisedMethod.method()).asSignatureToken());
+            if (advisedMethod.inlined()) {
+                log.info("Inlining the advice of method {}", advisedMethod.method());
+                typeBuilder = typeBuilder.method(isAdvisedMethod).intercept(AdviceInliner.inline(advisedMethod, fieldName));
+                inlining = true;
+                continue;
+            }
+
+            log.info("Creating interception for method {} with {} advice(s)", advisedMethod.method(), advisedMethod.advices().size());
+            MethodDelegation delegation = MethodDelegation.withDefaultConfiguration()
+                    .withBinders(Morph.Binder.install(AdvisedMethodInterceptor.SuperMethodInvoker.class))
+                    .filter(named(interceptMethod))
+                    .toField(fieldName);
+
+            typeBuilder = typeBuilder.method(isAdvisedMethod).intercept(delegation);
+        }
+
+        switch (plan.getConstructorMode()) {
+            case COPY -> typeBuilder = typeBuilder.defineConstructor(Visibility.PUBLIC)
+                    .withParameters(sourceClass)
+                    .intercept(MethodCall.invoke(plan.getSuperConstructor()).withArgument(0));
+            case AUTOWIRED -> typeBuilder = typeBuilder.defineConstructor(Visibility.PUBLIC)
+                    .withParameters(plan.getSuperConstructor().getParameterTypes())
+                    .intercept(MethodCall.invoke(plan.getSuperConstructor()).withAllArguments());
+            case DEFAULT -> typeBuilder = typeBuilder.defineConstructor(Visibility.PUBLIC)
+                    .intercept(MethodCall.invoke(plan.getSuperConstructor()));
+            case NONE -> log.info("No eligible constructor found for {}, proxies can only be created by bypassing constructors", sourceClass);
+        }
+
+        if (!inlining) return typeBuilder.make();
+        // Inlined advice is copied without its stack map frames, which are computed against the classes it references
+        ClassLoader aspectClassLoader = plan.getAdvisedMethods().stream().filter(ProxyClassPlan.AdvisedMethod::inlined).findFirst()
+                .map(advisedMethod -> advisedMethod.advices().get(0).getAspectJAdviceMethod().getDeclaringClass().getClassLoader()).orElse(null);
+        ClassFileLocator classFileLocator = new ClassFileLocator.Compound(ClassFileLocator.ForClassLoader.of(sourceClass.getClassLoader()), ClassFileLocator.ForClassLoader.of(aspectClassLoader));
+        return typeBuilder.visit(new AsmVisitorWrapper.ForDeclaredMethods().writerFlags(ClassWriter.COMPUTE_FRAMES)).make(TypePool.Default.of(classFileLocator));
+    }
+
+    /**
+     * Matches the methods a delegating proxy of a class can forward to its delegate: overridable methods other than
+     * {@link Object}'s (except {@code equals}, {@code hashCode} and {@code toString}) which are either public or
+     * declared in the class's own package, as protected members of other packages cannot be invoked on the delegate.
+     */
+    private static ElementMatcher.Junction<MethodDescription> isForwardable(Class<?> sourceClass) {
+        String packageName = sourceClass.getPackageName();
+        ElementMatcher<MethodDescription> isDeclaredInPackage = method -> {
+            var declaringPackage = method.getDeclaringType().asErasure().getPackage();
+            return declaringPackage != null && declaringPackage.getName().equals(packageName);
+        };
+        return isVirtual().and(not(isFinal()))
+                .and(not(isDeclaredBy(Object.class)).or(isEquals()).or(isHashCode()).or(isToString()))
+                .and(isPublic().or(isDeclaredInPackage));
+    }
+}
@@ -0,0 +1,172 @@
+package com.sylvona.leona.proxy;
+
+import org.springframework.aop.Advisor;
+
+import java.util.List;
+
+/**
+ * The composite key under which generated proxy classes are cached.
+ * <p>
+ * Two keys are equal if they proxy the same source class, with the same advisors (compared by identity, in order)
+ * and the same construction strategy (including whether the proxy bypasses constructors or delegates to its source).
+ * This allows a single type to be proxied under different aspect sets without reusing a stale proxy class.
+ */
+public final class ProxyClassKey {
+    private final Class<?> sourceClass;
+    private final Advisor[] advisors;
+    private final boolean useCopyConstructor;
+    private final boolean useSpringAutowiring;
+    private final boolean bypassConstructor;
+    private final boolean delegating;
+    private final int hashCode;
+
+    /**
+     * Creates a new key.
+     *
+     * @param sourceClass         The class being proxied.
+     * @param advisors            The advisors applied to the proxy.
+     * @param useCopyConstructor  Whether the proxy is created with a copy constructor.
+     * @param useSpringAutowiring Whether the proxy is created with Spring's autowiring.
+     */
+    public ProxyClassKey(Class<?> sourceClass, List<Advisor> advisors, boolean useCopyConstructor, boolean useSpringAutowiring) {
+        this(sourceClass, advisors, useCopyConstructor, useSpringAutowiring, false, false);
+    }
+
+    private ProxyClassKey(Class<?> sourceClass, List<Advisor> advisors, boolean useCopyConstructor, boolean useSpringAutowiring, boolean bypassConstructor, boolean delegating) {
+        this.sourceClass = sourceClass;
+        this.advisors = advisors.toArray(Advisor[]::new);
+        this.useCopyConstructor = useCopyConstructor;
+        this.useSpringAutowiring = useSpringAutowiring;
+        this.bypassConstructor = bypassConstructor;
+        this.delegating = delegating;
+
+        int hash = sourceClass.hashCode();
+        for (Advisor advisor : this.advisors) {
+            hash = 31 * hash + System.identityHashCode(advisor);
+        }
+        hash = 31 * hash + Boolean.hashCode(useCopyConstructor);
+        hash = 31 * hash + Boolean.hashCode(useSpringAutowiring);
+        hash = 31 * hash + Boolean.hashCode(bypassConstructor);
+        this.hashCode = 31 * hash + Boolean.hashCode(delegating);
+    }
+
+    /**
+     * Creates the key of a proxy class extending its source, whose arguments match those of
+     * {@link ProxyMachine#create(Object, List, boolean, boolean, boolean)}.
+     *
+     * @param sourceClass         The class being proxied.
+     * @param advisors            The advisors applied to the proxy.
+     * @param useCopyConstructor  Whether the proxy is created with a copy constructor.
+     * @param useSpringAutowiring Whether the proxy is created with Spring's autowiring.
+     * @param bypassConstructor   Whether the proxy is allocated without invoking a constructor.
+     * @return the key
+     */
+    public static ProxyClassKey of(Class<?> sourceClass, List<Advisor> advisors, boolean useCopyConstructor, boolean useSpringAutowiring, boolean bypassConstructor) {
+        return new ProxyClassKey(sourceClass, advisors, useCopyConstructor, useSpringAutowiring, bypassConstructor, false);
+    }
+
+    /**
+     * Creates the key of a proxy class forwarding its methods to its source, as created by
+     * {@link ProxyMachine#createDelegating(Object, List)}.
+     *
+     * @param sourceClass The class being proxied.
+     * @param advisors    The advisors applied to the proxy.
+     * @return the key
+     */
+    public static ProxyClassKey delegating(Class<?> sourceClass, List<Advisor> advisors) {
+        return new ProxyClassKey(sourceClass, advisors, false, false, false, true);
+    }
+
+    /**
+     * Gets the class being proxied.
+     *
+     * @return the source class
+     */
+    public Class<?> getSourceClass() {
+        return sourceClass;
+    }
+
+    /**
+     * Gets the advisors applied to the proxy.
+     *
+     * @return an unmodifiable list of the advisors
+     */
+    public List<Advisor> getAdvisors() {
+        return List.of(advisors);
+    }
+
+    /**
+     * Determines if the proxy applies exactly the given advisors, compared by identity and in order.
+     *
+     * @param advisors The advisors to compare.
+     * @return true if the proxy applies the same advisors, false otherwise
+     */
+    public boolean hasAdvisors(List<Advisor> advisors) {
+        if (this.advisors.length != advisors.size()) return false;
+        for (int i = 0; i < this.advisors.length; i++) {
+            if (this.advisors[i] != advisors.get(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Determines if the proxy is created with a copy constructor.
+     *
+     * @return true if a copy constructor is used, false otherwise
+     */
+    public boolean isUseCopyConstructor() {
+        return useCopyConstructor;
+    }
+
+    /**
+     * Determines if the proxy is created with Spring's autowiring.
+     *
+     * @return true if Spring's autowiring is used, false otherwise
+     */
+    public boolean isUseSpringAutowiring() {
+        return useSpringAutowiring;
+    }
+
+    /**
+     * Determines if the proxy is allocated without invoking a constructor.
+     *
+     * @return true if constructors are bypassed, false otherwise
+     */
+    public boolean isBypassConstructor() {
+        return bypassConstructor;
+    }
+
+    /**
+     * Determines if the proxy forwards its methods to its source.
+     *
+     * @return true if the proxy is delegating, false otherwise
+     */
+    public boolean isDelegating() {
+        return delegating;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ProxyClassKey other)) return false;
+        if (hashCode != other.hashCode || sourceClass != other.sourceClass) return false;
+        if (useCopyConstructor != other.useCopyConstructor || useSpringAutowiring != other.useSpringAutowiring
+                || bypassConstructor != other.bypassConstructor || delegating != other.delegating) return false;
+        if (advisors.length != other.advisors.length) return false;
+        for (int i = 0; i < advisors.length; i++) {
+            if (advisors[i] != other.advisors[i]) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "ProxyClassKey(sourceClass=%s, advisors=%d, useCopyConstructor=%s, useSpringAutowiring=%s, bypassConstructor=%s, delegating=%s)"
+                .formatted(sourceClass.getName(), advisors.length, useCopyConstructor, useSpringAutowiring, bypassConstructor, delegating);
+    }
+}
@@ -0,0 +1,25 @@
+package com.sylvona.leona.proxy;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JFR event emitted by {@link CachingBeanProxyMachine} for every proxy class cache lookup. A miss's duration
+ * includes generating the proxy class, see {@link ProxyClassGenerationEvent}.
+ */
+@Name("com.sylvona.leona.proxy.ProxyClassLookup")
+@Label("Proxy Class Lookup")
+@Category({"Leona", "Proxy"})
+@Description("Lookup of a proxy class in the proxy class cache")
+@StackTrace(false)
+final class ProxyClassLookupEvent extends jdk.jfr.Event {
+    @Label("Source Class")
+    Class<?> sourceClass;
+
+    @Label("Hit")
+    @Description("Whether the proxy class was already cached")
+    boolean hit;
+}
@@ -0,0 +1,354 @@
+package com.sylvona.leona.proxy;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+import org.springframework.aop.aspectj.AspectJAfterAdvice;
+import org.springframework.aop.aspectj.AspectJAfterReturningAdvice;
+import org.springframework.aop.aspectj.AspectJAfterThrowingAdvice;
+import org.springframework.aop.aspectj.AspectJAroundAdvice;
+import org.springframework.aop.aspectj.AspectJMethodBeforeAdvice;
+import org.springframework.aop.aspectj.AspectJPrecedenceInformation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.util.DigestUtils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * The shape of a proxy class: the source class, the methods it intercepts (with the advice applying to each) and the
+ * constructor it declares.
+ * <p>
+ * Advised methods are resolved across the source class's whole hierarchy, including inherited and interface default
+ * methods, to the implementation the proxy class overrides. Each of them is intercepted by its exact signature, so
+ * overloads which were not matched by any pointcut remain plain virtual calls.
+ * <p>
+ * A delegating proxy class additionally holds a reference to the object it proxies in its
+ * {@link #DELEGATE_FIELD}, forwarding every method it can override to that object.
+ * <p>
+ * A plan is computed without touching any aspect instance, so it can be created ahead of time (e.g. during Spring AOT
+ * processing). Generated proxy classes only depend on their plan; the interceptors bound to aspect instances are
+ * installed into the proxy class's static fields once it has been loaded.
+ */
+public final class ProxyClassPlan {
+    /**
+     * The name prefix of the static fields holding each advised method's {@link AdvisedMethodInterceptor}, suffixed by
+     * the method's index in {@link #getAdvisedMethods()}.
+     */
+    public static final String INTERCEPTOR_FIELD_PREFIX = "leona$interceptor$";
+    /**
+     * The name of the instance field holding the proxied object of a delegating proxy.
+     */
+    public static final String DELEGATE_FIELD = "leona$delegate";
+    private static final String PROXY_CLASS_INFIX = "$LeonaProxy$";
+    private static final Comparator<Advisor> ADVISOR_ORDER = ((Comparator<Advisor>) AnnotationAwareOrderComparator.INSTANCE::compare)
+            .thenComparing(ProxyClassPlan::getAspectName);
+
+    private final Class<?> sourceClass;
+    private final List<AdvisedMethod> advisedMethods;
+    private final ConstructorMode constructorMode;
+    private final Constructor<?> superConstructor;
+    private final boolean bypassConstructor;
+    private final boolean delegating;
+    private final String proxyClassName;
+
+    private ProxyClassPlan(Class<?> sourceClass, List<AdvisedMethod> advisedMethods, ConstructorMode constructorMode, Constructor<?> superConstructor, boolean bypassConstructor, boolean delegating) {
+        this.sourceClass = sourceClass;
+        this.advisedMethods = advisedMethods;
+        this.constructorMode = constructorMode;
+        this.superConstructor = superConstructor;
+        this.bypassConstructor = bypassConstructor;
+        this.delegating = delegating;
+        this.proxyClassName = sourceClass.getName() + PROXY_CLASS_INFIX + fingerprint();
+    }
+
+    /**
+     * Creates the plan of a proxy class from the advisors matching its source class.
+     *
+     * @param matchTable           The advisors matching the class to be proxied, see {@link PointcutMatchIndex#match(List, Class)}.
+     * @param useCopyConstructor   Whether the proxy should declare a copy constructor (if the source class has one).
+     * @param autowiredConstructor The source constructor the proxy should mirror and invoke with autowired arguments, or null.
+     * @return the plan
+     */
+    public static ProxyClassPlan create(PointcutMatchIndex.MatchTable matchTable, boolean useCopyConstructor, Constructor<?> autowiredConstructor) {
+        return create(matchTable, useCopyConstructor, autowiredConstructor, false);
+    }
+
+    /**
+     * Creates the plan of a proxy class from the advisors matching its source class.
+     *
+     * @param matchTable           The advisors matching the class to be proxied, see {@link PointcutMatchIndex#match(List, Class)}.
+     * @param useCopyConstructor   Whether the proxy should declare a copy constructor (if the source class has one).
+     * @param autowiredConstructor The source constructor the proxy should mirror and invoke with autowired arguments, or null.
+     * @param bypassConstructor    Whether proxies are allocated without invoking their constructor, see {@link #isBypassingConstructor()}.
+     * @return the plan
+     */
+    public static ProxyClassPlan create(PointcutMatchIndex.MatchTable matchTable, boolean useCopyConstructor, Constructor<?> autowiredConstructor, boolean bypassConstructor) {
+        Class<?> sourceClass = matchTable.targetClass();
+        List<AdvisedMethod> advisedMethods = createAdvisedMethods(matchTable);
+
+        if (useCopyConstructor) {
+            try {
+                return new ProxyClassPlan(sourceClass, advisedMethods, ConstructorMode.COPY, sourceClass.getDeclaredConstructor(sourceClass), bypassConstructor, false);
+            } catch (NoSuchMethodException ignored) {}
+        }
+        if (autowiredConstructor != null && autowiredConstructor.getParameterCount() > 0) {
+            return new ProxyClassPlan(sourceClass, advisedMethods, ConstructorMode.AUTOWIRED, autowiredConstructor, bypassConstructor, false);
+        }
+        return createWithDefaultConstructor(sourceClass, advisedMethods, bypassConstructor, false);
+    }
+
+    /**
+     * Creates the plan of a delegating proxy class from the advisors matching its source class. Delegating proxies are
+     * meant to be allocated without invoking a constructor, the no-argument constructor (if any) is only declared as a
+     * fallback.
+     *
+     * @param matchTable The advisors matching the class to be proxied, see {@link PointcutMatchIndex#match(List, Class)}.
+     * @return the plan
+     */
+    public static ProxyClassPlan createDelegating(PointcutMatchIndex.MatchTable matchTable) {
+        return createWithDefaultConstructor(matchTable.targetClass(), createAdvisedMethods(matchTable), false, true);
+    }
+
+    private static ProxyClassPlan createWithDefaultConstructor(Class<?> sourceClass, List<AdvisedMethod> advisedMethods, boolean bypassConstructor, boolean delegating) {
+        try {
+            return new ProxyClassPlan(sourceClass, advisedMethods, ConstructorMode.DEFAULT, sourceClass.getDeclaredConstructor(), bypassConstructor, delegating);
+        } catch (NoSuchMethodException e) {
+            return new ProxyClassPlan(sourceClass, advisedMethods, ConstructorMode.NONE, null, bypassConstructor, delegating);
+        }
+    }
+
+    private static List<AdvisedMethod> createAdvisedMethods(PointcutMatchIndex.MatchTable matchTable) {
+        Class<?> sourceClass = matchTable.targetClass();
+        List<Advisor> sortedAdvisors = sortAdvisors(matchTable.advisors());
+
+        // Methods matched through several declarations (e.g. an interface method and its implementation) are merged
+        Map<Method, Set<Advisor>> advisorsByImplementation = new LinkedHashMap<>();
+        for (Map.Entry<Method, List<Advisor>> entry : matchTable.advisorsByMethod().entrySet()) {
+            Method method = AopUtils.getMostSpecificMethod(entry.getKey(), sourceClass);
+            if (!isOverridable(method, sourceClass)) continue;
+            advisorsByImplementation.computeIfAbsent(method, m -> Collections.newSetFromMap(new IdentityHashMap<>())).addAll(entry.getValue());
+        }
+
+        List<AdvisedMethod> advisedMethods = new ArrayList<>();
+        for (Map.Entry<Method, Set<Advisor>> entry : advisorsByImplementation.entrySet()) {
+            Method method = entry.getKey();
+            List<AbstractAspectJAdvice> methodAdvices = new ArrayList<>();
+            for (Advisor advisor : sortedAdvisors) {
+                if (!entry.getValue().contains(advisor)) continue;
+                if (advisor.getAdvice() instanceof AbstractAspectJAdvice advice && isSupported(advice)) methodAdvices.add(advice);
+            }
+            if (methodAdvices.isEmpty()) continue;
+            // Advice run through Spring matches its pointcut against, and binds its parameters from, the arguments
+            boolean readsArguments = methodAdvices.stream().anyMatch(advice -> !AdviceInvokers.canBind(advice) || JoinPointUsage.readsArguments(advice.getAspectJAdviceMethod()));
+            advisedMethods.add(new AdvisedMethod(method, List.copyOf(methodAdvices), readsArguments, false));
+        }
+        // Declared methods are returned in no particular order, sort them to keep generated classes reproducible
+        advisedMethods.sort(Comparator.comparing(advisedMethod -> advisedMethod.method().toString()));
+        return advisedMethods;
+    }
+
+    /**
+     * Checks if a proxy class of the source class can override a method. {@link Object}'s methods are only advised if
+     * the source class's hierarchy overrides them.
+     */
+    private static boolean isOverridable(Method method, Class<?> sourceClass) {
+        int modifiers = method.getModifiers();
+        if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || Modifier.isPrivate(modifiers) || Modifier.isAbstract(modifiers)) return false;
+        Class<?> declaringClass = method.getDeclaringClass();
+        if (method.isSynthetic() || declaringClass == Object.class) return false;
+        if (Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers)) return true;
+        // Package-private methods can only be overridden from the same runtime package
+        return declaringClass.getPackageName().equals(sourceClass.getPackageName()) && declaringClass.getClassLoader() == sourceClass.getClassLoader();
+    }
+
+    /**
+     * Creates a copy of this plan whose proxy class inlines the advice of every eligible method (see
+     * {@link AdviceInliner}), rather than delegating the method to its interceptor. Methods whose advice cannot be
+     * inlined keep being delegated. The advice of delegating proxy classes is never inlined.
+     *
+     * @param eligible Determines which advised methods may be inlined.
+     * @return the new plan, or this plan if no method can be inlined
+     */
+    public ProxyClassPlan inlineAdvice(Predicate<AdvisedMethod> eligible) {
+        if (delegating) return this;
+        List<AdvisedMethod> inliningMethods = new ArrayList<>(advisedMethods.size());
+        boolean inlined = false;
+        for (AdvisedMethod advisedMethod : advisedMethods) {
+            if (!advisedMethod.inlined() && eligible.test(advisedMethod) && AdviceInliner.canInline(advisedMethod, sourceClass)) {
+                advisedMethod = new AdvisedMethod(advisedMethod.method(), advisedMethod.advices(), advisedMethod.readsArguments(), true);
+                inlined = true;
+            }
+            inliningMethods.add(advisedMethod);
+        }
+        return inlined ? new ProxyClassPlan(sourceClass, inliningMethods, constructorMode, superConstructor, bypassConstructor, false) : this;
+    }
+
+    /**
+     * Orders advisors by Spring's {@link org.springframework.core.Ordered} / {@link org.springframework.core.annotation.Order}
+     * semantics, then by the name of their aspect. Spring leaves the order of equally ordered aspects undefined, ordering
+     * them by name rather than by registration keeps the plan (and the name of its proxy class) identical whether it
+     * is created at runtime or ahead of time. The sort is stable, so advice declared by the same aspect keeps its
+     * declaration order.
+     *
+     * @param advisors The advisors to order.
+     * @return a sorted copy of the advisors
+     */
+    public static List<Advisor> sortAdvisors(List<Advisor> advisors) {
+        List<Advisor> sortedAdvisors = new ArrayList<>(advisors);
+        sortedAdvisors.sort(ADVISOR_ORDER);
+        return sortedAdvisors;
+    }
+
+    private static String getAspectName(Advisor advisor) {
+        return advisor instanceof AspectJPrecedenceInformation precedenceInformation ? precedenceInformation.getAspectName() : "";
+    }
+
+    private static boolean isSupported(AbstractAspectJAdvice advice) {
+        return advice instanceof AspectJAroundAdvice || advice instanceof AspectJMethodBeforeAdvice || advice instanceof AspectJAfterAdvice
+                || advice instanceof AspectJAfterReturningAdvice || advice instanceof AspectJAfterThrowingAdvice;
+    }
+
+    /**
+     * Computes a digest identifying this plan across JVMs, so the same plan always maps to the same class name.
+     */
+    private String fingerprint() {
+        StringBuilder descriptor = new StringBuilder(sourceClass.getName()).append('|').append(constructorMode);
+        if (bypassConstructor) descriptor.append("|bypass");
+        if (delegating) descriptor.append("|delegating");
+        if (superConstructor != null) descriptor.append(superConstructor);
+        for (AdvisedMethod advisedMethod : advisedMethods) {
+            descriptor.append('|').append(advisedMethod.method());
+            if (advisedMethod.readsArguments()) descriptor.append("|arguments");
+            if (advisedMethod.inlined()) descriptor.append("|inlined");
+            for (AbstractAspectJAdvice advice : advisedMethod.advices()) {
+                descriptor.append(';').append(advice.getClass().getSimpleName()).append(':').append(advice.getAspectJAdviceMethod());
+            }
+        }
+        return DigestUtils.md5DigestAsHex(descriptor.toString().getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+    }
+
+    /**
+     * Gets the class to be proxied.
+     *
+     * @return the source class
+     */
+    public Class<?> getSourceClass() {
+        return sourceClass;
+    }
+
+    /**
+     * Gets the methods intercepted by the proxy class, in a stable order.
+     *
+     * @return an unmodifiable list of the advised methods
+     */
+    public List<AdvisedMethod> getAdvisedMethods() {
+        return Collections.unmodifiableList(advisedMethods);
+    }
+
+    /**
+     * Gets the kind of constructor declared by the proxy class.
+     *
+     * @return the constructor mode
+     */
+    public ConstructorMode getConstructorMode() {
+        return constructorMode;
+    }
+
+    /**
+     * Gets the source constructor invoked by the proxy class's constructor.
+     *
+     * @return the super constructor, or null if the mode is {@link ConstructorMode#NONE}
+     */
+    public Constructor<?> getSuperConstructor() {
+        return superConstructor;
+    }
+
+    /**
+     * Checks if instances of the proxy class are allocated without invoking any of its constructors, which is the case
+     * of delegating proxies and of proxies whose state is copied into them instead.
+     *
+     * @return true if constructors are bypassed
+     */
+    public boolean isBypassingConstructor() {
+        return bypassConstructor || delegating;
+    }
+
+    /**
+     * Checks if the proxy class forwards its methods to a delegate, see {@link #DELEGATE_FIELD}.
+     *
+     * @return true if the proxy class is delegating
+     */
+    public boolean isDelegating() {
+        return delegating;
+    }
+
+    /**
+     * Gets the deterministic name of a proxy class generated from this plan ahead of time.
+     *
+     * @return the fully qualified proxy class name
+     */
+    public String getProxyClassName() {
+        return proxyClassName;
+    }
+
+    /**
+     * A method intercepted by the proxy class.
+     *
+     * @param method         The advised method, i.e. the most specific implementation of the method in the source
+     *                       class's hierarchy.
+     * @param advices        The advice applying to the method, outermost advice first.
+     * @param readsArguments Whether any of the advice may read the method's arguments (see {@link JoinPointUsage}). If
+     *                       none does, a subclass proxy intercepts the method without capturing its arguments.
+     * @param inlined        Whether the advice is inlined into the proxy method (see {@link #inlineAdvice}).
+     */
+    public record AdvisedMethod(Method method, List<AbstractAspectJAdvice> advices, boolean readsArguments, boolean inlined) {}
+
+    /**
+     * The kind of constructor declared by a proxy class.
+     */
+    public enum ConstructorMode {
+        /**
+         * A constructor accepting the source object and passing it to the source's copy constructor.
+         */
+        COPY,
+        /**
+         * A constructor mirroring the source's autowired constructor, invoked with autowired arguments.
+         */
+        AUTOWIRED,
+        /**
+         * A no-argument constructor invoking the source's no-argument constructor.
+         */
+        DEFAULT,
+        /**
+         * No constructor, the proxy class can only be instantiated by bypassing constructors.
+         */
+        NONE
+    }
+
+    /**
+     * How the advice of proxy classes is applied to the methods it advises.
+     */
+    public enum Weaving {
+        /**
+         * Advised methods delegate to an {@link AdvisedMethodInterceptor}, which runs the method's advice.
+         */
+        DELEGATION,
+        /**
+         * The advice of methods qualifying for it is copied into their proxy method (see {@link AdviceInliner}),
+         * other advised methods are delegated.
+         */
+        INLINE
+    }
+}
@@ -0,0 +1,143 @@
+package com.sylvona.leona.proxy;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.objenesis.SpringObjenesis;
+import org.springframework.objenesis.instantiator.ObjectInstantiator;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Creates {@link ProxyFactory} instances for generated proxy classes.
+ * <p>
+ * Constructing factories are backed by a {@link LambdaMetafactory}-generated class performing a direct {@code new}
+ * of the proxy class whenever possible, and by a {@link MethodHandle} otherwise (e.g. for hidden proxy classes).
+ * Instantiating factories bypass constructors entirely through {@link SpringObjenesis}, for proxies whose state is
+ * copied from their source anyway.
+ * Delegating factories additionally store the source into the proxy's delegate field.
+ */
+@Slf4j
+final class ProxyFactories {
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private ProxyFactories() {}
+
+    /**
+     * Creates a factory which invokes the single constructor of a generated proxy class. A copy constructor is passed
+     * the source object, any other constructor parameters are resolved once through the argument resolver.
+     *
+     * @param proxyClass       The generated proxy class.
+     * @param argumentResolver Resolves the arguments of a constructor which is not a copy constructor.
+     * @return the factory
+     */
+    static ProxyFactory constructing(Class<?> proxyClass, Function<Constructor<?>, Object[]> argumentResolver) {
+        Constructor<?>[] constructors = proxyClass.getDeclaredConstructors();
+        if (constructors.length != 1) {
+            return source -> {
+                throw new InstantiationException("Proxy class %s does not declare a single constructor".formatted(proxyClass.getName()));
+            };
+        }
+
+        Constructor<?> constructor = constructors[0];
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        boolean copying = parameterTypes.length == 1 && parameterTypes[0] == proxyClass.getSuperclass();
+        Object[] arguments = copying || parameterTypes.length == 0 ? new Object[0] : argumentResolver.apply(constructor);
+
+        MethodHandles.Lookup lookup;
+        MethodHandle handle;
+        try {
+            lookup = MethodHandles.privateLookupIn(proxyClass, MethodHandles.lookup());
+            handle = lookup.unreflectConstructor(constructor);
+        } catch (IllegalAccessException e) {
+            log.debug("Falling back to reflective instantiation of {}", proxyClass, e);
+            return source -> copying ? constructor.newInstance(source) : constructor.newInstance(arguments);
+        }
+
+        // Generated factory classes instantiate the proxy class by name, which hidden classes do not have
+        if (!proxyClass.isHidden()) {
+            try {
+                if (copying) {
+                    return (ProxyFactory) LambdaMetafactory.metafactory(lookup, "newInstance",
+                            MethodType.methodType(ProxyFactory.class), FACTORY_TYPE, handle, handle.type()).getTarget().invoke();
+                }
+                // Resolved constructor arguments are captured by the generated supplier
+                Supplier<?> supplier = (Supplier<?>) LambdaMetafactory.metafactory(lookup, "get",
+                        MethodType.methodType(Supplier.class, parameterTypes), MethodType.methodType(Object.class), handle,
+                        MethodType.methodType(proxyClass)).getTarget().invokeWithArguments(arguments);
+                return source -> supplier.get();
+            } catch (Throwable e) {
+                log.debug("Falling back to a method handle factory for {}", proxyClass, e);
+            }
+        }
+
+        MethodHandle factoryHandle = copying
+                ? handle.asType(FACTORY_TYPE)
+                : MethodHandles.dropArguments(MethodHandles.insertArguments(handle, 0, arguments).asType(MethodType.methodType(Object.class)), 0, Object.class);
+        return source -> {
+            try {
+                return (Object) factoryHandle.invokeExact(source);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        };
+    }
+
+    /**
+     * Creates a factory which allocates an instance of a delegating proxy class and sets its delegate to the source
+     * object, see {@link ProxyClassPlan#DELEGATE_FIELD}.
+     *
+     * @param proxyClass The generated delegating proxy class.
+     * @param allocator  The factory allocating instances of the proxy class, preferably without invoking constructors.
+     * @return the factory
+     */
+    static ProxyFactory delegating(Class<?> proxyClass, ProxyFactory allocator) {
+        MethodHandle setter;
+        try {
+            setter = MethodHandles.privateLookupIn(proxyClass, MethodHandles.lookup())
+                    .findSetter(proxyClass, ProxyClassPlan.DELEGATE_FIELD, proxyClass.getSuperclass())
+                    .asType(SETTER_TYPE);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalStateException("Proxy class %s is not a delegating proxy class".formatted(proxyClass.getName()), e);
+        }
+
+        return source -> {
+            Object proxy = allocator.newInstance(source);
+            try {
+                setter.invokeExact(proxy, source);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+            return proxy;
+        };
+    }
+
+    /**
+     * Creates a factory which allocates instances of a generated proxy class without invoking any constructor.
+     *
+     * @param proxyClass The generated proxy class.
+     * @param objenesis  The objenesis instance used to create instantiators.
+     * @return the factory, or null if constructors cannot be bypassed on this JVM, or for this (hidden) class
+     */
+    static ProxyFactory instantiating(Class<?> proxyClass, SpringObjenesis objenesis) {
+        // Instantiators are generated classes referencing the instantiated class by name, which hidden classes do not have
+        if (!objenesis.isWorthTrying() || proxyClass.isHidden()) return null;
+        try {
+            ObjectInstantiator<?> instantiator = objenesis.getInstantiatorOf(proxyClass);
+            return source -> instantiator.newInstance();
+        } catch (RuntimeException e) {
+            log.debug("Unable to bypass constructors of {}", proxyClass, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.sylvona.leona.proxy;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Creates instances of a single generated proxy class through a direct call site, resolved once per proxy class.
+ *
+ * @see ProxyFactories
+ */
+@FunctionalInterface
+public interface ProxyFactory {
+    /**
+     * Creates a new proxy instance.
+     *
+     * @param source The object being proxied, passed to the proxy's copy constructor if it declares one.
+     * @return the new proxy instance
+     * @throws InstantiationException    If the proxy class cannot be instantiated.
+     * @throws IllegalAccessException    If the proxy's constructor is not accessible.
+     * @throws InvocationTargetException If the proxy's constructor throws an exception.
+     */
+    Object newInstance(Object source) throws InstantiationException, IllegalAccessException, InvocationTargetException;
+}
@@ -0,0 +1,109 @@
+package com.sylvona.leona.proxy;
+
+import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+
+import java.lang.reflect.Method;
+
+/**
+ * Observes proxies as they are created and invoked, e.g. to publish metrics.
+ * <p>
+ * Recorders are requested once per advised method when the interceptors of a proxy class are installed. Returning
+ * null leaves the interceptor chain untouched, so instrumentation which is disabled costs nothing per invocation.
+ */
+public interface ProxyInstrumentation {
+    /**
+     * Instrumentation which records nothing.
+     */
+    ProxyInstrumentation NONE = new ProxyInstrumentation() {};
+
+    /**
+     * Gets the recorder of every invocation of an advised method, including all of its advice.
+     * <p>
+     * The default implementation returns null.
+     *
+     * @param method The advised method.
+     * @return the recorder, or null if the method's invocations should not be recorded
+     */
+    default InvocationRecorder methodRecorder(Method method) {
+        return null;
+    }
+
+    /**
+     * Gets the recorder of every invocation of a single advice of an advised method. The recorded duration includes
+     * the advice nested within it and, if the advice proceeds, the advised method.
+     * <p>
+     * The default implementation returns null.
+     *
+     * @param method The advised method.
+     * @param advice The advice applied to the method.
+     * @return the recorder, or null if the advice's invocations should not be recorded
+     */
+    default InvocationRecorder adviceRecorder(Method method, AbstractAspectJAdvice advice) {
+        return null;
+    }
+
+    /**
+     * Called every time a {@link com.sylvona.leona.proxy.aspects.ProxyProducer} method returns a non-null value.
+     * <p>
+     * The default implementation does nothing.
+     *
+     * @param producerMethod The producer method.
+     * @param outcome        Whether the returned value was proxied, or why it was not.
+     */
+    default void producerOutcome(Method producerMethod, ProducerOutcome outcome) {
+    }
+
+    /**
+     * Called once by a proxy machine when it is created, with the cache and definer of its proxy classes, e.g. to
+     * publish the number of generated classes.
+     * <p>
+     * The default implementation does nothing.
+     *
+     * @param proxyClassCache   The cache of the machine's proxy classes.
+     * @param proxyClassDefiner The definer of the machine's proxy classes.
+     */
+    default void bindProxyClasses(ProxyClassCache proxyClassCache, ProxyClassDefiner proxyClassDefiner) {
+    }
+
+    /**
+     * Records sampled invocations of an advised method or advice.
+     */
+    interface InvocationRecorder {
+        /**
+         * Decides whether the invocation about to start should be recorded.
+         *
+         * @return true if the invocation should be timed and passed to {@link #record(long, Throwable)}
+         */
+        boolean sample();
+
+        /**
+         * Records a sampled invocation.
+         *
+         * @param durationNanos The duration of the invocation, in nanoseconds.
+         * @param failure       The exception thrown by the invocation, or null if it completed normally.
+         */
+        void record(long durationNanos, Throwable failure);
+    }
+
+    /**
+     * The outcome of a {@link com.sylvona.leona.proxy.aspects.ProxyProducer} method returning a value.
+     */
+    enum ProducerOutcome {
+        /**
+         * The value was proxied, or its elements are if the producer proxies elements.
+         */
+        PROXIED,
+        /**
+         * The value is not one of the producer's target types.
+         */
+        UNTARGETED_TYPE,
+        /**
+         * The method is excluded from proxying, always or by its exclusion filter.
+         */
+        EXCLUDED,
+        /**
+         * No advisor applies to the value's class.
+         */
+        UNADVISED
+    }
+}
@@ -23,4 +23,157 @@ public interface ProxyMachine {
      * @throws InvocationTargetException    If an exception occurs during method invocation.
      */
     Object create(Object source, List<Advisor> advisors, boolean useCopyConstructor, boolean useSpringAutowiring) throws InstantiationException, IllegalAccessException, NoSuchMethodException, InvocationTargetException;
+
+    /**
+     * Creates a proxy object for the given source object with the provided advisors and configuration, optionally
+     * allocating the proxy without invoking any constructor. Bypassing constructors is only sensible if the proxy's
+     * state is copied from its source afterwards.
+     * <p>
+     * The default implementation ignores {@code bypassConstructor}.
+     *
+     * @param source              The source object to be proxied.
+     * @param advisors            The list of advisors to be applied to the proxy.
+     * @param useCopyConstructor  Whether to use a copy constructor for proxy creation.
+     * @param useSpringAutowiring Whether to use Spring's autowiring for proxy creation.
+     * @param bypassConstructor   Whether to allocate the proxy without invoking a constructor.
+     * @return The created proxy object.
+     * @throws InstantiationException        If an error occurs during instantiation.
+     * @throws IllegalAccessException      If access to a class, field, method is denied.
+     * @throws NoSuchMethodException         If a required method cannot be found.
+     * @throws InvocationTargetException    If an exception occurs during method invocation.
+     */
+    default Object create(Object source, List<Advisor> advisors, boolean useCopyConstructor, boolean useSpringAutowiring, boolean bypassConstructor) throws InstantiationException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
+        return create(source, advisors, useCopyConstructor, useSpringAutowiring);
+    }
+
+    /**
+     * Creates a delegating proxy for the given source object: a proxy which holds a reference to the source and
+     * forwards every method it can override to it, running the advice of advised methods first. Unlike other proxies,
+     * creating a delegating proxy does not copy or duplicate any of the source's state.
+     * <p>
+     * The default implementation creates a subclass proxy through the source's copy constructor instead.
+     *
+     * @param source   The source object to be proxied.
+     * @param advisors The list of advisors to be applied to the proxy.
+     * @return The created proxy object.
+     * @throws InstantiationException        If an error occurs during instantiation.
+     * @throws IllegalAccessException      If access to a class, field, method is denied.
+     * @throws NoSuchMethodException         If a required method cannot be found.
+     * @throws InvocationTargetException    If an exception occurs during method invocation.
+     */
+    default Object createDelegating(Object source, List<Advisor> advisors) throws InstantiationException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
+        return create(source, advisors, true, false);
+    }
+
+    /**
+     * Resolves a factory creating proxies of instances of exactly the given class, so that creating many proxies of the
+     * same class looks up their proxy class only once. The factory keeps creating proxies of the same proxy class even
+     * if it is later {@link #invalidate(Class) invalidated}.
+     * <p>
+     * The default implementation returns a factory calling
+     * {@link #create(Object, List, boolean, boolean, boolean)} for every proxy.
+     *
+     * @param sourceClass         The class of the objects to be proxied.
+     * @param advisors            The list of advisors to be applied to the proxies.
+     * @param useCopyConstructor  Whether to use a copy constructor for proxy creation.
+     * @param useSpringAutowiring Whether to use Spring's autowiring for proxy creation.
+     * @param bypassConstructor   Whether to allocate the proxies without invoking a constructor.
+     * @return the factory
+     */
+    default ProxyFactory getProxyFactory(Class<?> sourceClass, List<Advisor> advisors, boolean useCopyConstructor, boolean useSpringAutowiring, boolean bypassConstructor) {
+        return source -> {
+            try {
+                return create(source, advisors, useCopyConstructor, useSpringAutowiring, bypassConstructor);
+            } catch (NoSuchMethodException e) {
+                throw (InstantiationException) new InstantiationException(e.getMessage()).initCause(e);
+            }
+        };
+    }
+
+    /**
+     * Resolves a factory creating delegating proxies of instances of exactly the given class, see
+     * {@link #getProxyFactory(Class, List, boolean, boolean, boolean)} and {@link #createDelegating(Object, List)}.
+     * <p>
+     * The default implementation returns a factory calling {@link #createDelegating(Object, List)} for every proxy.
+     *
+     * @param sourceClass The class of the objects to be proxied.
+     * @param advisors    The list of advisors to be applied to the proxies.
+     * @return the factory
+     */
+    default ProxyFactory getDelegatingProxyFactory(Class<?> sourceClass, List<Advisor> advisors) {
+        return source -> {
+            try {
+                return createDelegating(source, advisors);
+            } catch (NoSuchMethodException e) {
+                throw (InstantiationException) new InstantiationException(e.getMessage()).initCause(e);
+            }
+        };
+    }
+
+    /**
+     * Generates and caches the proxy class for the given configuration without creating a proxy, so that later calls
+     * to {@code create} only need to instantiate it. Implementations must allow concurrent preparation of different
+     * proxy classes.
+     * <p>
+     * The default implementation does nothing.
+     *
+     * @param sourceClass         The class to be proxied.
+     * @param advisors            The list of advisors to be applied to the proxy.
+     * @param useCopyConstructor  Whether to use a copy constructor for proxy creation.
+     * @param useSpringAutowiring Whether to use Spring's autowiring for proxy creation.
+     */
+    default void prepare(Class<?> sourceClass, List<Advisor> advisors, boolean useCopyConstructor, boolean useSpringAutowiring) {
+    }
+
+    /**
+     * Generates and caches the proxy class for the given configuration without creating a proxy, see
+     * {@link #prepare(Class, List, boolean, boolean)}.
+     * <p>
+     * The default implementation ignores {@code bypassConstructor}.
+     *
+     * @param sourceClass         The class to be proxied.
+     * @param advisors            The list of advisors to be applied to the proxy.
+     * @param useCopyConstructor  Whether to use a copy constructor for proxy creation.
+     * @param useSpringAutowiring Whether to use Spring's autowiring for proxy creation.
+     * @param bypassConstructor   Whether proxies will be allocated without invoking a constructor.
+     */
+    default void prepare(Class<?> sourceClass, List<Advisor> advisors, boolean useCopyConstructor, boolean useSpringAutowiring, boolean bypassConstructor) {
+        prepare(sourceClass, advisors, useCopyConstructor, useSpringAutowiring);
+    }
+
+    /**
+     * Generates and caches the delegating proxy class for the given configuration without creating a proxy, see
+     * {@link #createDelegating(Object, List)}.
+     * <p>
+     * The default implementation does nothing.
+     *
+     * @param sourceClass The class to be proxied.
+     * @param advisors    The list of advisors to be applied to the proxy.
+     */
+    default void prepareDelegating(Class<?> sourceClass, List<Advisor> advisors) {
+    }
+
+    /**
+     * Discards any proxy class cached for a source class, e.g. because the advisors applicable to it have changed.
+     * Existing proxies are unaffected.
+     * <p>
+     * The default implementation does nothing.
+     *
+     * @param sourceClass The proxied class.
+     */
+    default void invalidate(Class<?> sourceClass) {
+    }
+
+    /**
+     * Discards the proxy classes cached for a source class with a given list of advisors, e.g. because these advisors
+     * are no longer those applicable to it. Proxy classes cached for the same class with other advisors, such as those
+     * requested by another application context sharing this machine, are kept. Existing proxies are unaffected.
+     * <p>
+     * The default implementation does nothing.
+     *
+     * @param sourceClass The proxied class.
+     * @param advisors    The advisors of the proxy classes to discard.
+     */
+    default void invalidate(Class<?> sourceClass, List<Advisor> advisors) {
+    }
 }
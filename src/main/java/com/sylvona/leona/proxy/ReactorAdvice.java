@@ -0,0 +1,81 @@
+package com.sylvona.leona.proxy;
+
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Executor;
+
+/**
+ * The Reactor implementations of {@link AsyncReturnType#MONO} and {@link AsyncReturnType#FLUX}, kept separate so that
+ * Reactor is only required if advised methods return its types.
+ */
+final class ReactorAdvice {
+    private ReactorAdvice() {}
+
+    static Object monoOnTermination(Object result, AsyncReturnType.Callback callback) {
+        Runnable action = () -> run(callback, null);
+        return ((Mono<?>) result).doOnTerminate(action).doOnCancel(action);
+    }
+
+    static Object monoOnSuccess(Object result, AsyncReturnType.Callback callback) {
+        return ((Mono<?>) result).doOnSuccess(value -> run(callback, value));
+    }
+
+    static Object monoOnFailure(Object result, AsyncReturnType.Callback callback) {
+        return ((Mono<?>) result).doOnError(failure -> run(callback, failure));
+    }
+
+    static Object fluxOnTermination(Object result, AsyncReturnType.Callback callback) {
+        Runnable action = () -> run(callback, null);
+        return ((Flux<?>) result).doOnTerminate(action).doOnCancel(action);
+    }
+
+    static Object fluxOnSuccess(Object result, AsyncReturnType.Callback callback) {
+        return ((Flux<?>) result).doOnComplete(() -> run(callback, null));
+    }
+
+    static Object fluxOnFailure(Object result, AsyncReturnType.Callback callback) {
+        return ((Flux<?>) result).doOnError(failure -> run(callback, failure));
+    }
+
+    /**
+     * Defers the interceptor until the returned {@link Mono} is subscribed to, and subscribes on the executor.
+     */
+    static AdviceInterceptor offloadMono(AdviceInterceptor interceptor, Executor executor) {
+        Scheduler scheduler = Schedulers.fromExecutor(executor);
+        return joinPoint -> Mono.defer(() -> {
+            try {
+                Object result = interceptor.invoke(joinPoint);
+                return result == null ? Mono.empty() : (Mono<?>) result;
+            } catch (Throwable throwable) {
+                return Mono.error(throwable);
+            }
+        }).subscribeOn(scheduler);
+    }
+
+    /**
+     * Defers the interceptor until the returned {@link Flux} is subscribed to, and subscribes on the executor.
+     */
+    static AdviceInterceptor offloadFlux(AdviceInterceptor interceptor, Executor executor) {
+        Scheduler scheduler = Schedulers.fromExecutor(executor);
+        return joinPoint -> Flux.defer(() -> {
+            try {
+                Object result = interceptor.invoke(joinPoint);
+                return result == null ? Flux.empty() : (Flux<?>) result;
+            } catch (Throwable throwable) {
+                return Flux.error(throwable);
+            }
+        }).subscribeOn(scheduler);
+    }
+
+    private static void run(AsyncReturnType.Callback callback, Object value) {
+        try {
+            callback.accept(value);
+        } catch (Throwable throwable) {
+            throw Exceptions.propagate(throwable);
+        }
+    }
+}
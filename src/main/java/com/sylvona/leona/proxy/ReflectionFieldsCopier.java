@@ -11,7 +11,11 @@ import java.util.Map;
 
 /**
  * A utility class which copies field values from one object to another and caches all successfully copied fields.
+ *
+ * @deprecated Only copies fields declared by the concrete class and is not safe for concurrent use, use
+ * {@link GeneratedFieldsCopier} instead.
  */
+@Deprecated
 public class ReflectionFieldsCopier {
     private final Map<Class<?>, List<Field>> reflectionEligibleFields = new HashMap<>();
 
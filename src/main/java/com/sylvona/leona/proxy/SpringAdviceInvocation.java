@@ -0,0 +1,149 @@
+package com.sylvona.leona.proxy;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+import org.springframework.aop.aspectj.AspectJAfterReturningAdvice;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.aspectj.AspectJMethodBeforeAdvice;
+import org.springframework.aop.framework.adapter.AfterReturningAdviceInterceptor;
+import org.springframework.aop.framework.adapter.MethodBeforeAdviceInterceptor;
+import org.springframework.aop.interceptor.ExposeInvocationInterceptor;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@link ProxyMethodInvocation} through which advice that cannot be bound to a direct invoker (see
+ * {@link AdviceInvokers#canBind(AbstractAspectJAdvice)}) is run by Spring itself, e.g. advice binding pointcut
+ * parameters such as {@code args(id)} or {@code @annotation(timed)}, or whose pointcut has runtime tests such as
+ * {@code args(java.lang.Long)}. The pointcut of such advice is matched against every call, which is skipped by the
+ * advice unless it matches.
+ * <p>
+ * Spring's advice reads its join point and bound parameters from the invocation exposed by
+ * {@link ExposeInvocationInterceptor}, so every call of the advice exposes a new invocation adapting the
+ * {@link CompositedProceedingJoinPoint} of its link of the interceptor chain. Proceeding from the advice proceeds with
+ * the rest of the chain.
+ */
+final class SpringAdviceInvocation implements ProxyMethodInvocation {
+    private final CompositedProceedingJoinPoint joinPoint;
+    private final MethodInterceptor advice;
+    private final AspectJExpressionPointcut pointcut;
+    private final Class<?> targetClass;
+    /**
+     * Whether the advice binds pointcut parameters or its pointcut has runtime tests, in which case the pointcut is
+     * matched against every call.
+     */
+    private final boolean dynamic;
+
+    /**
+     * The arguments set by the advice, or null to proceed with those of the join point.
+     */
+    private Object[] arguments;
+    private boolean adviceInvoked;
+    private Map<String, Object> userAttributes;
+
+    private SpringAdviceInvocation(CompositedProceedingJoinPoint joinPoint, MethodInterceptor advice, AspectJExpressionPointcut pointcut, Class<?> targetClass, boolean dynamic) {
+        this.joinPoint = joinPoint;
+        this.advice = advice;
+        this.pointcut = pointcut;
+        this.targetClass = targetClass;
+        this.dynamic = dynamic;
+    }
+
+    /**
+     * Creates the interceptor running an advice through Spring.
+     *
+     * @param advice      The advice.
+     * @param targetClass The class whose proxies run the advice, which the advice's pointcut is matched against.
+     * @return the interceptor
+     * @throws IllegalArgumentException If the advice is of an unsupported kind.
+     */
+    static AdviceInterceptor interceptor(AbstractAspectJAdvice advice, Class<?> targetClass) {
+        MethodInterceptor methodInterceptor = toMethodInterceptor(advice);
+        AspectJExpressionPointcut pointcut = advice.getPointcut();
+        // Bindable advice only gets here if its method is not accessible, its pointcut then needs no runtime test
+        boolean dynamic = !AdviceInvokers.canBind(advice);
+        return joinPoint -> ExposeInvocationInterceptor.INSTANCE.invoke(new SpringAdviceInvocation(joinPoint, methodInterceptor, pointcut, targetClass, dynamic));
+    }
+
+    private static MethodInterceptor toMethodInterceptor(AbstractAspectJAdvice advice) {
+        // Around, after and after-throwing advice are interceptors already
+        if (advice instanceof MethodInterceptor methodInterceptor) return methodInterceptor;
+        if (advice instanceof AspectJMethodBeforeAdvice beforeAdvice) return new MethodBeforeAdviceInterceptor(beforeAdvice);
+        if (advice instanceof AspectJAfterReturningAdvice afterReturningAdvice) return new AfterReturningAdviceInterceptor(afterReturningAdvice);
+        throw new IllegalArgumentException("Unsupported advice type " + advice.getClass().getName());
+    }
+
+    @Override
+    public Object proceed() throws Throwable {
+        if (adviceInvoked) return arguments != null ? joinPoint.proceed(arguments) : joinPoint.proceed();
+        adviceInvoked = true;
+        // Binds the pointcut parameters into this invocation's user attributes, as Spring's dynamic method matching does
+        if (dynamic && !pointcut.matches(getMethod(), targetClass, getArguments())) return joinPoint.proceed();
+        return advice.invoke(this);
+    }
+
+    @Override
+    public Method getMethod() {
+        return ((MethodSignature) joinPoint.getSignature()).getMethod();
+    }
+
+    @Override
+    public Object[] getArguments() {
+        return arguments != null ? arguments : joinPoint.getArgs();
+    }
+
+    @Override
+    public void setArguments(Object... arguments) {
+        this.arguments = arguments;
+    }
+
+    @Override
+    public Object getThis() {
+        return joinPoint.getTarget();
+    }
+
+    @Override
+    public Object getProxy() {
+        return joinPoint.getThis();
+    }
+
+    @Override
+    public AccessibleObject getStaticPart() {
+        return getMethod();
+    }
+
+    @Override
+    public MethodInvocation invocableClone() {
+        return invocableClone(arguments);
+    }
+
+    @Override
+    public MethodInvocation invocableClone(Object... arguments) {
+        SpringAdviceInvocation clone = new SpringAdviceInvocation(joinPoint, advice, pointcut, targetClass, dynamic);
+        clone.arguments = arguments;
+        clone.adviceInvoked = adviceInvoked;
+        if (userAttributes != null) clone.userAttributes = new HashMap<>(userAttributes);
+        return clone;
+    }
+
+    @Override
+    public void setUserAttribute(String key, Object value) {
+        if (value == null) {
+            if (userAttributes != null) userAttributes.remove(key);
+            return;
+        }
+        if (userAttributes == null) userAttributes = new HashMap<>();
+        userAttributes.put(key, value);
+    }
+
+    @Override
+    public Object getUserAttribute(String key) {
+        return userAttributes != null ? userAttributes.get(key) : null;
+    }
+}
@@ -0,0 +1,164 @@
+package com.sylvona.leona.proxy.aot;
+
+import com.sylvona.leona.core.utils.SpringBridgeUtils;
+import com.sylvona.leona.proxy.PointcutMatchIndex;
+import com.sylvona.leona.proxy.ProxyClassGenerator;
+import com.sylvona.leona.proxy.ProxyClassPlan;
+import com.sylvona.leona.proxy.aspects.AspectAware;
+import com.sylvona.leona.proxy.aspects.ProducedElements;
+import com.sylvona.leona.proxy.aspects.ProxyProducer;
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.description.type.TypeDescription;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+import org.springframework.aop.aspectj.annotation.BeanFactoryAspectInstanceFactory;
+import org.springframework.aop.aspectj.annotation.ReflectiveAspectJAdvisorFactory;
+import org.springframework.aot.generate.GenerationContext;
+import org.springframework.aot.hint.ExecutableMode;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.ReflectionHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates the proxy classes of {@link AspectAware} beans and of the return (or element) types of
+ * {@link ProxyProducer} beans during Spring AOT processing, and registers the runtime hints they require in a native
+ * image.
+ * <p>
+ * Proxy classes are written under their {@link ProxyClassPlan#getProxyClassName() deterministic names}, which
+ * {@link com.sylvona.leona.proxy.CachingBeanProxyMachine} loads at runtime instead of generating them with ByteBuddy.
+ * Plans are derived exactly as at runtime, from the same advisors and autowired constructors. Proxies whose plan
+ * still differs at runtime (e.g. because an aspect is only registered programmatically) are generated on demand
+ * outside a native image, and cannot be created in a native image.
+ */
+@Slf4j
+class LeonaProxyBeanFactoryInitializationAotProcessor implements BeanFactoryInitializationAotProcessor {
+
+    @Override
+    public BeanFactoryInitializationAotContribution processAheadOfTime(ConfigurableListableBeanFactory beanFactory) {
+        List<Advisor> advisors = findAdvisors(beanFactory);
+        if (advisors.isEmpty()) return null;
+
+        PointcutMatchIndex matchIndex = new PointcutMatchIndex();
+        // The runtime determines autowired constructors from the application context, which is not a bean
+        ApplicationContext applicationContext = beanFactory instanceof DefaultListableBeanFactory listableBeanFactory ? new GenericApplicationContext(listableBeanFactory) : null;
+        Map<String, ProxyClassPlan> plans = new LinkedHashMap<>();
+        List<Class<?>> producerClasses = new ArrayList<>();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            Class<?> beanType = getBeanType(beanFactory, beanName);
+            if (beanType == null || !AnnotatedElementUtils.hasAnnotation(beanType, AspectAware.class)) continue;
+
+            addPlan(plans, ProxyClassPlan.create(matchIndex.match(advisors, beanType), false, determineAutowiredConstructor(beanType, applicationContext)));
+
+            ProxyProducer proxyProducer = AnnotatedElementUtils.findMergedAnnotation(beanType, ProxyProducer.class);
+            if (proxyProducer == null) continue;
+            producerClasses.add(beanType);
+            for (Method method : beanType.getMethods()) {
+                if (method.getDeclaringClass() == Object.class) continue;
+                Class<?> returnType = ProducedElements.resolveProducedType(method, proxyProducer);
+                if (returnType == null || !isProxyable(returnType)) continue;
+                PointcutMatchIndex.MatchTable matchTable = matchIndex.match(advisors, returnType);
+                addPlan(plans, proxyProducer.delegating() ? ProxyClassPlan.createDelegating(matchTable)
+                        : ProxyClassPlan.create(matchTable, proxyProducer.useCopyConstructor(), null, proxyProducer.useFieldCopying() && proxyProducer.bypassConstructor()));
+            }
+        }
+
+        if (plans.isEmpty()) return null;
+        return (generationContext, beanFactoryInitializationCode) -> contribute(generationContext, plans.values(), producerClasses);
+    }
+
+    /**
+     * Determines the constructor mirrored by the proxy class of an {@link AspectAware} bean exactly as
+     * {@link com.sylvona.leona.proxy.CachingBeanProxyMachine} does at runtime, so that both derive the same plan (and
+     * proxy class name) from it.
+     *
+     * @param beanType           The class of the bean.
+     * @param applicationContext A view of the bean factory being processed, or null if it cannot be viewed as a context.
+     * @return the autowired constructor, or null if there is none
+     */
+    private static Constructor<?> determineAutowiredConstructor(Class<?> beanType, ApplicationContext applicationContext) {
+        if (applicationContext == null) return null;
+        try {
+            return SpringBridgeUtils.determineAutowiredConstructor(beanType, applicationContext);
+        } catch (RuntimeException e) {
+            log.debug("Unable to determine the autowired constructor of {}", beanType, e);
+            return null;
+        }
+    }
+
+    private static void addPlan(Map<String, ProxyClassPlan> plans, ProxyClassPlan plan) {
+        if (plan.getAdvisedMethods().isEmpty()) return;
+        plans.putIfAbsent(plan.getProxyClassName(), plan);
+    }
+
+    private static void contribute(GenerationContext generationContext, Iterable<ProxyClassPlan> plans, List<Class<?>> producerClasses) {
+        ProxyClassGenerator generator = new ProxyClassGenerator();
+        ReflectionHints reflectionHints = generationContext.getRuntimeHints().reflection();
+
+        for (ProxyClassPlan plan : plans) {
+            log.info("Generating proxy class {} ahead of time", plan.getProxyClassName());
+            for (Map.Entry<TypeDescription, byte[]> type : generator.generate(plan, true).getAllTypes().entrySet()) {
+                String path = type.getKey().getName().replace('.', '/') + ".class";
+                generationContext.getGeneratedFiles().addClassFile(path, new ByteArrayResource(type.getValue()));
+            }
+
+            // Interceptors are installed into public static fields, and proxies are created through their constructor
+            reflectionHints.registerType(TypeReference.of(plan.getProxyClassName()), MemberCategory.PUBLIC_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+            // Source fields are copied into proxies, and advised methods are resolved (and possibly invoked) reflectively
+            reflectionHints.registerType(plan.getSourceClass(), MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS);
+            for (ProxyClassPlan.AdvisedMethod advisedMethod : plan.getAdvisedMethods()) {
+                for (AbstractAspectJAdvice advice : advisedMethod.advices()) {
+                    reflectionHints.registerMethod(advice.getAspectJAdviceMethod(), ExecutableMode.INVOKE);
+                }
+            }
+        }
+
+        // Exclusion filters of proxy producers are looked up by name
+        for (Class<?> producerClass : producerClasses) {
+            reflectionHints.registerType(producerClass, MemberCategory.INVOKE_DECLARED_METHODS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+    }
+
+    private static List<Advisor> findAdvisors(ConfigurableListableBeanFactory beanFactory) {
+        ReflectiveAspectJAdvisorFactory advisorFactory = new ReflectiveAspectJAdvisorFactory(beanFactory);
+        List<Advisor> advisors = new ArrayList<>();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            Class<?> beanType = getBeanType(beanFactory, beanName);
+            if (beanType == null || !AnnotatedElementUtils.hasAnnotation(beanType, Aspect.class) || !advisorFactory.isAspect(beanType)) continue;
+            try {
+                advisors.addAll(advisorFactory.getAdvisors(new BeanFactoryAspectInstanceFactory(beanFactory, beanName, beanType)));
+            } catch (RuntimeException e) {
+                log.warn("Unable to resolve advisors of aspect {}", beanName, e);
+            }
+        }
+        return advisors;
+    }
+
+    private static Class<?> getBeanType(ConfigurableListableBeanFactory beanFactory, String beanName) {
+        Class<?> beanType = beanFactory.getType(beanName, false);
+        return beanType == null ? null : ClassUtils.getUserClass(beanType);
+    }
+
+    private static boolean isProxyable(Class<?> type) {
+        int modifiers = type.getModifiers();
+        return !type.isPrimitive() && !type.isArray() && !type.isInterface() && !Modifier.isFinal(modifiers)
+                && type.getName().indexOf('.') > 0 && !type.getName().startsWith("java.");
+    }
+}
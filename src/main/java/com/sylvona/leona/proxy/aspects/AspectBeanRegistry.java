@@ -1,8 +1,9 @@
 package com.sylvona.leona.proxy.aspects;
 
 import com.sylvona.leona.core.utils.AnnotationHelper;
+import com.sylvona.leona.proxy.PointcutMatchIndex;
 import com.sylvona.leona.proxy.ProxyMachine;
-import com.sylvona.leona.proxy.ReflectionFieldsCopier;
+import com.sylvona.leona.proxy.GeneratedFieldsCopier;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,18 +12,38 @@ import org.springframework.aop.Advisor;
 import org.springframework.aop.aspectj.annotation.BeanFactoryAspectInstanceFactory;
 import org.springframework.aop.aspectj.annotation.MetadataAwareAspectInstanceFactory;
 import org.springframework.aop.aspectj.annotation.ReflectiveAspectJAdvisorFactory;
+import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.aop.framework.autoproxy.AbstractAdvisorAutoProxyCreator;
-import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.ClassUtils;
 
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A bean post processor that identifies and process classes with the {@link Aspect} or {@link AspectAware} annotations.
@@ -31,19 +52,24 @@ import java.util.Map;
 @Slf4j
 @Configuration
 @RequiredArgsConstructor
-public class AspectBeanRegistry extends AbstractAdvisorAutoProxyCreator {
+public class AspectBeanRegistry extends AbstractAdvisorAutoProxyCreator implements SmartInitializingSingleton {
     /**
-     * Contains and caches all advisors that are applicable to a specific type.
+     * Contains and caches all advisors that are applicable to a specific type, along with the version of the advisor
+     * snapshot they were computed from.
      */
-    private final Map<Class<?>, List<Advisor>> advisorsByClassMap = new HashMap<>();
+    private final Map<Class<?>, VersionedAdvisors> advisorsByClassMap = new ConcurrentHashMap<>();
     /**
      * The object-to-object field value copier.
      */
-    private final ReflectionFieldsCopier fieldCopier = new ReflectionFieldsCopier();
+    private final GeneratedFieldsCopier fieldCopier = new GeneratedFieldsCopier();
     /**
-     * All advisors found by this post processor.
+     * All advisors found by this post processor, replaced as a whole whenever an aspect registers.
      */
-    private final List<Advisor> advisors = new ArrayList<>();
+    private final AtomicReference<AdvisorSnapshot> advisorSnapshot = new AtomicReference<>(new AdvisorSnapshot(List.of(), 0));
+    /**
+     * The names of all aspect beans whose advisors have been registered.
+     */
+    private final Set<String> registeredAspectNames = ConcurrentHashMap.newKeySet();
     /**
      * The spring {@link ApplicationContext}.
      */
@@ -52,9 +78,54 @@ public class AspectBeanRegistry extends AbstractAdvisorAutoProxyCreator {
      * The {@link ProxyMachine} responsible for creating bean proxies.
      */
     private final ProxyMachine proxyMachine;
+    /**
+     * The cache of pointcut match results, shared with the {@link ProxyMachine}.
+     */
+    private final PointcutMatchIndex pointcutMatchIndex;
+    /**
+     * The proxying configuration properties.
+     */
+    private final LeonaProxyProperties properties;
+    /**
+     * The compile-time index of annotated classes, consulted before looking up a bean's annotations reflectively.
+     */
+    private AspectCandidateIndex candidateIndex = AspectCandidateIndex.EMPTY;
+    /**
+     * Whether the proxy class warm-up has been performed.
+     */
+    private boolean warmedUp;
+    /**
+     * The target sources of deferred proxies which have not been resolved by {@link #afterSingletonsInstantiated()}.
+     */
+    private final Queue<DeferredProxyTargetSource> deferredTargets = new ConcurrentLinkedQueue<>();
+    /**
+     * Whether all singletons have been instantiated, after which proxies are no longer deferred.
+     */
+    private volatile boolean singletonsInstantiated;
+
+    /**
+     * Loads the compile-time index of annotated classes if it is enabled, and generates the proxy classes of all known
+     * beans ahead of their creation if warm-up is enabled.
+     * @param beanFactory the bean factory this post processor is registered with
+     */
+    @Override
+    protected void initBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        super.initBeanFactory(beanFactory);
+        if (properties.getIndex().isEnabled() && candidateIndex == AspectCandidateIndex.EMPTY) {
+            candidateIndex = AspectCandidateIndex.load(beanFactory.getBeanClassLoader());
+        }
+        LeonaProxyProperties.WarmUp warmUp = properties.getWarmUp();
+        // The bean factory is set twice on configuration classes
+        if (!warmUp.isEnabled() || warmedUp) return;
+        warmedUp = true;
+        warmUp(beanFactory, Math.max(1, warmUp.getParallelism()));
+    }
 
     /**
      * Processes and attempts to proxy a bean, making it aware of itself as a proxy class.
+     * <p>
+     * If proxy resolution is {@link LeonaProxyProperties.Resolution#DEFERRED deferred}, the bean is instead wrapped by
+     * a lightweight proxy whose target is resolved once all singletons have been instantiated.
      * @param bean the new bean instance
      * @param beanName the name of the bean
      * @return the processed bean, or original bean if a proxy couldn't be made
@@ -63,16 +134,43 @@ public class AspectBeanRegistry extends AbstractAdvisorAutoProxyCreator {
     @Override
     public Object postProcessBeforeInitialization(@NotNull Object bean, @NotNull String beanName) throws BeansException {
         // Implicit null check
+        if (candidateIndex.excludes(bean.getClass(), AspectCandidateIndex.Stereotype.ASPECT_AWARE)) return bean;
         AspectAware aspectAware = AnnotationHelper.getNestedAnnotation(bean, AspectAware.class);
         if (aspectAware == null) return bean;
+        if (isDeferring()) return createDeferredProxy(bean, beanName);
 
         for (Class<?> aspectClass : aspectAware.value()) {
             if (aspectClass.isPrimitive()) continue;
             applicationContext.getBean(aspectClass); // Load all necessary aspects
         }
 
-        // TODO: possibly fix load order to include all aspects... perhaps by doing a lazy return on the modified bean until all aspects have bene loaded
+        return createProxy(bean, beanName);
+    }
 
+    /**
+     * Wraps a bean in a proxy delegating to the bean itself until {@link #afterSingletonsInstantiated()} resolves its
+     * actual proxy. Initialization callbacks therefore run on the original bean, without forcing aspects to be loaded.
+     * @param bean the bean instance
+     * @param beanName the name of the bean
+     * @return the deferred proxy
+     */
+    private Object createDeferredProxy(Object bean, String beanName) {
+        DeferredProxyTargetSource targetSource = new DeferredProxyTargetSource(bean, beanName);
+        deferredTargets.add(targetSource);
+
+        ProxyFactory proxyFactory = new ProxyFactory();
+        proxyFactory.setTargetSource(targetSource);
+        proxyFactory.setProxyTargetClass(true);
+        return proxyFactory.getProxy(getProxyClassLoader());
+    }
+
+    /**
+     * Creates the proxy of a bean from all advisors currently applicable to its class.
+     * @param bean the bean instance
+     * @param beanName the name of the bean
+     * @return the proxy, or original bean if a proxy couldn't be made
+     */
+    private Object createProxy(Object bean, String beanName) {
         List<Advisor> advisors = getAdvisorsForClass(bean.getClass());
         if (advisors.isEmpty()) return bean;
         try {
@@ -95,23 +193,193 @@ public class AspectBeanRegistry extends AbstractAdvisorAutoProxyCreator {
      */
     @Override
     public Object postProcessAfterInitialization(Object bean, @NotNull String beanName) throws BeansException {
-        if (!AnnotationHelper.hasAnnotation(bean, Aspect.class)) return bean;
+        if (candidateIndex.excludes(bean.getClass(), AspectCandidateIndex.Stereotype.ASPECT) || !AnnotationHelper.hasAnnotation(bean, Aspect.class)) return bean;
         BeanFactory beanFactory = getBeanFactory();
         if (beanFactory == null) return bean;
 
+        registerAspect(beanFactory, beanName);
+        return bean;
+    }
+
+    /**
+     * Resolves all deferred proxies now that every aspect singleton has been registered, preparing their proxy classes
+     * in one batch.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        singletonsInstantiated = true;
+        if (deferredTargets.isEmpty()) return;
+
+        List<Callable<Class<?>>> tasks = new ArrayList<>();
+        for (DeferredProxyTargetSource targetSource : deferredTargets) {
+            addPreparationTask(tasks, targetSource.getTargetClass(), false, true, false, false);
+        }
+        prepareProxyClasses(tasks, Math.max(1, properties.getWarmUp().getParallelism()), "deferred");
+
+        DeferredProxyTargetSource targetSource;
+        while ((targetSource = deferredTargets.poll()) != null) {
+            targetSource.resolve(createProxy(targetSource.getBean(), targetSource.getBeanName()));
+        }
+    }
+
+    private boolean isDeferring() {
+        return properties.getResolution() == LeonaProxyProperties.Resolution.DEFERRED && !singletonsInstantiated;
+    }
+
+    private void registerAspect(BeanFactory beanFactory, String beanName) {
+        // Aspects are registered ahead of time by the warm-up
+        if (!registeredAspectNames.add(beanName)) return;
+
         MetadataAwareAspectInstanceFactory instanceFactory = new BeanFactoryAspectInstanceFactory(beanFactory, beanName);
         ReflectiveAspectJAdvisorFactory reflectiveAspectJAdvisorFactory = new ReflectiveAspectJAdvisorFactory();
-        advisors.addAll(reflectiveAspectJAdvisorFactory.getAdvisors(instanceFactory));
-        return bean;
+        List<Advisor> aspectAdvisors = reflectiveAspectJAdvisorFactory.getAdvisors(instanceFactory);
+        if (!aspectAdvisors.isEmpty()) advisorSnapshot.updateAndGet(snapshot -> snapshot.with(aspectAdvisors));
+    }
+
+    /**
+     * Registers the advisors of every aspect bean definition, then concurrently generates the proxy classes of every
+     * {@link AspectAware} bean and of the return types (or element types) of every {@link ProxyProducer} bean. Neither aspects nor the
+     * proxied beans are instantiated, their proxy classes are merely prepared for {@link ProxyMachine#create}.
+     *
+     * @param beanFactory The bean factory whose definitions are scanned.
+     * @param parallelism The maximum number of proxy classes generated concurrently.
+     */
+    private void warmUp(ConfigurableListableBeanFactory beanFactory, int parallelism) {
+        Map<String, Class<?>> beanTypes = new LinkedHashMap<>();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            Class<?> beanType = beanFactory.getType(beanName, false);
+            if (beanType != null) beanTypes.put(beanName, ClassUtils.getUserClass(beanType));
+        }
+        beanTypes.forEach((beanName, beanType) -> {
+            if (candidateIndex.excludes(beanType, AspectCandidateIndex.Stereotype.ASPECT)) return;
+            if (AnnotatedElementUtils.hasAnnotation(beanType, Aspect.class)) registerAspect(beanFactory, beanName);
+        });
+
+        // Advisors are matched up front, only class generation runs concurrently
+        List<Callable<Class<?>>> tasks = new ArrayList<>();
+        for (Class<?> beanType : new LinkedHashSet<>(beanTypes.values())) {
+            if (candidateIndex.excludes(beanType, AspectCandidateIndex.Stereotype.ASPECT_AWARE) || !AnnotatedElementUtils.hasAnnotation(beanType, AspectAware.class)) continue;
+            addPreparationTask(tasks, beanType, false, true, false, false);
+
+            if (candidateIndex.excludes(beanType, AspectCandidateIndex.Stereotype.PROXY_PRODUCER)) continue;
+            ProxyProducer proxyProducer = AnnotatedElementUtils.findMergedAnnotation(beanType, ProxyProducer.class);
+            if (proxyProducer == null) continue;
+            for (Method method : beanType.getMethods()) {
+                if (method.getDeclaringClass() == Object.class || method.isAnnotationPresent(ProxyProducer.ExcludeAlways.class)) continue;
+                Class<?> returnType = ProducedElements.resolveProducedType(method, proxyProducer);
+                if (returnType == null || !isProxyable(returnType) || !isTargetType(proxyProducer, returnType)) continue;
+                addPreparationTask(tasks, returnType, proxyProducer.useCopyConstructor(), false,
+                        proxyProducer.useFieldCopying() && proxyProducer.bypassConstructor(), proxyProducer.delegating());
+            }
+        }
+        prepareProxyClasses(tasks, parallelism, "warm-up");
+    }
+
+    /**
+     * Runs proxy class preparation tasks on a bounded pool and logs the wall time they took.
+     *
+     * @param tasks       The preparation tasks.
+     * @param parallelism The maximum number of proxy classes generated concurrently.
+     * @param phase       The name of the phase preparing the classes.
+     */
+    private void prepareProxyClasses(List<Callable<Class<?>>> tasks, int parallelism, String phase) {
+        if (tasks.isEmpty()) return;
+        long start = System.nanoTime();
+        int threads = Math.min(parallelism, tasks.size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("leona-proxy-" + phase + "-"));
+        int generated = 0;
+        try {
+            for (Future<Class<?>> future : executor.invokeAll(tasks)) {
+                try {
+                    future.get();
+                    generated++;
+                } catch (ExecutionException e) {
+                    log.warn("Unable to generate proxy class during {}", phase, e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Proxy class {} was interrupted", phase);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        log.info("Prepared {} of {} proxy classes ({}) in {} ms using {} thread(s)", generated, tasks.size(), phase, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), threads);
+    }
+
+    private void addPreparationTask(List<Callable<Class<?>>> tasks, Class<?> sourceClass, boolean useCopyConstructor, boolean useSpringAutowiring, boolean bypassConstructor, boolean delegating) {
+        List<Advisor> advisors = getAdvisorsForClass(sourceClass);
+        if (advisors.isEmpty()) return;
+        tasks.add(() -> {
+            if (delegating) proxyMachine.prepareDelegating(sourceClass, advisors);
+            else proxyMachine.prepare(sourceClass, advisors, useCopyConstructor, useSpringAutowiring, bypassConstructor);
+            return sourceClass;
+        });
+    }
+
+    private static boolean isTargetType(ProxyProducer proxyProducer, Class<?> type) {
+        Class<?>[] targetTypes = proxyProducer.targetTypes();
+        if (targetTypes.length == 0 || targetTypes[0].equals(void.class)) return true;
+        return Arrays.stream(targetTypes).anyMatch(t -> t.isAssignableFrom(type));
+    }
+
+    private static boolean isProxyable(Class<?> type) {
+        return !type.isPrimitive() && !type.isArray() && !type.isInterface() && !Modifier.isFinal(type.getModifiers()) && !type.getName().startsWith("java.");
     }
 
     /**
      * Get the list of advisors applicable to the given class.
+     * <p>
+     * Cached lists are revalidated against the version of the advisor snapshot, so aspects registered after a list was
+     * computed are taken into account. If the applicable advisors changed, the proxy classes cached for the class with
+     * the previous advisors are invalidated.
      *
      * @param cls The class for which advisors are to be retrieved.
      * @return The list of applicable advisors.
      */
     public List<Advisor> getAdvisorsForClass(Class<?> cls) {
-        return advisorsByClassMap.computeIfAbsent(cls, c -> AopUtils.findAdvisorsThatCanApply(advisors, c));
+        AdvisorSnapshot snapshot = advisorSnapshot.get();
+        VersionedAdvisors cached = advisorsByClassMap.get(cls);
+        if (cached != null && cached.version() == snapshot.version()) return cached.advisors();
+
+        List<Advisor> advisors = pointcutMatchIndex.findAdvisorsThatCanApply(snapshot.advisors(), cls);
+        if (cached != null && !isSameAdvisors(cached.advisors(), advisors)) {
+            proxyMachine.invalidate(cls, cached.advisors());
+        }
+        // Never replace a list computed from a newer snapshot
+        advisorsByClassMap.merge(cls, new VersionedAdvisors(snapshot.version(), advisors), (existing, computed) -> existing.version() >= computed.version() ? existing : computed);
+        return advisors;
+    }
+
+    private static boolean isSameAdvisors(List<Advisor> advisors, List<Advisor> otherAdvisors) {
+        if (advisors.size() != otherAdvisors.size()) return false;
+        for (int i = 0; i < advisors.size(); i++) {
+            if (advisors.get(i) != otherAdvisors.get(i)) return false;
+        }
+        return true;
     }
+
+    /**
+     * An immutable snapshot of all registered advisors.
+     *
+     * @param advisors The registered advisors, in registration order.
+     * @param version  The number of times advisors were registered before this snapshot.
+     */
+    private record AdvisorSnapshot(List<Advisor> advisors, long version) {
+        AdvisorSnapshot with(List<Advisor> addedAdvisors) {
+            List<Advisor> combined = new ArrayList<>(advisors.size() + addedAdvisors.size());
+            combined.addAll(advisors);
+            combined.addAll(addedAdvisors);
+            return new AdvisorSnapshot(List.copyOf(combined), version + 1);
+        }
+    }
+
+    /**
+     * The advisors applicable to a class.
+     *
+     * @param version  The version of the {@link AdvisorSnapshot} the advisors were computed from.
+     * @param advisors The applicable advisors.
+     */
+    private record VersionedAdvisors(long version, List<Advisor> advisors) {}
 }
@@ -0,0 +1,159 @@
+package com.sylvona.leona.proxy.aspects;
+
+import com.sylvona.leona.proxy.LeonaProxy;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The compile-time indexes of {@link AspectAware}, {@link ProxyProducer} and {@link Aspect} classes written by
+ * {@code leona-proxy-indexer}, found at {@value #INDEX_LOCATION} in every class path root compiled with it.
+ * <p>
+ * A class is only known not to be annotated if the class path root it was loaded from has an index which does not
+ * list it. Classes from other roots, as well as generated subclasses, must be checked reflectively.
+ */
+@Slf4j
+final class AspectCandidateIndex {
+    static final String INDEX_LOCATION = "META-INF/leona-proxy.index";
+    /**
+     * An index covering no class at all.
+     */
+    static final AspectCandidateIndex EMPTY = new AspectCandidateIndex(Map.of());
+
+    /**
+     * Stands for a protection domain whose class path root has no index.
+     */
+    private static final Map<String, Set<String>> UNINDEXED = Map.of();
+    /**
+     * Stands for a class which must be checked reflectively.
+     */
+    private static final Set<String> UNKNOWN = Collections.unmodifiableSet(new HashSet<>());
+
+    /**
+     * The stereotypes of every indexed class, by binary name, for each indexed class path root.
+     */
+    private final Map<String, Map<String, Set<String>>> indexesByRoot;
+    /**
+     * The index of the class path root of each protection domain seen so far, or {@link #UNINDEXED}.
+     */
+    private final Map<ProtectionDomain, Map<String, Set<String>>> indexesByDomain = new ConcurrentHashMap<>();
+    /**
+     * The indexed stereotypes of each class checked so far, or {@link #UNKNOWN}.
+     */
+    private final ClassValue<Set<String>> stereotypesByClass = new ClassValue<>() {
+        @Override
+        protected Set<String> computeValue(Class<?> type) {
+            return findStereotypes(type);
+        }
+    };
+
+    private AspectCandidateIndex(Map<String, Map<String, Set<String>>> indexesByRoot) {
+        this.indexesByRoot = indexesByRoot;
+    }
+
+    /**
+     * The annotations recorded for each indexed class.
+     */
+    enum Stereotype {
+        ASPECT_AWARE("aspect-aware"),
+        PROXY_PRODUCER("proxy-producer"),
+        ASPECT("aspect");
+
+        private final String token;
+
+        Stereotype(String token) {
+            this.token = token;
+        }
+    }
+
+    /**
+     * Loads every index visible to a class loader.
+     *
+     * @param classLoader The class loader of the application's beans.
+     * @return the loaded indexes, or {@link #EMPTY} if there are none
+     */
+    static AspectCandidateIndex load(ClassLoader classLoader) {
+        Map<String, Map<String, Set<String>>> indexesByRoot = new HashMap<>();
+        try {
+            Enumeration<URL> resources = (classLoader != null ? classLoader : ClassUtils.getDefaultClassLoader()).getResources(INDEX_LOCATION);
+            while (resources.hasMoreElements()) {
+                URL resource = resources.nextElement();
+                String url = resource.toString();
+                indexesByRoot.put(normalizeRoot(url.substring(0, url.length() - INDEX_LOCATION.length())), read(resource));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Unable to load {}, every bean is checked reflectively", INDEX_LOCATION, e);
+            return EMPTY;
+        }
+
+        if (indexesByRoot.isEmpty()) return EMPTY;
+        log.debug("Loaded {} index(es) of aspect candidates", indexesByRoot.size());
+        return new AspectCandidateIndex(indexesByRoot);
+    }
+
+    private static Map<String, Set<String>> read(URL resource) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream inputStream = resource.openStream()) {
+            properties.load(inputStream);
+        }
+        Map<String, Set<String>> index = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            index.put(name, StringUtils.commaDelimitedListToSet(properties.getProperty(name)));
+        }
+        return index;
+    }
+
+    /**
+     * Normalizes the URL of a class path root, e.g. {@code jar:file:/app.jar!/} and the code source location
+     * {@code file:/app.jar} both become {@code file:/app.jar}.
+     */
+    private static String normalizeRoot(String url) {
+        if (url.startsWith("jar:") && url.endsWith("!/")) url = url.substring("jar:".length(), url.length() - "!/".length());
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    /**
+     * Checks if a class is known not to carry a stereotype, without inspecting the class itself.
+     *
+     * @param type       The class of a bean.
+     * @param stereotype The stereotype.
+     * @return true if the class certainly does not carry the stereotype, false if it must be checked reflectively
+     */
+    boolean excludes(Class<?> type, Stereotype stereotype) {
+        if (indexesByRoot.isEmpty()) return false;
+        Set<String> stereotypes = stereotypesByClass.get(type);
+        return stereotypes != UNKNOWN && !stereotypes.contains(stereotype.token);
+    }
+
+    private Set<String> findStereotypes(Class<?> type) {
+        // Generated subclasses are not compiled, they may inherit the annotations of their superclass
+        if (type.isHidden() || LeonaProxy.class.isAssignableFrom(type) || type.getName().contains(ClassUtils.CGLIB_CLASS_SEPARATOR)) return UNKNOWN;
+
+        ProtectionDomain domain = type.getProtectionDomain();
+        if (domain == null) return UNKNOWN;
+        Map<String, Set<String>> index = indexesByDomain.computeIfAbsent(domain, this::findIndex);
+        if (index == UNINDEXED) return UNKNOWN;
+        return index.getOrDefault(type.getName(), Set.of());
+    }
+
+    private Map<String, Set<String>> findIndex(ProtectionDomain domain) {
+        CodeSource codeSource = domain.getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) return UNINDEXED;
+        return indexesByRoot.getOrDefault(normalizeRoot(codeSource.getLocation().toString()), UNINDEXED);
+    }
+}
@@ -1,9 +1,13 @@
 package com.sylvona.leona.proxy.aspects;
 
+import com.sylvona.leona.proxy.FieldCopier;
+import com.sylvona.leona.proxy.LeonaProxy;
+import com.sylvona.leona.proxy.ProxyInstrumentation;
+import com.sylvona.leona.proxy.ProxyInstrumentation.ProducerOutcome;
+import com.sylvona.leona.proxy.ProxyFactory;
 import com.sylvona.leona.proxy.ProxyMachine;
-import com.sylvona.leona.proxy.ReflectionFieldsCopier;
+import com.sylvona.leona.proxy.GeneratedFieldsCopier;
 import lombok.RequiredArgsConstructor;
-import org.apache.commons.lang3.reflect.MethodUtils;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -16,22 +20,29 @@ import org.springframework.stereotype.Component;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Aspect
 @Component
 @RequiredArgsConstructor
 @Import(AspectBeanRegistry.class)
 class AspectProducerAspect {
-    private final ReflectionFieldsCopier fieldCopier = new ReflectionFieldsCopier();
+    private final GeneratedFieldsCopier fieldCopier = new GeneratedFieldsCopier();
+    /**
+     * The resolved configuration of each producer method.
+     */
+    private final Map<Method, ProducerMethodDescriptor> descriptors = new ConcurrentHashMap<>();
     private final AspectBeanRegistry aspectBeanRegistry;
     private final ProxyMachine proxyMachine;
+    private final ProxyInstrumentation instrumentation;
 
     @Pointcut("within(@com.sylvona.leona.proxy.aspects.ProxyProducer *)")
     public void findAspectProducers() {}
 
-    @Pointcut("execution(!void *(..)) && !execution(@com.sylvona.leona.proxy.aspects.ProxyProducer.ExcludeAlways * *(..))")
+    // "execution(!void *(..))" never matches a method, void executions are excluded instead
+    @Pointcut("!execution(void *(..)) && !execution(@com.sylvona.leona.proxy.aspects.ProxyProducer.ExcludeAlways * *(..))")
     public void findNonVoidMethods() {}
 
     @Pointcut("findAspectProducers() && findNonVoidMethods()")
@@ -40,45 +51,106 @@ class AspectProducerAspect {
     @Around("findNonVoidMethodsInAspectProducer()")
     public Object wrapAspectProducer(ProceedingJoinPoint joinPoint) throws Throwable {
         Object original = joinPoint.proceed();
-        if (AopUtils.isAopProxy(original)) return original;
         if (original == null) return null;
+        if (AopUtils.isAopProxy(original) || original instanceof LeonaProxy) return original;
+
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        ProducerMethodDescriptor descriptor = descriptors.get(method);
+        if (descriptor == null) descriptor = descriptors.computeIfAbsent(method, ProducerMethodDescriptor::of);
+        if (descriptor.container() != ProducedElements.Container.NONE) return wrapElements(joinPoint, method, descriptor, original);
+
+        // Checks the allowed target types (if specified) and exclusion filters
+        ProducerOutcome exclusion = descriptor.findExclusion(joinPoint.getThis(), joinPoint.getArgs(), original);
+        if (exclusion != null) {
+            instrumentation.producerOutcome(method, exclusion);
+            return original;
+        }
 
-        MethodSignature signature = ((MethodSignature)joinPoint.getSignature());
-        Method method = signature.getMethod();
-        ProxyProducer proxyProducer = method.getDeclaringClass().getAnnotation(ProxyProducer.class);
-
-        // Check if the result of the resulting class type is one of the allowed target types (if specified)
-        Class<?>[] targetTypes = proxyProducer.targetTypes();
-        if (targetTypes != null && targetTypes.length > 0 && !targetTypes[0].equals(void.class)) {
-            Class<?> returningType = original.getClass();
-            if (Arrays.stream(targetTypes).noneMatch(t -> t.isAssignableFrom(returningType))) return original;
+        List<Advisor> advisors = aspectBeanRegistry.getAdvisorsForClass(original.getClass());
+        if (advisors.isEmpty()) {
+            instrumentation.producerOutcome(method, ProducerOutcome.UNADVISED);
+            return original;
         }
 
-        ProxyProducer.ExcludeWhen excludeWhen = method.getAnnotation(ProxyProducer.ExcludeWhen.class);
-        if (excludeWhen != null) {
-            if (excludeWhen.value().isEmpty()) return original;
-            if (invokeExclusionMethod(joinPoint.getThis(), excludeWhen.value(), signature.getParameterTypes(), joinPoint.getArgs())) return original;
+        Object proxy;
+        if (descriptor.delegating()) {
+            proxy = proxyMachine.createDelegating(original, advisors);
+        } else {
+            proxy = proxyMachine.create(original, advisors, descriptor.useCopyConstructor(), false, descriptor.bypassConstructor());
+            if (descriptor.useFieldCopying()) {
+                fieldCopier.copyFieldValues(original, proxy);
+            }
         }
+        instrumentation.producerOutcome(method, ProducerOutcome.PROXIED);
 
-        List<Advisor> advisors = aspectBeanRegistry.getAdvisorsForClass(original.getClass());
-        if (advisors.isEmpty()) return original;
+        return proxy;
+    }
 
+    /**
+     * Proxies the elements of a producer method's result, see {@link ProxyProducer#proxyElements()}.
+     */
+    private Object wrapElements(ProceedingJoinPoint joinPoint, Method method, ProducerMethodDescriptor descriptor, Object original) throws Throwable {
+        ProducerOutcome exclusion = descriptor.findMethodExclusion(joinPoint.getThis(), joinPoint.getArgs());
+        if (exclusion != null) {
+            instrumentation.producerOutcome(method, exclusion);
+            return original;
+        }
 
-        Object proxy = proxyMachine.create(original, advisors, proxyProducer.useCopyConstructor(), false);
+        instrumentation.producerOutcome(method, ProducerOutcome.PROXIED);
+        return descriptor.container().proxyElements(original, new ElementProxier(descriptor)::proxy);
+    }
 
-        if (proxyProducer.useFieldCopying()) {
-            fieldCopier.copyFieldValues(original, proxy);
+    /**
+     * Proxies the elements of a single result, resolving the advisors, proxy factory and field copier of each element
+     * class once. Lazily proxied elements may be consumed concurrently, e.g. by a parallel stream.
+     */
+    @RequiredArgsConstructor
+    private final class ElementProxier {
+        private final ProducerMethodDescriptor descriptor;
+        /**
+         * The proxying of the element class seen last, the only one for most results.
+         */
+        private volatile ElementProxying last;
+        private final Map<Class<?>, ElementProxying> proxyings = new ConcurrentHashMap<>();
+
+        Object proxy(Object element) {
+            if (element == null || AopUtils.isAopProxy(element) || element instanceof LeonaProxy) return element;
+            Class<?> elementClass = element.getClass();
+            ElementProxying proxying = last;
+            if (proxying == null || proxying.elementClass() != elementClass) {
+                last = proxying = proxyings.computeIfAbsent(elementClass, this::resolve);
+            }
+            return proxying.proxy(element);
         }
 
-        return proxy;
-    }
+        private ElementProxying resolve(Class<?> elementClass) {
+            if (!descriptor.isTargetType(elementClass)) return new ElementProxying(elementClass, null, null);
+            List<Advisor> advisors = aspectBeanRegistry.getAdvisorsForClass(elementClass);
+            if (advisors.isEmpty()) return new ElementProxying(elementClass, null, null);
 
-    private static boolean invokeExclusionMethod(Object source, String methodName, Class<?>[] parameterTypes, Object[] parameters) {
-        try {
-            return (boolean) MethodUtils.invokeMethod(source, true, methodName, parameters, parameterTypes);
-        } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-            throw new RuntimeException(e);
+            if (descriptor.delegating()) return new ElementProxying(elementClass, proxyMachine.getDelegatingProxyFactory(elementClass, advisors), null);
+            ProxyFactory proxyFactory = proxyMachine.getProxyFactory(elementClass, advisors, descriptor.useCopyConstructor(), false, descriptor.bypassConstructor());
+            return new ElementProxying(elementClass, proxyFactory, descriptor.useFieldCopying() ? fieldCopier.getCopier(elementClass) : null);
         }
     }
 
+    /**
+     * How the elements of a single class are proxied.
+     *
+     * @param elementClass The class of the elements.
+     * @param proxyFactory The factory creating their proxies, or null if they are not proxied.
+     * @param fieldCopier  The copier of their fields into their proxies, or null if fields are not copied.
+     */
+    private record ElementProxying(Class<?> elementClass, ProxyFactory proxyFactory, FieldCopier fieldCopier) {
+        Object proxy(Object element) {
+            if (proxyFactory == null) return element;
+            try {
+                Object proxy = proxyFactory.newInstance(element);
+                if (fieldCopier != null) fieldCopier.copy(element, proxy);
+                return proxy;
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("Unable to proxy element " + element, e);
+            }
+        }
+    }
 }
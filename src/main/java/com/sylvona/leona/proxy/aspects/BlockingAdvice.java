@@ -0,0 +1,22 @@
+package com.sylvona.leona.proxy.aspects;
+
+import org.aspectj.lang.annotation.Aspect;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks advice (or every advice of an {@link Aspect} class) which blocks, e.g. to wait for a rate limiter permit.
+ * <p>
+ * With asynchronous advice execution enabled ({@code leona.proxy.async.enabled}), blocking advice of
+ * {@link AspectAware} methods returning a {@code CompletableFuture}, {@code CompletionStage}, {@code Mono} or
+ * {@code Flux} runs on a separate executor (using virtual threads when available), together with the advice nested
+ * within it and the advised method. The caller immediately receives an asynchronous result instead of blocking.
+ * Reactor results only run the advice once subscribed to.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface BlockingAdvice {
+}
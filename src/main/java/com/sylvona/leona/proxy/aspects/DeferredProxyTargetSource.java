@@ -0,0 +1,57 @@
+package com.sylvona.leona.proxy.aspects;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.aop.TargetSource;
+
+/**
+ * A {@link TargetSource} standing in for the proxy of an {@link AspectAware} bean until that proxy can be created
+ * with the complete set of advisors. Until {@link AspectBeanRegistry} resolves the proxy, invocations are passed to
+ * the original bean unadvised.
+ */
+@RequiredArgsConstructor
+class DeferredProxyTargetSource implements TargetSource {
+    /**
+     * The bean to be proxied.
+     */
+    @Getter
+    private final Object bean;
+    /**
+     * The name of the bean.
+     */
+    @Getter
+    private final String beanName;
+    /**
+     * The resolved proxy, or null if it has not been resolved yet.
+     */
+    private volatile Object target;
+
+    @Override
+    public Class<?> getTargetClass() {
+        return bean.getClass();
+    }
+
+    @Override
+    public boolean isStatic() {
+        return false;
+    }
+
+    @Override
+    public Object getTarget() {
+        Object resolvedTarget = target;
+        return resolvedTarget != null ? resolvedTarget : bean;
+    }
+
+    @Override
+    public void releaseTarget(Object target) {
+    }
+
+    /**
+     * Resolves the target of this source, routing all subsequent invocations to it.
+     *
+     * @param target The proxy of the bean, or the bean itself if it could not be proxied.
+     */
+    void resolve(Object target) {
+        this.target = target;
+    }
+}
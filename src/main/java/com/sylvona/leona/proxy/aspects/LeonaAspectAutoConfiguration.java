@@ -1,38 +1,131 @@
 package com.sylvona.leona.proxy.aspects;
 
+import com.sylvona.leona.proxy.AsyncAdviceExecution;
 import com.sylvona.leona.proxy.CachingBeanProxyMachine;
+import com.sylvona.leona.proxy.PointcutMatchIndex;
+import com.sylvona.leona.proxy.ProxyClassCache;
+import com.sylvona.leona.proxy.ProxyClassDefiner;
+import com.sylvona.leona.proxy.ProxyClassDiskCache;
+import com.sylvona.leona.proxy.ProxyInstrumentation;
 import com.sylvona.leona.proxy.ProxyMachine;
+import com.sylvona.leona.proxy.metrics.MicrometerProxyInstrumentation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
 /**
  * Autoconfiguration class for Leona's aspect-related components. This class imports the {@link AspectProducerAspect}
- * to enable the creation of dynamic proxies for aspect producers.
+ * to enable the creation of dynamic proxies for aspect producers, and the {@link MemoizingAspect} memoizing the
+ * results of {@link Memoized} methods.
  * <p>
  * Additionally, it provides a default {@link ProxyMachine} bean, specifically a {@link CachingBeanProxyMachine},
  * for handling caching of proxied beans.
  * <p>
  * This configuration is conditionally applied if no existing bean of type {@link ProxyMachine} is present in
  * the application context.
+ * <p>
+ * If {@code leona.proxy.metrics.enabled} is set and Micrometer is present, proxies are instrumented by a
+ * {@link MicrometerProxyInstrumentation}. Otherwise, they are not instrumented at all.
  *
  * @see AspectProducerAspect
+ * @see MemoizingAspect
  * @see CachingBeanProxyMachine
  * @see ProxyMachine
  */
-@Import(AspectProducerAspect.class)
+@Import({AspectProducerAspect.class, MemoizingAspect.class, LeonaAspectAutoConfiguration.MicrometerInstrumentationConfiguration.class})
+@EnableConfigurationProperties(LeonaProxyProperties.class)
 public class LeonaAspectAutoConfiguration {
+    /**
+     * Creates the {@link PointcutMatchIndex} shared by the {@link AspectBeanRegistry} and the {@link ProxyMachine}, so
+     * that pointcuts matched to find a bean's advisors are not matched again to generate its proxy class.
+     *
+     * @return The pointcut match index bean.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public PointcutMatchIndex pointcutMatchIndex() {
+        return new PointcutMatchIndex();
+    }
+
+    /**
+     * Creates the {@link ProxyInstrumentation} used when metrics are disabled, which records nothing.
+     *
+     * @return The proxy instrumentation bean.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ProxyInstrumentation proxyInstrumentation() {
+        return ProxyInstrumentation.NONE;
+    }
+
+    /**
+     * Creates the {@link AsyncAdviceExecution} determining how advice applies to methods returning asynchronous
+     * values, enabled by {@code leona.proxy.async.enabled}.
+     *
+     * @param properties The proxying configuration properties.
+     * @return The asynchronous advice execution bean.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public AsyncAdviceExecution asyncAdviceExecution(LeonaProxyProperties properties) {
+        return properties.getAsync().isEnabled() ? AsyncAdviceExecution.withDefaultExecutor() : AsyncAdviceExecution.DISABLED;
+    }
+
     /**
      * Creates a default {@link ProxyMachine} bean, specifically a {@link CachingBeanProxyMachine}, for handling
-     * caching of proxied beans.
+     * caching of proxied beans. The machine releases its proxy classes when the application context is closed, and
+     * persists them in {@code leona.proxy.cache.directory} if it is set.
      *
-     * @param applicationContext The application context to be used by the proxy machine.
+     * @param applicationContext   The application context to be used by the proxy machine.
+     * @param properties           The proxying configuration properties.
+     * @param pointcutMatchIndex   The shared pointcut match index.
+     * @param instrumentation      The instrumentation of created proxies.
+     * @param asyncAdviceExecution How advice applies to methods returning asynchronous values.
      * @return The configured {@link ProxyMachine} bean.
      */
     @Bean
     @ConditionalOnMissingBean
-    public ProxyMachine cachingProxyMachine(ApplicationContext applicationContext) {
-        return new CachingBeanProxyMachine(applicationContext);
+    public ProxyMachine cachingProxyMachine(ApplicationContext applicationContext, LeonaProxyProperties properties, PointcutMatchIndex pointcutMatchIndex,
+                                           ProxyInstrumentation instrumentation, AsyncAdviceExecution asyncAdviceExecution) {
+        LeonaProxyProperties.Cache cache = properties.getCache();
+        return CachingBeanProxyMachine.builder(applicationContext)
+                .proxyClassCache(new ProxyClassCache(cache.getEvictionPolicy(), cache.getMaximumSize()))
+                .pointcutMatchIndex(pointcutMatchIndex)
+                .instrumentation(instrumentation)
+                .asyncAdviceExecution(asyncAdviceExecution)
+                .proxyClassDefiner(new ProxyClassDefiner(properties.getClassDefinition()))
+                .proxyClassDiskCache(cache.getDirectory() == null ? null : new ProxyClassDiskCache(cache.getDirectory()))
+                .weaving(properties.getWeaving())
+                .build();
+    }
+
+    /**
+     * Publishes proxy metrics to Micrometer, only imported if it is on the classpath and metrics are enabled.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnProperty(prefix = "leona.proxy.metrics", name = "enabled", havingValue = "true")
+    static class MicrometerInstrumentationConfiguration {
+        /**
+         * Creates a {@link MicrometerProxyInstrumentation} publishing to the application's {@link MeterRegistry}, or to
+         * Micrometer's global registry if the application has none.
+         *
+         * @param meterRegistry The application's meter registry.
+         * @param properties    The proxying configuration properties.
+         * @return The proxy instrumentation bean.
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        public ProxyInstrumentation micrometerProxyInstrumentation(ObjectProvider<MeterRegistry> meterRegistry, LeonaProxyProperties properties) {
+            return new MicrometerProxyInstrumentation(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), properties.getMetrics().getSampleRate());
+        }
     }
 }
@@ -0,0 +1,159 @@
+package com.sylvona.leona.proxy.aspects;
+
+import com.sylvona.leona.proxy.ProxyClassCache;
+import com.sylvona.leona.proxy.ProxyClassDefiner;
+import com.sylvona.leona.proxy.ProxyClassPlan;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration properties for Leona's proxying system, bound from the {@code leona.proxy} prefix.
+ */
+@Data
+@ConfigurationProperties(prefix = "leona.proxy")
+public class LeonaProxyProperties {
+    /**
+     * Configuration of the generated proxy class cache.
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * How proxy classes generated at runtime are defined. {@link ProxyClassDefiner.Strategy#HIDDEN} only applies to
+     * proxy classes without auxiliary types, typically those whose advice is inlined.
+     */
+    private ProxyClassDefiner.Strategy classDefinition = ProxyClassDefiner.Strategy.LOOKUP;
+
+    /**
+     * How advice is applied to the methods of proxy classes generated at runtime. With
+     * {@link ProxyClassPlan.Weaving#INLINE}, simple stateless around advice is copied into the proxy methods.
+     */
+    private ProxyClassPlan.Weaving weaving = ProxyClassPlan.Weaving.DELEGATION;
+
+    /**
+     * Configuration of the eager proxy class generation performed during context startup.
+     */
+    private WarmUp warmUp = new WarmUp();
+
+    /**
+     * When the proxies of {@link AspectAware} beans are created.
+     */
+    private Resolution resolution = Resolution.EAGER;
+
+    /**
+     * Configuration of the Micrometer metrics published for proxies.
+     */
+    private Metrics metrics = new Metrics();
+
+    /**
+     * Configuration of the advice of methods returning asynchronous values.
+     */
+    private Async async = new Async();
+
+    /**
+     * Configuration of the compile-time index of annotated classes.
+     */
+    private Index index = new Index();
+
+    /**
+     * Strategies determining when the proxies of {@link AspectAware} beans are created.
+     */
+    public enum Resolution {
+        /**
+         * Proxies are created while initializing each bean, eagerly loading the aspects listed by
+         * {@link AspectAware#value()}. Aspects that have not been loaded by then do not apply.
+         */
+        EAGER,
+        /**
+         * Beans are wrapped by a lightweight proxy whose target is created once all singletons, and therefore all
+         * aspects, have been instantiated. Until then, including during initialization callbacks, methods are
+         * invoked on the original bean without advice.
+         */
+        DEFERRED
+    }
+
+    /**
+     * Configuration of the generated proxy class cache.
+     */
+    @Data
+    public static class Cache {
+        /**
+         * The policy determining when cached proxy classes are released.
+         */
+        private ProxyClassCache.EvictionPolicy evictionPolicy = ProxyClassCache.EvictionPolicy.STRONG;
+
+        /**
+         * The maximum number of cached proxy classes when using {@link ProxyClassCache.EvictionPolicy#BOUNDED}.
+         */
+        private int maximumSize = 1024;
+
+        /**
+         * The directory in which proxy classes generated at runtime are persisted, so that later runs load them
+         * instead of generating them again. May be shared by several JVMs. Proxy classes are only cached in memory if
+         * unset.
+         */
+        private Path directory;
+    }
+
+    /**
+     * Configuration of the Micrometer metrics published for proxies, see
+     * {@link com.sylvona.leona.proxy.metrics.MicrometerProxyInstrumentation}.
+     */
+    @Data
+    public static class Metrics {
+        /**
+         * Whether advised method, advice and proxy producer metrics should be published. Requires Micrometer.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The fraction of advised method and advice invocations which are timed, greater than 0 and at most 1.
+         */
+        private double sampleRate = 0.1;
+    }
+
+    /**
+     * Configuration of the advice of methods returning asynchronous values, see
+     * {@link com.sylvona.leona.proxy.AsyncAdviceExecution}.
+     */
+    @Data
+    public static class Async {
+        /**
+         * Whether the after advice of methods returning a {@code CompletableFuture}, {@code CompletionStage},
+         * {@code Mono} or {@code Flux} should run once the returned value completes, and {@link BlockingAdvice} should
+         * run on virtual threads (or a thread pool if they are unavailable).
+         */
+        private boolean enabled = false;
+    }
+
+    /**
+     * Configuration of the compile-time index of {@link AspectAware}, {@link ProxyProducer} and aspect classes, written
+     * by the {@code leona-proxy-indexer} annotation processor.
+     */
+    @Data
+    public static class Index {
+        /**
+         * Whether beans whose class was compiled with the index, but is not listed in it, should be skipped without
+         * looking up their annotations reflectively.
+         */
+        private boolean enabled = true;
+    }
+
+    /**
+     * Configuration of the eager proxy class generation performed during context startup.
+     */
+    @Data
+    public static class WarmUp {
+        /**
+         * Whether the proxy classes of all {@link AspectAware} beans and {@link ProxyProducer} return types should be
+         * generated concurrently before any bean is created.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The maximum number of proxy classes generated concurrently.
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,52 @@
+package com.sylvona.leona.proxy.aspects;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memoizes the results of the annotated method, for methods of {@link AspectAware} beans and of objects returned by
+ * {@link ProxyProducer} beans. Calls of the method with arguments equal to those of a previous call (and on the same
+ * instance) return the previous result without invoking the method, nor any advice applied after the memoization.
+ * <p>
+ * As the memoization is advice of the proxy class itself, calls of the method by the object itself are memoized too,
+ * unlike with a separate caching proxy such as Spring's {@code @Cacheable}.
+ * <p>
+ * Arguments are compared with {@link java.util.Objects#deepEquals(Object, Object)} and should not be modified after
+ * the call. Results are memoized per instance, and each memoized result references the instance it was computed for
+ * until it is evicted. Exceptions are never memoized. Concurrent calls with the same arguments may all invoke the
+ * method if none of their results is memoized yet.
+ *
+ * @see MemoizingAspect
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Memoized {
+
+    /**
+     * The maximum number of results memoized for the method across all instances. Once exceeded, the oldest results
+     * are evicted first.
+     * @return the maximum number of memoized results
+     */
+    int maximumSize() default 1024;
+
+    /**
+     * How long a result remains memoized after it was computed, in {@link #timeUnit()}. Results never expire if zero.
+     * @return the time after which results expire, or 0
+     */
+    long expireAfterWrite() default 0;
+
+    /**
+     * The unit of {@link #expireAfterWrite()}.
+     * @return the time unit
+     */
+    TimeUnit timeUnit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * If true, results are weakly referenced and evicted once they are no longer used elsewhere.
+     * @return true if results should be weakly referenced, false otherwise
+     */
+    boolean weakValues() default false;
+}
@@ -0,0 +1,100 @@
+package com.sylvona.leona.proxy.aspects;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memoizes the results of {@link Memoized} methods. Being an aspect like any other, memoization applies to the
+ * methods of every class proxied by leona-proxy, and memoized results skip the advice applied after it.
+ */
+@Aspect
+@Component
+public class MemoizingAspect {
+    /**
+     * The memoized results of each memoized method.
+     */
+    private final Map<Method, MethodMemo> memos = new ConcurrentHashMap<>();
+
+    @Pointcut("execution(@com.sylvona.leona.proxy.aspects.Memoized * *()) && !execution(void *())")
+    public void findMemoizedMethodsWithoutArguments() {}
+
+    @Pointcut("execution(@com.sylvona.leona.proxy.aspects.Memoized * *(*, ..)) && !execution(void *(..))")
+    public void findMemoizedMethodsWithArguments() {}
+
+    /**
+     * Memoizes methods without arguments. Unlike {@link #memoize}, this advice never reads the arguments of the
+     * methods, which are then not captured for its join points.
+     */
+    @Around("findMemoizedMethodsWithoutArguments()")
+    public Object memoizeWithoutArguments(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodMemo memo = findMemo(((MethodSignature) joinPoint.getSignature()).getMethod());
+        if (memo == null) return joinPoint.proceed();
+
+        Object key = memo.key(joinPoint.getThis());
+        Object memoized = memo.find(key);
+        if (memoized != MethodMemo.ABSENT) return memoized;
+        Object result = joinPoint.proceed();
+        memo.put(key, result);
+        return result;
+    }
+
+    @Around("findMemoizedMethodsWithArguments()")
+    public Object memoize(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodMemo memo = findMemo(((MethodSignature) joinPoint.getSignature()).getMethod());
+        if (memo == null) return joinPoint.proceed();
+
+        Object key = memo.key(joinPoint.getThis(), joinPoint.getArgs());
+        Object memoized = memo.find(key);
+        if (memoized != MethodMemo.ABSENT) return memoized;
+        Object result = joinPoint.proceed();
+        memo.put(key, result);
+        return result;
+    }
+
+    private MethodMemo findMemo(Method method) {
+        MethodMemo memo = memos.get(method);
+        return memo != null ? memo : memos.computeIfAbsent(method, MemoizingAspect::createMemo);
+    }
+
+    private static MethodMemo createMemo(Method method) {
+        Memoized memoized = method.getAnnotation(Memoized.class);
+        return memoized == null ? null : new MethodMemo(method.getParameterTypes(), memoized);
+    }
+
+    /**
+     * Takes a snapshot of the counters of a memoized method.
+     *
+     * @param method The memoized method.
+     * @return the current statistics, or null if the method has not been called
+     */
+    public Statistics getStatistics(Method method) {
+        MethodMemo memo = memos.get(method);
+        return memo == null ? null : memo.getStatistics();
+    }
+
+    /**
+     * Removes every memoized result of every method.
+     */
+    public void clear() {
+        memos.values().forEach(MethodMemo::clear);
+    }
+
+    /**
+     * The counters of a memoized method.
+     *
+     * @param hits      The number of calls which returned a memoized result.
+     * @param misses    The number of calls which invoked the method.
+     * @param evictions The number of memoized results evicted because of the maximum size, their age, or because they
+     *                  were weakly referenced and collected.
+     * @param size      The number of results currently memoized.
+     */
+    public record Statistics(long hits, long misses, long evictions, int size) {}
+}
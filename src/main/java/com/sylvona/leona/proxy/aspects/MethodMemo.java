@@ -0,0 +1,272 @@
+package com.sylvona.leona.proxy.aspects;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The memoized results of a single {@link Memoized} method, bounded by size and optionally by age.
+ * <p>
+ * Keys are specialized by the number of arguments of the method, so that memoizing a method with up to two arguments
+ * does not copy them into an array, and primitive arguments are held unboxed. Results are evicted in insertion order
+ * once the memo exceeds its maximum size.
+ */
+final class MethodMemo {
+    /**
+     * Stands for a null result, which is memoized like any other.
+     */
+    private static final Object NULL = new Object();
+    /**
+     * Returned by {@link #find(Object)} if no result is memoized.
+     */
+    static final Object ABSENT = new Object();
+
+    private final Map<Object, Entry> entries = new ConcurrentHashMap<>();
+    /**
+     * Insertion-ordered entries, possibly including entries which were already replaced or removed.
+     */
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    /**
+     * The approximate size of {@link #insertionOrder}, whose own size is computed in linear time.
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int arity;
+    /**
+     * Whether the method has one or two arguments, all of which are primitive.
+     */
+    private final boolean primitive;
+    private final int maximumSize;
+    private final long expireAfterWriteNanos;
+    private final boolean weakValues;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    MethodMemo(Class<?>[] parameterTypes, Memoized memoized) {
+        if (memoized.maximumSize() <= 0) throw new IllegalArgumentException("maximumSize must be positive");
+        if (memoized.expireAfterWrite() < 0) throw new IllegalArgumentException("expireAfterWrite must not be negative");
+        this.arity = parameterTypes.length;
+        this.primitive = arity > 0 && arity <= 2 && Arrays.stream(parameterTypes).allMatch(Class::isPrimitive);
+        this.maximumSize = memoized.maximumSize();
+        this.expireAfterWriteNanos = memoized.timeUnit().toNanos(memoized.expireAfterWrite());
+        this.weakValues = memoized.weakValues();
+    }
+
+    /**
+     * Creates the key of a call of a method without arguments.
+     *
+     * @param instance The instance the method is called on.
+     * @return the key
+     */
+    Object key(Object instance) {
+        return new NoArguments(instance);
+    }
+
+    /**
+     * Creates the key of a call of the method.
+     *
+     * @param instance  The instance the method is called on.
+     * @param arguments The arguments of the call, not retained unless the method has more than two arguments.
+     * @return the key
+     */
+    Object key(Object instance, Object[] arguments) {
+        return switch (arity) {
+            case 0 -> new NoArguments(instance);
+            case 1 -> primitive ? new OnePrimitiveArgument(instance, bits(arguments[0])) : new OneArgument(instance, arguments[0]);
+            case 2 -> primitive ? new TwoPrimitiveArguments(instance, bits(arguments[0]), bits(arguments[1])) : new TwoArguments(instance, arguments[0], arguments[1]);
+            default -> new Arguments(instance, arguments);
+        };
+    }
+
+    /**
+     * Looks up the memoized result of a call, counting a hit or a miss.
+     *
+     * @param key The key of the call.
+     * @return the memoized result, or {@link #ABSENT} if no result is memoized
+     */
+    Object find(Object key) {
+        Entry entry = entries.get(key);
+        Object value = entry == null ? null : entry.value();
+        if (value != null && expireAfterWriteNanos > 0 && System.nanoTime() - entry.writtenAt >= expireAfterWriteNanos) value = null;
+        if (value == null) {
+            if (entry != null && entries.remove(key, entry)) evictions.increment();
+            misses.increment();
+            return ABSENT;
+        }
+        hits.increment();
+        return value == NULL ? null : value;
+    }
+
+    /**
+     * Memoizes the result of a call.
+     *
+     * @param key    The key of the call.
+     * @param result The result of the call.
+     */
+    void put(Object key, Object result) {
+        Entry entry = new Entry(key, result == null ? NULL : result, weakValues && result != null, System.nanoTime());
+        entries.put(key, entry);
+        insertionOrder.add(entry);
+        queued.incrementAndGet();
+        evictOverflow();
+    }
+
+    private void evictOverflow() {
+        while (entries.size() > maximumSize) {
+            Entry eldest = insertionOrder.poll();
+            if (eldest == null) return;
+            queued.decrementAndGet();
+            if (entries.remove(eldest.key, eldest)) evictions.increment();
+        }
+        // Entries which were replaced or expired would otherwise accumulate
+        if (queued.get() > 2 * maximumSize) {
+            insertionOrder.removeIf(entry -> entries.get(entry.key) != entry);
+            queued.set(insertionOrder.size());
+        }
+    }
+
+    /**
+     * Removes every memoized result.
+     */
+    void clear() {
+        evictions.add(entries.size());
+        entries.clear();
+        insertionOrder.clear();
+        queued.set(0);
+    }
+
+    MemoizingAspect.Statistics getStatistics() {
+        return new MemoizingAspect.Statistics(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    private static final class Entry {
+        private final Object key;
+        private final Object value;
+        private final long writtenAt;
+
+        Entry(Object key, Object value, boolean weak, long writtenAt) {
+            this.key = key;
+            this.value = weak ? new WeakValue(value) : value;
+            this.writtenAt = writtenAt;
+        }
+
+        /**
+         * Gets the memoized result.
+         *
+         * @return the result, or null if it was weakly referenced and has been collected
+         */
+        Object value() {
+            return value instanceof WeakValue weakValue ? weakValue.get() : value;
+        }
+    }
+
+    /**
+     * A weakly referenced result, distinguished from results which are themselves references.
+     */
+    private static final class WeakValue extends WeakReference<Object> {
+        WeakValue(Object referent) {
+            super(referent);
+        }
+    }
+
+    private static int hash(Object instance) {
+        return System.identityHashCode(instance);
+    }
+
+    /**
+     * Gets the bits of a boxed primitive argument, which are equal if and only if the boxes are.
+     */
+    private static long bits(Object argument) {
+        if (argument instanceof Double value) return Double.doubleToLongBits(value);
+        if (argument instanceof Float value) return Float.floatToIntBits(value);
+        if (argument instanceof Number value) return value.longValue();
+        if (argument instanceof Character value) return value;
+        return (Boolean) argument ? 1 : 0;
+    }
+
+    private static int hashArgument(Object argument) {
+        if (argument == null) return 0;
+        if (argument.getClass().isArray()) return Arrays.deepHashCode(new Object[] {argument});
+        return argument.hashCode();
+    }
+
+    private record NoArguments(Object instance) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof NoArguments other && instance == other.instance;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash(instance);
+        }
+    }
+
+    private record OneArgument(Object instance, Object argument) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof OneArgument other && instance == other.instance && Objects.deepEquals(argument, other.argument);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * hash(instance) + hashArgument(argument);
+        }
+    }
+
+    private record OnePrimitiveArgument(Object instance, long argument) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof OnePrimitiveArgument other && instance == other.instance && argument == other.argument;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * hash(instance) + Long.hashCode(argument);
+        }
+    }
+
+    private record TwoPrimitiveArguments(Object instance, long first, long second) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TwoPrimitiveArguments other && instance == other.instance && first == other.first && second == other.second;
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * hash(instance) + Long.hashCode(first)) * 31 + Long.hashCode(second);
+        }
+    }
+
+    private record TwoArguments(Object instance, Object first, Object second) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TwoArguments other && instance == other.instance && Objects.deepEquals(first, other.first)
+                    && Objects.deepEquals(second, other.second);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * hash(instance) + hashArgument(first)) * 31 + hashArgument(second);
+        }
+    }
+
+    private record Arguments(Object instance, Object[] arguments) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Arguments other && instance == other.instance && Arrays.deepEquals(arguments, other.arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * hash(instance) + Arrays.deepHashCode(arguments);
+        }
+    }
+}
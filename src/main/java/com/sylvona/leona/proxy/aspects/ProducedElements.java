@@ -0,0 +1,132 @@
+package com.sylvona.leona.proxy.aspects;
+
+import org.springframework.core.ResolvableType;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Resolves how the results of {@link ProxyProducer} methods proxying their elements ({@link ProxyProducer#proxyElements()})
+ * are proxied.
+ */
+public final class ProducedElements {
+    private ProducedElements() {}
+
+    /**
+     * Determines the class whose proxies a producer method produces: the element type of the method's declared return
+     * type if the producer proxies elements and the method returns a supported container, its return type otherwise.
+     *
+     * @param method        The producer method.
+     * @param proxyProducer The producer's annotation.
+     * @return the produced class, or null if the element type of the method's return type cannot be resolved
+     */
+    public static Class<?> resolveProducedType(Method method, ProxyProducer proxyProducer) {
+        Class<?> returnType = method.getReturnType();
+        Container container = proxyProducer.proxyElements() ? Container.of(returnType) : Container.NONE;
+        return switch (container) {
+            case NONE -> returnType;
+            case ARRAY -> returnType.getComponentType();
+            case LIST, ITERABLE -> ResolvableType.forMethodReturnType(method).as(Iterable.class).resolveGeneric(0);
+            case STREAM -> ResolvableType.forMethodReturnType(method).as(Stream.class).resolveGeneric(0);
+            case ITERATOR -> ResolvableType.forMethodReturnType(method).as(Iterator.class).resolveGeneric(0);
+        };
+    }
+
+    /**
+     * The declared return types whose elements can be proxied.
+     */
+    enum Container {
+        /**
+         * The result itself is proxied.
+         */
+        NONE,
+        /**
+         * A {@code List} or {@code Collection}, whose elements are proxied in bulk into an {@code ArrayList}.
+         */
+        LIST,
+        /**
+         * An {@code Iterable}, proxied in bulk like a {@link #LIST} if it is a collection, lazily otherwise.
+         */
+        ITERABLE,
+        /**
+         * An array of objects, whose elements are proxied in bulk into an array of the same type.
+         */
+        ARRAY,
+        /**
+         * A {@code Stream}, whose elements are proxied lazily as they are consumed.
+         */
+        STREAM,
+        /**
+         * An {@code Iterator}, whose elements are proxied lazily as they are consumed.
+         */
+        ITERATOR;
+
+        static Container of(Class<?> returnType) {
+            if (returnType == List.class || returnType == Collection.class) return LIST;
+            if (returnType == Iterable.class) return ITERABLE;
+            if (returnType.isArray() && !returnType.getComponentType().isPrimitive()) return ARRAY;
+            if (returnType == Stream.class) return STREAM;
+            if (returnType == Iterator.class) return ITERATOR;
+            return NONE;
+        }
+
+        /**
+         * Proxies the elements of a result.
+         *
+         * @param result  The non-null result of the producer method.
+         * @param proxier Proxies (or returns as is) a single element.
+         * @return a container of the proxied elements, of the declared return type
+         */
+        Object proxyElements(Object result, UnaryOperator<Object> proxier) {
+            return switch (this) {
+                case NONE -> proxier.apply(result);
+                case LIST -> proxyAll((Collection<?>) result, proxier);
+                case ITERABLE -> result instanceof Collection<?> collection ? proxyAll(collection, proxier) : proxyLazily((Iterable<?>) result, proxier);
+                case ARRAY -> proxyAll((Object[]) result, proxier);
+                case STREAM -> ((Stream<?>) result).map(proxier);
+                case ITERATOR -> proxyLazily((Iterator<?>) result, proxier);
+            };
+        }
+
+        private static List<Object> proxyAll(Collection<?> elements, UnaryOperator<Object> proxier) {
+            List<Object> proxies = new ArrayList<>(elements.size());
+            for (Object element : elements) proxies.add(proxier.apply(element));
+            return proxies;
+        }
+
+        private static Object[] proxyAll(Object[] elements, UnaryOperator<Object> proxier) {
+            Object[] proxies = (Object[]) Array.newInstance(elements.getClass().getComponentType(), elements.length);
+            for (int i = 0; i < elements.length; i++) proxies[i] = proxier.apply(elements[i]);
+            return proxies;
+        }
+
+        private static Iterable<Object> proxyLazily(Iterable<?> elements, UnaryOperator<Object> proxier) {
+            return () -> proxyLazily(elements.iterator(), proxier);
+        }
+
+        private static Iterator<Object> proxyLazily(Iterator<?> elements, UnaryOperator<Object> proxier) {
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return elements.hasNext();
+                }
+
+                @Override
+                public Object next() {
+                    return proxier.apply(elements.next());
+                }
+
+                @Override
+                public void remove() {
+                    elements.remove();
+                }
+            };
+        }
+    }
+}
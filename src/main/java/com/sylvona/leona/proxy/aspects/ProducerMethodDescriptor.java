@@ -0,0 +1,152 @@
+package com.sylvona.leona.proxy.aspects;
+
+import com.sylvona.leona.proxy.ProxyInstrumentation.ProducerOutcome;
+import org.apache.commons.lang3.reflect.MethodUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+
+/**
+ * The resolved {@link ProxyProducer} configuration of a single producer method, computed once so that
+ * {@link AspectProducerAspect} only performs field reads and a direct exclusion filter call per invocation.
+ */
+final class ProducerMethodDescriptor {
+    private static final MethodType FILTER_TYPE = MethodType.methodType(boolean.class, Object.class, Object[].class);
+
+    private final boolean producing;
+    private final boolean useFieldCopying;
+    private final boolean useCopyConstructor;
+    private final boolean bypassConstructor;
+    private final boolean delegating;
+    private final boolean alwaysExcluded;
+    /**
+     * The container whose elements are proxied, or {@link ProducedElements.Container#NONE} to proxy the results
+     * themselves.
+     */
+    private final ProducedElements.Container container;
+    /**
+     * The exclusion filter, adapted to {@code (Object producer, Object[] arguments)boolean}, or null if there is none.
+     */
+    private final MethodHandle exclusionFilter;
+    /**
+     * Memoizes whether each runtime class returned by the method is one of the producer's target types.
+     */
+    private final ClassValue<Boolean> targetTypeMatches;
+
+    private ProducerMethodDescriptor(ProxyProducer proxyProducer, ProxyProducer.ExcludeWhen excludeWhen, MethodHandle exclusionFilter, Class<?> returnType) {
+        this.producing = proxyProducer != null;
+        this.useFieldCopying = producing && proxyProducer.useFieldCopying();
+        this.useCopyConstructor = producing && proxyProducer.useCopyConstructor();
+        this.bypassConstructor = useFieldCopying && proxyProducer.bypassConstructor();
+        this.delegating = producing && proxyProducer.delegating();
+        this.alwaysExcluded = excludeWhen != null && excludeWhen.value().isEmpty();
+        this.exclusionFilter = exclusionFilter;
+        this.container = producing && proxyProducer.proxyElements() ? ProducedElements.Container.of(returnType) : ProducedElements.Container.NONE;
+
+        Class<?>[] targetTypes = producing ? proxyProducer.targetTypes() : new Class<?>[0];
+        boolean unrestricted = targetTypes.length == 0 || targetTypes[0].equals(void.class);
+        this.targetTypeMatches = new ClassValue<>() {
+            @Override
+            protected Boolean computeValue(Class<?> returningType) {
+                return unrestricted || Arrays.stream(targetTypes).anyMatch(t -> t.isAssignableFrom(returningType));
+            }
+        };
+    }
+
+    /**
+     * Resolves the descriptor of a producer method.
+     *
+     * @param method The producer method.
+     * @return the descriptor
+     * @throws IllegalStateException If the method's exclusion filter cannot be found.
+     */
+    static ProducerMethodDescriptor of(Method method) {
+        ProxyProducer proxyProducer = method.getDeclaringClass().getAnnotation(ProxyProducer.class);
+        ProxyProducer.ExcludeWhen excludeWhen = method.getAnnotation(ProxyProducer.ExcludeWhen.class);
+        MethodHandle exclusionFilter = null;
+        if (excludeWhen != null && !excludeWhen.value().isEmpty()) {
+            exclusionFilter = resolveExclusionFilter(method.getDeclaringClass(), excludeWhen.value(), method.getParameterTypes());
+        }
+        return new ProducerMethodDescriptor(proxyProducer, excludeWhen, exclusionFilter, method.getReturnType());
+    }
+
+    private static MethodHandle resolveExclusionFilter(Class<?> producerClass, String methodName, Class<?>[] parameterTypes) {
+        Method filterMethod = MethodUtils.getMatchingMethod(producerClass, methodName, parameterTypes);
+        if (filterMethod == null) {
+            throw new IllegalStateException("No exclusion filter method " + methodName + Arrays.toString(parameterTypes) + " found in " + producerClass.getName());
+        }
+
+        try {
+            ReflectionUtils.makeAccessible(filterMethod);
+            MethodHandle handle = MethodHandles.lookup().unreflect(filterMethod);
+            if (Modifier.isStatic(filterMethod.getModifiers())) handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            return handle.asSpreader(Object[].class, filterMethod.getParameterCount()).asType(FILTER_TYPE);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalStateException("Unable to bind exclusion filter method " + filterMethod, e);
+        }
+    }
+
+    /**
+     * Checks if the method's result should not be proxied.
+     *
+     * @param producer  The producer the method was invoked on.
+     * @param arguments The arguments the method was invoked with.
+     * @param result    The non-null result of the method.
+     * @return why the result should be returned as is, or null if it should be proxied
+     * @throws Throwable Any exception thrown by the exclusion filter.
+     */
+    ProducerOutcome findExclusion(Object producer, Object[] arguments, Object result) throws Throwable {
+        if (!producing || alwaysExcluded) return ProducerOutcome.EXCLUDED;
+        if (!isTargetType(result.getClass())) return ProducerOutcome.UNTARGETED_TYPE;
+        return findMethodExclusion(producer, arguments);
+    }
+
+    /**
+     * Checks if the method's result should not be proxied regardless of its type, e.g. before proxying its elements.
+     *
+     * @param producer  The producer the method was invoked on.
+     * @param arguments The arguments the method was invoked with.
+     * @return why the result should be returned as is, or null if it (or its elements) should be proxied
+     * @throws Throwable Any exception thrown by the exclusion filter.
+     */
+    ProducerOutcome findMethodExclusion(Object producer, Object[] arguments) throws Throwable {
+        if (!producing || alwaysExcluded) return ProducerOutcome.EXCLUDED;
+        return exclusionFilter != null && (boolean) exclusionFilter.invokeExact(producer, arguments) ? ProducerOutcome.EXCLUDED : null;
+    }
+
+    /**
+     * Checks if a class returned by the method (or an element class of its results) is one of the producer's target
+     * types.
+     *
+     * @param returnedType The class of the returned object.
+     * @return true if objects of the class should be proxied
+     */
+    boolean isTargetType(Class<?> returnedType) {
+        return targetTypeMatches.get(returnedType);
+    }
+
+    boolean useFieldCopying() {
+        return useFieldCopying;
+    }
+
+    boolean useCopyConstructor() {
+        return useCopyConstructor;
+    }
+
+    boolean bypassConstructor() {
+        return bypassConstructor;
+    }
+
+    boolean delegating() {
+        return delegating;
+    }
+
+    ProducedElements.Container container() {
+        return container;
+    }
+}
@@ -34,6 +34,40 @@ public @interface ProxyProducer {
      */
     boolean useCopyConstructor() default true;
 
+    /**
+     * If true (and {@link #useFieldCopying()} is enabled), proxies are allocated without invoking any constructor,
+     * relying on field copying alone to populate their state. This avoids constructing every returned object twice.
+     * <p>
+     * As no constructor runs, final fields of the proxy retain their default values.
+     * @return true if constructors should be bypassed, false otherwise
+     */
+    boolean bypassConstructor() default false;
+
+    /**
+     * If true, proxies hold a reference to the returned object and forward every method to it, running the advice of
+     * advised methods first. Creating such a proxy costs a single allocation and field write regardless of the
+     * object's size, as nothing is copied. {@link #useFieldCopying()}, {@link #useCopyConstructor()} and
+     * {@link #bypassConstructor()} are then ignored.
+     * <p>
+     * Final methods, as well as protected and package-private methods declared outside the returned object's package,
+     * cannot be forwarded and run against the proxy's own (uninitialized) state. The returned object's fields should
+     * therefore only be accessed through its methods.
+     * @return true if delegating proxies should be created, false otherwise
+     */
+    boolean delegating() default false;
+
+    /**
+     * If true, the elements of results of methods declared to return a {@code List}, {@code Collection},
+     * {@code Iterable}, {@code Stream}, {@code Iterator} or an array of objects are proxied instead of the results
+     * themselves, and {@link #targetTypes()} applies to each element.
+     * <p>
+     * Collections and arrays are proxied in bulk into a new {@code ArrayList} or array of the same type, resolving the
+     * proxy class and field copier of each element class only once. Streams, iterators and other iterables are proxied
+     * lazily, each element being proxied when it is consumed, so elements which are never read are never proxied.
+     * @return true if the elements of returned containers should be proxied, false otherwise
+     */
+    boolean proxyElements() default false;
+
     /**
      * If specified, only produces proxies for methods that return the specified type(s).
      * <b>Inheritance is taken into account</b>, thus subclasses of declared types will also be considered for return.
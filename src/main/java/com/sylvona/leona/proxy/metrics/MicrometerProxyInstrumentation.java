@@ -0,0 +1,179 @@
+package com.sylvona.leona.proxy.metrics;
+
+import com.sylvona.leona.proxy.ProxyClassCache;
+import com.sylvona.leona.proxy.ProxyClassDefiner;
+import com.sylvona.leona.proxy.ProxyInstrumentation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ProxyInstrumentation} publishing the following Micrometer meters:
+ * <ul>
+ *     <li>{@value #METHOD_TIMER}, timing advised method invocations, tagged by {@code class}, {@code method} and
+ *     {@code outcome}.</li>
+ *     <li>{@value #ADVICE_TIMER}, timing advice invocations, additionally tagged by {@code aspect} and
+ *     {@code advice}.</li>
+ *     <li>{@value #PRODUCER_COUNTER}, counting the values returned by
+ *     {@link com.sylvona.leona.proxy.aspects.ProxyProducer} methods, tagged by {@code class}, {@code method} and
+ *     {@code outcome}.</li>
+ *     <li>{@value #CACHED_CLASSES_GAUGE}, {@value #DEFINED_CLASSES_COUNTER}, {@value #DEFINED_BYTES_COUNTER} and
+ *     {@value #EVICTED_CLASSES_COUNTER}, describing the proxy classes of the bound proxy machine, and
+ *     {@value #METASPACE_GAUGE}, the JVM's metaspace usage.</li>
+ * </ul>
+ * Only a random sample of invocations is timed, so the count of each timer is the number of sampled invocations
+ * rather than the total number of invocations.
+ * <p>
+ * Closing the instrumentation removes the meters describing proxy classes, which would otherwise keep reporting the
+ * classes of a closed application context.
+ */
+public class MicrometerProxyInstrumentation implements ProxyInstrumentation, AutoCloseable {
+    /**
+     * The name of the timer of advised method invocations.
+     */
+    public static final String METHOD_TIMER = "leona.proxy.method.invocations";
+    /**
+     * The name of the timer of advice invocations.
+     */
+    public static final String ADVICE_TIMER = "leona.proxy.advice.invocations";
+    /**
+     * The name of the counter of values returned by producer methods.
+     */
+    public static final String PRODUCER_COUNTER = "leona.proxy.producer.results";
+    /**
+     * The name of the gauge of currently cached proxy classes.
+     */
+    public static final String CACHED_CLASSES_GAUGE = "leona.proxy.classes.cached";
+    /**
+     * The name of the counter of defined proxy classes, including their auxiliary types.
+     */
+    public static final String DEFINED_CLASSES_COUNTER = "leona.proxy.classes.defined";
+    /**
+     * The name of the counter of the bytes of defined proxy classes.
+     */
+    public static final String DEFINED_BYTES_COUNTER = "leona.proxy.classes.defined.bytes";
+    /**
+     * The name of the counter of proxy classes evicted from the cache.
+     */
+    public static final String EVICTED_CLASSES_COUNTER = "leona.proxy.classes.evicted";
+    /**
+     * The name of the gauge of the JVM's metaspace usage.
+     */
+    public static final String METASPACE_GAUGE = "leona.proxy.metaspace.used";
+
+    private static final ProducerOutcome[] PRODUCER_OUTCOMES = ProducerOutcome.values();
+
+    private final MeterRegistry meterRegistry;
+    private final double sampleRate;
+    /**
+     * The counters of each producer method, indexed by {@link ProducerOutcome#ordinal()}.
+     */
+    private final Map<Method, Counter[]> producerCounters = new ConcurrentHashMap<>();
+    private final List<Meter> proxyClassMeters = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates an instrumentation publishing to a meter registry.
+     *
+     * @param meterRegistry The registry of the published meters.
+     * @param sampleRate    The fraction of invocations which are timed, greater than 0 and at most 1.
+     */
+    public MicrometerProxyInstrumentation(MeterRegistry meterRegistry, double sampleRate) {
+        if (!(sampleRate > 0 && sampleRate <= 1)) throw new IllegalArgumentException("sampleRate must be greater than 0 and at most 1");
+        this.meterRegistry = meterRegistry;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public InvocationRecorder methodRecorder(Method method) {
+        return createRecorder(METHOD_TIMER, methodTags(method));
+    }
+
+    @Override
+    public InvocationRecorder adviceRecorder(Method method, AbstractAspectJAdvice advice) {
+        Tags tags = methodTags(method).and("aspect", advice.getAspectName(), "advice", advice.getAspectJAdviceMethod().getName());
+        return createRecorder(ADVICE_TIMER, tags);
+    }
+
+    @Override
+    public void producerOutcome(Method producerMethod, ProducerOutcome outcome) {
+        Counter[] counters = producerCounters.get(producerMethod);
+        if (counters == null) counters = producerCounters.computeIfAbsent(producerMethod, this::createProducerCounters);
+        counters[outcome.ordinal()].increment();
+    }
+
+    @Override
+    public void bindProxyClasses(ProxyClassCache proxyClassCache, ProxyClassDefiner proxyClassDefiner) {
+        // Meters only weakly reference the cache and definer, which are kept reachable by their proxy machine
+        proxyClassMeters.add(Gauge.builder(CACHED_CLASSES_GAUGE, proxyClassCache, ProxyClassCache::size)
+                .description("Proxy classes currently cached")
+                .register(meterRegistry));
+        proxyClassMeters.add(FunctionCounter.builder(EVICTED_CLASSES_COUNTER, proxyClassCache, cache -> cache.getStatistics().evictions())
+                .description("Proxy classes released from the cache")
+                .register(meterRegistry));
+        proxyClassMeters.add(FunctionCounter.builder(DEFINED_CLASSES_COUNTER, proxyClassDefiner, definer -> definer.getStatistics().definedClasses())
+                .description("Proxy classes defined at runtime, including their auxiliary types")
+                .register(meterRegistry));
+        proxyClassMeters.add(FunctionCounter.builder(DEFINED_BYTES_COUNTER, proxyClassDefiner, definer -> definer.getStatistics().definedBytes())
+                .description("Size of the proxy classes defined at runtime")
+                .baseUnit("bytes")
+                .register(meterRegistry));
+        proxyClassMeters.add(Gauge.builder(METASPACE_GAUGE, ProxyClassDefiner::metaspaceUsed)
+                .description("Metaspace used by the JVM, including the metadata of proxy classes")
+                .baseUnit("bytes")
+                .register(meterRegistry));
+    }
+
+    @Override
+    public void close() {
+        for (Meter meter : proxyClassMeters) meterRegistry.remove(meter);
+        proxyClassMeters.clear();
+    }
+
+    private Counter[] createProducerCounters(Method producerMethod) {
+        Counter[] counters = new Counter[PRODUCER_OUTCOMES.length];
+        for (ProducerOutcome outcome : PRODUCER_OUTCOMES) {
+            counters[outcome.ordinal()] = Counter.builder(PRODUCER_COUNTER)
+                    .description("Values returned by proxy producer methods")
+                    .tags(methodTags(producerMethod))
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT).replace('_', '-'))
+                    .register(meterRegistry);
+        }
+        return counters;
+    }
+
+    private InvocationRecorder createRecorder(String name, Tags tags) {
+        Timer success = Timer.builder(name).tags(tags).tag("outcome", "success").register(meterRegistry);
+        Timer error = Timer.builder(name).tags(tags).tag("outcome", "error").register(meterRegistry);
+        return new SampledTimerRecorder(success, error, sampleRate);
+    }
+
+    private static Tags methodTags(Method method) {
+        return Tags.of("class", method.getDeclaringClass().getName(), "method", method.getName());
+    }
+
+    private record SampledTimerRecorder(Timer success, Timer error, double sampleRate) implements InvocationRecorder {
+        @Override
+        public boolean sample() {
+            return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+        }
+
+        @Override
+        public void record(long durationNanos, Throwable failure) {
+            (failure == null ? success : error).record(durationNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package com.sylvona.leona.proxy;
+
+import com.sylvona.leona.proxy.aspects.AspectBeanRegistry;
+import com.sylvona.leona.proxy.aspects.LeonaAspectAutoConfiguration;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.implementation.FixedValue;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+import org.springframework.aop.aspectj.AspectJAroundAdvice;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.aspectj.SimpleAspectInstanceFactory;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Runs advice copied into proxy methods of every return kind, and checks why advice which cannot be copied is
+ * delegated instead.
+ */
+class AdviceInlinerTest {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(LeonaAspectAutoConfiguration.class))
+            .withUserConfiguration(InlinedAspect.class, RejectedAspect.class)
+            .withPropertyValues("leona.proxy.weaving=INLINE");
+
+    @BeforeEach
+    void resetProbe() {
+        Probe.caller = null;
+        Probe.finished = 0;
+    }
+
+    @Test
+    void inlinesAdviceOfEveryReturnKind() {
+        contextRunner.run(context -> {
+            Calculator calculator = createProxy(context.getBean(CachingBeanProxyMachine.class), context.getBean(AspectBeanRegistry.class), new Calculator());
+
+            assertThat(calculator.describe("value")).isEqualTo("<value>");
+            assertInlined(calculator);
+            assertThat(calculator.twice(20)).isEqualTo(41);
+            assertInlined(calculator);
+            // Wide parameters shift the advice's local variables by two slots each
+            assertThat(calculator.widen(3L, 4.0)).isEqualTo(-7L);
+            assertInlined(calculator);
+            assertThat(calculator.half(5.0)).isEqualTo(2.5);
+            assertInlined(calculator);
+            calculator.touch();
+            assertThat(calculator.touched).isTrue();
+            assertInlined(calculator);
+        });
+    }
+
+    @Test
+    void inlinesExceptionHandlingAdvice() {
+        contextRunner.run(context -> {
+            Calculator calculator = createProxy(context.getBean(CachingBeanProxyMachine.class), context.getBean(AspectBeanRegistry.class), new Calculator());
+
+            assertThat(calculator.check("ok")).isEqualTo("ok");
+            assertThat(Probe.finished).isEqualTo(1);
+            assertThat(calculator.check("")).isEqualTo("caught empty");
+            assertThat(Probe.finished).isEqualTo(2);
+            assertThatIllegalStateException().isThrownBy(() -> calculator.check(null)).withMessage("null");
+            assertThat(Probe.finished).isEqualTo(3);
+            assertInlined(calculator);
+        });
+    }
+
+    @Test
+    void inlinesJoinPointAccessors() {
+        contextRunner.run(context -> {
+            Calculator calculator = createProxy(context.getBean(CachingBeanProxyMachine.class), context.getBean(AspectBeanRegistry.class), new Calculator());
+
+            assertThat(calculator.named()).isEqualTo("named:" + calculator.getClass().getSimpleName() + "=result");
+            assertInlined(calculator);
+        });
+    }
+
+    @Test
+    void delegatesAdviceWhichCannotBeInlined() {
+        contextRunner.run(context -> {
+            AspectBeanRegistry registry = context.getBean(AspectBeanRegistry.class);
+            Map<String, AbstractAspectJAdvice> advices = registry.getAdvisorsForClass(Rejected.class).stream()
+                    .map(advisor -> (AbstractAspectJAdvice) advisor.getAdvice())
+                    .collect(Collectors.toMap(advice -> advice.getAspectJAdviceMethod().getName(), advice -> advice));
+
+            assertThat(findRejection(Rejected.class, "before", advices.get("before"))).isEqualTo("its advice is not an around advice");
+            assertThat(findRejection(Rejected.class, "wrongSignature", advices.get("wrongSignature")))
+                    .isEqualTo("its advice is not declared as Object wrongSignature(ProceedingJoinPoint)");
+            assertThat(findRejection(Rejected.class, "runtimeTest", advices.get("runtimeTest"), Object.class))
+                    .isEqualTo("its pointcut is tested against the arguments or objects of each call");
+            assertThat(findRejection(Rejected.class, "aspectInstance", advices.get("aspectInstance"))).isEqualTo("its advice uses its aspect instance");
+            assertThat(findRejection(Rejected.class, "reassigned", advices.get("reassigned"))).isEqualTo("its advice reassigns its join point");
+            assertThat(findRejection(Rejected.class, "passedOn", advices.get("passedOn")))
+                    .isEqualTo("its advice passes its join point on, or proceeds with other arguments");
+            assertThat(findRejection(Rejected.class, "arguments", advices.get("arguments"))).isEqualTo("its advice uses JoinPoint.getArgs");
+            assertThat(findRejection(Rejected.class, "proceedsTwice", advices.get("proceedsTwice"))).isEqualTo("its advice proceeds 2 times");
+            assertThat(findRejection(Rejected.class, "lambda", advices.get("lambda"))).isEqualTo("its advice uses invokedynamic, e.g. to create a lambda");
+            assertThat(findRejection(Rejected.class, "nonPublicType", advices.get("nonPublicType")))
+                    .isEqualTo("its advice references %s, which is not public".formatted(Secret.class.getName()));
+            assertThat(findRejection(Rejected.class, "nonPublicField", advices.get("nonPublicField")))
+                    .isEqualTo("its advice accesses %s.calls, which is not public".formatted(Probe.class.getName()));
+            assertThat(findRejection(Rejected.class, "nonPublicMethod", advices.get("nonPublicMethod")))
+                    .isEqualTo("its advice calls %s.count, which is not public".formatted(Probe.class.getName()));
+
+            AbstractAspectJAdvice around = advices.get("proceedsTwice");
+            ProxyClassPlan.AdvisedMethod twiceAdvised = new ProxyClassPlan.AdvisedMethod(Rejected.class.getMethod("proceedsTwice"), List.of(around, around), true, false);
+            assertThat(AdviceInliner.findRejection(twiceAdvised, Rejected.class)).isEqualTo("it has 2 advices");
+            ProxyClassPlan.AdvisedMethod interfaceMethod = new ProxyClassPlan.AdvisedMethod(Supplier.class.getMethod("get"), List.of(around), true, false);
+            assertThat(AdviceInliner.findRejection(interfaceMethod, Rejected.class)).isEqualTo("it is declared by an interface");
+        });
+    }
+
+    @Test
+    void delegatesAdviceWhoseBytecodeCannotBeRead() throws Exception {
+        // The class file of a class loaded by a latent wrapper is discarded once it is defined
+        Class<?> generatedAspect = new ByteBuddy().subclass(Object.class)
+                .name(AdviceInlinerTest.class.getName() + "$GeneratedAspect")
+                .defineMethod("advise", Object.class, Visibility.PUBLIC).withParameters(ProceedingJoinPoint.class)
+                .intercept(FixedValue.nullValue())
+                .make()
+                .load(AdviceInlinerTest.class.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+                .getLoaded();
+
+        AbstractAspectJAdvice advice = createAroundAdvice(generatedAspect, "execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Rejected.unreadable())");
+
+        assertThat(findRejection(Rejected.class, "unreadable", advice)).isEqualTo("the bytecode of its advice cannot be read");
+    }
+
+    @Test
+    void delegatesAdviceReferencingClassesTheProxiedClassCannotSee() throws Exception {
+        // The aspect is defined again by a class loader of its own, which the proxied class cannot see
+        String aspectName = IsolatedAspect.class.getName();
+        byte[] aspectBytes = ClassFileLocator.ForClassLoader.read(IsolatedAspect.class);
+        ClassLoader isolatingClassLoader = new ClassLoader(AdviceInlinerTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                if (!name.equals(aspectName)) return super.loadClass(name, resolve);
+                synchronized (getClassLoadingLock(name)) {
+                    Class<?> loaded = findLoadedClass(name);
+                    return loaded != null ? loaded : defineClass(name, aspectBytes, 0, aspectBytes.length);
+                }
+            }
+        };
+        Class<?> isolatedAspect = isolatingClassLoader.loadClass(aspectName);
+        assertThat(isolatedAspect).isNotSameAs(IsolatedAspect.class);
+
+        AbstractAspectJAdvice advice = createAroundAdvice(isolatedAspect, "execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Rejected.isolated())");
+
+        assertThat(findRejection(Rejected.class, "isolated", advice))
+                .isEqualTo("its advice references %s, which is not visible to the proxied class".formatted(aspectName));
+    }
+
+    private static Calculator createProxy(CachingBeanProxyMachine proxyMachine, AspectBeanRegistry registry, Calculator calculator) throws Exception {
+        List<Advisor> advisors = registry.getAdvisorsForClass(Calculator.class);
+        return (Calculator) proxyMachine.create(calculator, advisors, false, false);
+    }
+
+    /**
+     * Inlined advice runs in the proxy method itself, while delegated advice runs in its aspect.
+     */
+    private static void assertInlined(Calculator calculator) {
+        assertThat(Probe.caller).isSameAs(calculator.getClass());
+        Probe.caller = null;
+    }
+
+    private static String findRejection(Class<?> sourceClass, String methodName, AbstractAspectJAdvice advice, Class<?>... parameterTypes) throws NoSuchMethodException {
+        Method method = sourceClass.getMethod(methodName, parameterTypes);
+        return AdviceInliner.findRejection(new ProxyClassPlan.AdvisedMethod(method, List.of(advice), true, false), sourceClass);
+    }
+
+    private static AbstractAspectJAdvice createAroundAdvice(Class<?> aspectClass, String expression) throws NoSuchMethodException {
+        AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+        pointcut.setExpression(expression);
+        Method adviceMethod = aspectClass.getMethod("advise", ProceedingJoinPoint.class);
+        return new AspectJAroundAdvice(adviceMethod, pointcut, new SimpleAspectInstanceFactory(aspectClass));
+    }
+
+    /**
+     * Records the class running the advice. Inlined advice may only reference public classes and members.
+     */
+    public static class Probe {
+        public static volatile Class<?> caller;
+        public static int finished;
+        static int calls;
+
+        public static void record() {
+            caller = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE).getCallerClass();
+        }
+
+        static void count() {
+            calls++;
+        }
+    }
+
+    @Aspect
+    static class InlinedAspect {
+        @Around("execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Calculator.describe(..))")
+        public Object describe(ProceedingJoinPoint joinPoint) throws Throwable {
+            Probe.record();
+            return "<" + joinPoint.proceed() + ">";
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Calculator.twice(..))")
+        public Object twice(ProceedingJoinPoint joinPoint) throws Throwable {
+            Probe.record();
+            return (Integer) joinPoint.proceed() + 1;
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Calculator.widen(..))")
+        public Object widen(ProceedingJoinPoint joinPoint) throws Throwable {
+            long offset = 0;
+            Probe.record();
+            Object result = joinPoint.proceed();
+            return -((Long) result + offset);
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Calculator.half(..))")
+        public Object half(ProceedingJoinPoint joinPoint) throws Throwable {
+            Probe.record();
+            return joinPoint.proceed();
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Calculator.touch())")
+        public Object touch(ProceedingJoinPoint joinPoint) throws Throwable {
+            Probe.record();
+            return joinPoint.proceed();
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Calculator.check(..))")
+        public Object check(ProceedingJoinPoint joinPoint) throws Throwable {
+            Probe.record();
+            try {
+                return joinPoint.proceed();
+            } catch (IllegalArgumentException e) {
+                return "caught " + e.getMessage();
+            } finally {
+                Probe.finished++;
+            }
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Calculator.named())")
+        public Object named(ProceedingJoinPoint joinPoint) throws Throwable {
+            Probe.record();
+            return joinPoint.getSignature().getName() + ":" + joinPoint.getThis().getClass().getSimpleName() + "=" + joinPoint.proceed();
+        }
+    }
+
+    public static class Calculator {
+        public boolean touched;
+
+        public String describe(String value) {
+            return value;
+        }
+
+        public int twice(int value) {
+            return value * 2;
+        }
+
+        public long widen(long value, double factor) {
+            return (long) (value + factor);
+        }
+
+        public double half(double value) {
+            return value / 2;
+        }
+
+        public void touch() {
+            touched = true;
+        }
+
+        public String check(String value) {
+            if (value == null) throw new IllegalStateException("null");
+            if (value.isEmpty()) throw new IllegalArgumentException("empty");
+            return value;
+        }
+
+        public String named() {
+            return "result";
+        }
+    }
+
+    static class Secret {
+        public static String reveal() {
+            return "secret";
+        }
+    }
+
+    @Aspect
+    static class RejectedAspect {
+        private int calls;
+
+        @Before("execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Rejected.before())")
+        public void before(JoinPoint joinPoint) {}
+
+        @Around("execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Rejected.wrongSignature())")
+        public String wrongSignature(ProceedingJoinPoint joinPoint) throws Throwable {
+            return String.valueOf(joinPoint.proceed());
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Rejected.runtimeTest(..)) && args(java.lang.Long)")
+        public Object runtimeTest(ProceedingJoinPoint joinPoint) throws Throwable {
+            return joinPoint.proceed();
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Rejected.aspectInstance())")
+        public Object aspectInstance(ProceedingJoinPoint joinPoint) throws Throwable {
+            calls++;
+            return joinPoint.proceed();
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Rejected.reassigned())")
+        public Object reassigned(ProceedingJoinPoint joinPoint) throws Throwable {
+            Object result = joinPoint.proceed();
+            joinPoint = null;
+            return result;
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Rejected.passedOn())")
+        public Object passedOn(ProceedingJoinPoint joinPoint) throws Throwable {
+            return joinPoint.proceed(joinPoint.getArgs());
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Rejected.arguments())")
+        public Object arguments(ProceedingJoinPoint joinPoint) throws Throwable {
+            Object[] arguments = joinPoint.getArgs();
+            return arguments.length + ":" + joinPoint.proceed();
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Rejected.proceedsTwice())")
+        public Object proceedsTwice(ProceedingJoinPoint joinPoint) throws Throwable {
+            joinPoint.proceed();
+            return joinPoint.proceed();
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Rejected.lambda())")
+        public Object lambda(ProceedingJoinPoint joinPoint) throws Throwable {
+            Supplier<String> prefix = () -> "lambda:";
+            return prefix.get() + joinPoint.proceed();
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Rejected.nonPublicType())")
+        public Object nonPublicType(ProceedingJoinPoint joinPoint) throws Throwable {
+            return Secret.reveal() + joinPoint.proceed();
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Rejected.nonPublicField())")
+        public Object nonPublicField(ProceedingJoinPoint joinPoint) throws Throwable {
+            return Probe.calls + ":" + joinPoint.proceed();
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.AdviceInlinerTest.Rejected.nonPublicMethod())")
+        public Object nonPublicMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+            Probe.count();
+            return joinPoint.proceed();
+        }
+    }
+
+    /**
+     * Only ever loaded by a separate class loader, its advice references its own class.
+     */
+    public static class IsolatedAspect {
+        public static final Object MARKER = new Object();
+
+        public Object advise(ProceedingJoinPoint joinPoint) throws Throwable {
+            return MARKER == null ? null : joinPoint.proceed();
+        }
+    }
+
+    public static class Rejected {
+        public void before() {}
+
+        public String wrongSignature() {
+            return "wrongSignature";
+        }
+
+        public Object runtimeTest(Object value) {
+            return value;
+        }
+
+        public String aspectInstance() {
+            return "aspectInstance";
+        }
+
+        public String reassigned() {
+            return "reassigned";
+        }
+
+        public String passedOn() {
+            return "passedOn";
+        }
+
+        public String arguments() {
+            return "arguments";
+        }
+
+        public String proceedsTwice() {
+            return "proceedsTwice";
+        }
+
+        public String lambda() {
+            return "lambda";
+        }
+
+        public String nonPublicType() {
+            return "nonPublicType";
+        }
+
+        public String nonPublicField() {
+            return "nonPublicField";
+        }
+
+        public String nonPublicMethod() {
+            return "nonPublicMethod";
+        }
+
+        public String unreadable() {
+            return "unreadable";
+        }
+
+        public String isolated() {
+            return "isolated";
+        }
+    }
+}
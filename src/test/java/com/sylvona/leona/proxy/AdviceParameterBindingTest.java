@@ -0,0 +1,144 @@
+package com.sylvona.leona.proxy;
+
+import com.sylvona.leona.proxy.aspects.AspectAware;
+import com.sylvona.leona.proxy.aspects.LeonaAspectAutoConfiguration;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Advice binding pointcut parameters cannot be bound to a direct invoker, and must still apply.
+ */
+class AdviceParameterBindingTest {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(LeonaAspectAutoConfiguration.class))
+            .withUserConfiguration(BindingAspect.class, AccountService.class);
+
+    @Test
+    void adviceBindingAnnotationIsApplied() {
+        contextRunner.run(context -> {
+            AccountService service = context.getBean(AccountService.class);
+            assertThat(service).isInstanceOf(LeonaProxy.class);
+            assertThat(service.describe(7L)).isEqualTo("audited(accounts):account-7");
+        });
+    }
+
+    @Test
+    void adviceBindingArgumentsIsApplied() {
+        contextRunner.run(context -> {
+            AccountService service = context.getBean(AccountService.class);
+            BindingAspect aspect = context.getBean(BindingAspect.class);
+
+            assertThat(service.rename(3L, "savings")).isEqualTo("SAVINGS");
+            assertThat(aspect.events).containsExactly("before:3", "returned:3=SAVINGS");
+        });
+    }
+
+    @Test
+    void adviceProceedingWithBoundArgumentsProceedsWithTheRestOfTheChain() {
+        contextRunner.run(context -> {
+            AccountService service = context.getBean(AccountService.class);
+            // The around advice proceeds with replaced arguments, the after-returning advice then sees the new result
+            assertThat(service.rename(-1L, "closed")).isEqualTo("CLOSED-1");
+        });
+    }
+
+    @Test
+    void adviceWhoseRuntimeTestFailsIsSkipped() {
+        contextRunner.run(context -> {
+            AccountService service = context.getBean(AccountService.class);
+            BindingAspect aspect = context.getBean(BindingAspect.class);
+
+            assertThat(service.lookup("plain")).isEqualTo("plain");
+            assertThat(service.lookup(42)).isEqualTo("integer:42");
+            assertThat(aspect.events).containsExactly("lookup:42");
+        });
+    }
+
+    @Test
+    void adviceWithoutParametersWhoseRuntimeTestFailsIsSkipped() {
+        contextRunner.run(context -> {
+            AccountService service = context.getBean(AccountService.class);
+            // The pointcut statically matches find(Object), only calls passing a Long are advised
+            assertThat(service.find(5L)).isEqualTo("long(5)");
+            assertThat(service.find("plain")).isEqualTo("plain");
+            assertThat(service.find(5)).isEqualTo("5");
+        });
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.METHOD)
+    @interface Audited {
+        String value();
+    }
+
+    @Aspect
+    static class BindingAspect {
+        final List<String> events = new CopyOnWriteArrayList<>();
+
+        @Around("@annotation(audited)")
+        public Object audit(ProceedingJoinPoint joinPoint, Audited audited) throws Throwable {
+            return "audited(" + audited.value() + "):" + joinPoint.proceed();
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.AdviceParameterBindingTest.AccountService.rename(..)) && args(id, name)")
+        public Object closeNegative(ProceedingJoinPoint joinPoint, long id, String name) throws Throwable {
+            if (id >= 0) return joinPoint.proceed();
+            return joinPoint.proceed(new Object[] {-id, name + "-"});
+        }
+
+        @Before("execution(* com.sylvona.leona.proxy.AdviceParameterBindingTest.AccountService.rename(..)) && args(id, ..)")
+        public void beforeRename(long id) {
+            if (id >= 0) events.add("before:" + id);
+        }
+
+        @AfterReturning(pointcut = "execution(* com.sylvona.leona.proxy.AdviceParameterBindingTest.AccountService.rename(..)) && args(id, ..)", returning = "result")
+        public void afterRename(long id, String result) {
+            if (id >= 0) events.add("returned:" + id + "=" + result);
+        }
+
+        @Before("execution(* com.sylvona.leona.proxy.AdviceParameterBindingTest.AccountService.lookup(..)) && args(key)")
+        public void beforeLookup(Integer key) {
+            events.add("lookup:" + key);
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.AdviceParameterBindingTest.AccountService.find(..)) && args(java.lang.Long)")
+        public Object findLong(ProceedingJoinPoint joinPoint) throws Throwable {
+            return "long(" + joinPoint.proceed() + ")";
+        }
+    }
+
+    @AspectAware(BindingAspect.class)
+    static class AccountService {
+        @Audited("accounts")
+        public String describe(long id) {
+            return "account-" + id;
+        }
+
+        public String rename(long id, String name) {
+            return name.toUpperCase() + (id == 1 ? "1" : "");
+        }
+
+        public String lookup(Object key) {
+            return key instanceof Integer ? "integer:" + key : key.toString();
+        }
+
+        public String find(Object key) {
+            return key.toString();
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.sylvona.leona.proxy;
+
+import com.sylvona.leona.proxy.aspects.AspectAware;
+import com.sylvona.leona.proxy.aspects.BlockingAdvice;
+import com.sylvona.leona.proxy.aspects.LeonaAspectAutoConfiguration;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.After;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs after advice of methods returning asynchronous values once the values complete, and offloads blocking advice,
+ * with asynchronous advice execution enabled.
+ */
+class AsyncAdviceTest {
+    private static final List<String> EVENTS = new CopyOnWriteArrayList<>();
+    private static volatile CountDownLatch release;
+
+    private final ExecutorService blockingAdviceExecutor = Executors.newCachedThreadPool(new CustomizableThreadFactory("blocking-advice-"));
+    private final ApplicationContextRunner synchronousContextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(LeonaAspectAutoConfiguration.class))
+            .withUserConfiguration(CompletionAspect.class, BlockingAspect.class, Service.class, BlockingService.class);
+    private final ApplicationContextRunner contextRunner = synchronousContextRunner
+            .withBean(AsyncAdviceExecution.class, () -> AsyncAdviceExecution.withExecutor(blockingAdviceExecutor));
+
+    @BeforeEach
+    void resetEvents() {
+        EVENTS.clear();
+        release = new CountDownLatch(0);
+    }
+
+    @AfterEach
+    void shutDownExecutor() {
+        blockingAdviceExecutor.shutdownNow();
+    }
+
+    @Test
+    void completableFutureAdviceRunsOnceCompleted() {
+        contextRunner.run(context -> {
+            Service service = context.getBean(Service.class);
+
+            CompletableFuture<String> succeeding = new CompletableFuture<>();
+            CompletableFuture<String> result = service.future(succeeding);
+            assertThat(EVENTS).isEmpty();
+            succeeding.complete("value");
+            assertThat(result.get()).isEqualTo("value");
+            assertThat(EVENTS).containsExactlyInAnyOrder("returned value", "after");
+
+            EVENTS.clear();
+            CompletableFuture<String> failing = new CompletableFuture<>();
+            result = service.future(failing);
+            assertThat(EVENTS).isEmpty();
+            failing.completeExceptionally(new IllegalStateException("failure"));
+            assertThatThrownBy(result::get).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(IllegalStateException.class);
+            // The failure is unwrapped from the CompletionException of the dependent stage
+            assertThat(EVENTS).containsExactlyInAnyOrder("threw IllegalStateException", "after");
+
+            EVENTS.clear();
+            CompletableFuture<String> cancelled = new CompletableFuture<>();
+            result = service.future(cancelled);
+            cancelled.cancel(false);
+            assertThat(result).isCompletedExceptionally();
+            assertThat(EVENTS).containsExactlyInAnyOrder("threw CancellationException", "after");
+        });
+    }
+
+    @Test
+    void monoAdviceRunsOnceSubscribedAndCompleted() {
+        contextRunner.run(context -> {
+            Service service = context.getBean(Service.class);
+
+            Mono<String> result = service.mono(Mono.fromSupplier(() -> "value"));
+            assertThat(EVENTS).isEmpty();
+            assertThat(result.block()).isEqualTo("value");
+            assertThat(EVENTS).containsExactlyInAnyOrder("returned value", "after");
+
+            EVENTS.clear();
+            assertThat(service.mono(Mono.empty()).block()).isNull();
+            assertThat(EVENTS).containsExactlyInAnyOrder("returned null", "after");
+
+            EVENTS.clear();
+            result = service.mono(Mono.error(new IllegalStateException("failure")));
+            assertThat(EVENTS).isEmpty();
+            assertThatThrownBy(result::block).isInstanceOf(IllegalStateException.class);
+            assertThat(EVENTS).containsExactlyInAnyOrder("threw IllegalStateException", "after");
+
+            EVENTS.clear();
+            Disposable subscription = service.mono(Mono.never()).subscribe();
+            assertThat(EVENTS).isEmpty();
+            subscription.dispose();
+            // Neither returned nor threw, but terminated
+            assertThat(EVENTS).containsExactly("after");
+        });
+    }
+
+    @Test
+    void fluxAdviceRunsOnceSubscribedAndCompleted() {
+        contextRunner.run(context -> {
+            Service service = context.getBean(Service.class);
+
+            Flux<String> result = service.flux(Flux.just("first", "second"));
+            assertThat(EVENTS).isEmpty();
+            assertThat(result.collectList().block()).containsExactly("first", "second");
+            // Multi-valued results complete without a value
+            assertThat(EVENTS).containsExactlyInAnyOrder("returned null", "after");
+
+            EVENTS.clear();
+            Flux<String> failing = service.flux(Flux.concat(Flux.just("first"), Flux.error(new IllegalStateException("failure"))));
+            assertThatThrownBy(() -> failing.collectList().block()).isInstanceOf(IllegalStateException.class);
+            assertThat(EVENTS).containsExactlyInAnyOrder("threw IllegalStateException", "after");
+
+            EVENTS.clear();
+            Disposable subscription = service.flux(Flux.never()).subscribe();
+            subscription.dispose();
+            assertThat(EVENTS).containsExactly("after");
+        });
+    }
+
+    @Test
+    void nullAsynchronousResultCompletesImmediately() {
+        contextRunner.run(context -> {
+            Service service = context.getBean(Service.class);
+
+            assertThat(service.future(null)).isNull();
+            assertThat(EVENTS).containsExactlyInAnyOrder("returned null", "after");
+
+            EVENTS.clear();
+            assertThat(service.mono(null)).isNull();
+            assertThat(EVENTS).containsExactlyInAnyOrder("returned null", "after");
+
+            EVENTS.clear();
+            assertThat(service.flux(null)).isNull();
+            assertThat(EVENTS).containsExactlyInAnyOrder("returned null", "after");
+        });
+    }
+
+    @Test
+    void exceptionThrownBeforeReturningRunsAdviceImmediately() {
+        contextRunner.run(context -> {
+            Service service = context.getBean(Service.class);
+
+            assertThatThrownBy(service::failFuture).isInstanceOf(IllegalStateException.class);
+            assertThat(EVENTS).containsExactlyInAnyOrder("threw IllegalStateException", "after");
+        });
+    }
+
+    @Test
+    void blockingAdviceRunsOnExecutor() {
+        contextRunner.run(context -> {
+            BlockingService service = context.getBean(BlockingService.class);
+            release = new CountDownLatch(1);
+
+            // The caller does not wait for the blocking advice
+            CompletableFuture<String> result = service.future("value");
+            assertThat(result).isNotDone();
+            release.countDown();
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+            assertThat(EVENTS).hasSize(2).allMatch(event -> event.contains(" on blocking-advice-"));
+
+            EVENTS.clear();
+            assertThat(service.future(null).get(5, TimeUnit.SECONDS)).isNull();
+
+            EVENTS.clear();
+            assertThatThrownBy(() -> service.failFuture().get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(IllegalStateException.class);
+        });
+    }
+
+    @Test
+    void blockingAdviceOfReactorResultsRunsOnExecutorOnceSubscribed() {
+        contextRunner.run(context -> {
+            BlockingService service = context.getBean(BlockingService.class);
+
+            Mono<String> mono = service.mono("value");
+            assertThat(EVENTS).isEmpty();
+            assertThat(mono.block()).isEqualTo("value");
+            assertThat(EVENTS).hasSize(2).allMatch(event -> event.contains(" on blocking-advice-"));
+
+            EVENTS.clear();
+            Flux<String> flux = service.flux("first", "second");
+            assertThat(EVENTS).isEmpty();
+            assertThat(flux.collectList().block()).containsExactly("first", "second");
+            assertThat(EVENTS).hasSize(2).allMatch(event -> event.contains(" on blocking-advice-"));
+
+            EVENTS.clear();
+            assertThatThrownBy(() -> service.failMono().block()).isInstanceOf(IllegalStateException.class);
+        });
+    }
+
+    @Test
+    void blockingAdviceRunsOnCallerWhenDisabled() {
+        synchronousContextRunner.run(context -> {
+            BlockingService service = context.getBean(BlockingService.class);
+            String caller = Thread.currentThread().getName();
+
+            assertThat(service.future("value")).isCompletedWithValue("value");
+            assertThat(EVENTS).containsExactly("advice on " + caller, "method on " + caller);
+        });
+    }
+
+    @Aspect
+    static class CompletionAspect {
+        @AfterReturning(pointcut = "execution(* com.sylvona.leona.proxy.AsyncAdviceTest.Service.*(..))", returning = "value")
+        public void returned(Object value) {
+            EVENTS.add("returned " + value);
+        }
+
+        @AfterThrowing(pointcut = "execution(* com.sylvona.leona.proxy.AsyncAdviceTest.Service.*(..))", throwing = "failure")
+        public void threw(Throwable failure) {
+            EVENTS.add("threw " + failure.getClass().getSimpleName());
+        }
+
+        @After("execution(* com.sylvona.leona.proxy.AsyncAdviceTest.Service.*(..))")
+        public void after() {
+            EVENTS.add("after");
+        }
+    }
+
+    @Aspect
+    static class BlockingAspect {
+        @BlockingAdvice
+        @Around("execution(* com.sylvona.leona.proxy.AsyncAdviceTest.BlockingService.*(..))")
+        public Object block(ProceedingJoinPoint joinPoint) throws Throwable {
+            EVENTS.add("advice on " + Thread.currentThread().getName());
+            assertThat(release.await(5, TimeUnit.SECONDS)).isTrue();
+            return joinPoint.proceed();
+        }
+    }
+
+    @AspectAware(CompletionAspect.class)
+    public static class Service {
+        public CompletableFuture<String> future(CompletableFuture<String> future) {
+            return future;
+        }
+
+        public CompletableFuture<String> failFuture() {
+            throw new IllegalStateException("failure");
+        }
+
+        public Mono<String> mono(Mono<String> mono) {
+            return mono;
+        }
+
+        public Flux<String> flux(Flux<String> flux) {
+            return flux;
+        }
+    }
+
+    @AspectAware(BlockingAspect.class)
+    public static class BlockingService {
+        public CompletableFuture<String> future(String value) {
+            EVENTS.add("method on " + Thread.currentThread().getName());
+            return value == null ? null : CompletableFuture.completedFuture(value);
+        }
+
+        public CompletableFuture<String> failFuture() {
+            throw new IllegalStateException("failure");
+        }
+
+        public Mono<String> mono(String value) {
+            EVENTS.add("method on " + Thread.currentThread().getName());
+            return Mono.just(value);
+        }
+
+        public Flux<String> flux(String... values) {
+            EVENTS.add("method on " + Thread.currentThread().getName());
+            return Flux.just(values);
+        }
+
+        public Mono<String> failMono() {
+            throw new IllegalStateException("failure");
+        }
+    }
+}
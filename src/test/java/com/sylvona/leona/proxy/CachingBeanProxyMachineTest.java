@@ -0,0 +1,99 @@
+package com.sylvona.leona.proxy;
+
+import com.sylvona.leona.proxy.aspects.AspectBeanRegistry;
+import com.sylvona.leona.proxy.aspects.LeonaAspectAutoConfiguration;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.Advisor;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prepares, invalidates and releases proxy classes of a machine whose classes are not proxied as beans.
+ */
+class CachingBeanProxyMachineTest {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(LeonaAspectAutoConfiguration.class))
+            .withUserConfiguration(GreetingAspect.class);
+
+    @Test
+    void invalidatedPreparedClassIsLoadedAgain() {
+        contextRunner.run(context -> {
+            CachingBeanProxyMachine proxyMachine = context.getBean(CachingBeanProxyMachine.class);
+            List<Advisor> advisors = context.getBean(AspectBeanRegistry.class).getAdvisorsForClass(Greeter.class);
+
+            proxyMachine.prepare(Greeter.class, advisors, false, false);
+            proxyMachine.invalidate(Greeter.class);
+            Greeter greeter = (Greeter) proxyMachine.create(new Greeter(), advisors, false, false);
+
+            assertThat(greeter.greet()).isEqualTo("<hello>");
+            assertThat(proxyMachine.getCacheStatistics().misses()).isEqualTo(2);
+            assertThat(proxyMachine.getCacheStatistics().evictions()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void invalidationKeepsClassesWithOtherAdvisors() {
+        contextRunner.run(context -> {
+            CachingBeanProxyMachine proxyMachine = context.getBean(CachingBeanProxyMachine.class);
+            List<Advisor> advisors = context.getBean(AspectBeanRegistry.class).getAdvisorsForClass(Greeter.class);
+            List<Advisor> staleAdvisors = advisors.subList(0, 1);
+            assertThat(advisors).hasSize(2);
+
+            proxyMachine.prepare(Greeter.class, advisors, false, false);
+            proxyMachine.prepare(Greeter.class, staleAdvisors, false, false);
+            proxyMachine.invalidate(Greeter.class, staleAdvisors);
+            Greeter greeter = (Greeter) proxyMachine.create(new Greeter(), advisors, false, false);
+
+            assertThat(greeter.greet()).isEqualTo("<hello>");
+            assertThat(greeter.leave()).isEqualTo("<bye>");
+            assertThat(proxyMachine.getCacheStatistics().misses()).isEqualTo(2);
+            assertThat(proxyMachine.getCacheStatistics().evictions()).isEqualTo(1);
+            assertThat(proxyMachine.getCacheStatistics().size()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void preparedClassIsLoadedAgainOnceClosed() {
+        contextRunner.run(context -> {
+            CachingBeanProxyMachine proxyMachine = context.getBean(CachingBeanProxyMachine.class);
+            List<Advisor> advisors = context.getBean(AspectBeanRegistry.class).getAdvisorsForClass(Greeter.class);
+
+            proxyMachine.prepare(Greeter.class, advisors, false, false);
+            proxyMachine.close();
+            Greeter greeter = (Greeter) proxyMachine.create(new Greeter(), advisors, false, false);
+
+            assertThat(greeter.greet()).isEqualTo("<hello>");
+            assertThat(proxyMachine.getCacheStatistics().misses()).isEqualTo(2);
+        });
+    }
+
+    @Aspect
+    static class GreetingAspect {
+        @Around("execution(* com.sylvona.leona.proxy.CachingBeanProxyMachineTest.Greeter.greet())")
+        public Object greet(ProceedingJoinPoint joinPoint) throws Throwable {
+            return "<" + joinPoint.proceed() + ">";
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.CachingBeanProxyMachineTest.Greeter.leave())")
+        public Object leave(ProceedingJoinPoint joinPoint) throws Throwable {
+            return "<" + joinPoint.proceed() + ">";
+        }
+    }
+
+    public static class Greeter {
+        public String greet() {
+            return "hello";
+        }
+
+        public String leave() {
+            return "bye";
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.sylvona.leona.proxy;
+
+import com.sylvona.leona.proxy.aspects.AspectAware;
+import com.sylvona.leona.proxy.aspects.LeonaAspectAutoConfiguration;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Calls a single proxied singleton from many threads at once, checking that every call sees its own join point.
+ */
+class ConcurrentJoinPointTest {
+    private static final int THREADS = 16;
+    private static final int CALLS_PER_THREAD = 20_000;
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(LeonaAspectAutoConfiguration.class))
+            .withUserConfiguration(EchoAspect.class, EchoService.class);
+
+    @Test
+    void concurrentCallsDoNotShareJoinPoints() {
+        contextRunner.run(context -> {
+            EchoService service = context.getBean(EchoService.class);
+            assertThat(service).isInstanceOf(LeonaProxy.class);
+
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            CountDownLatch start = new CountDownLatch(1);
+            try {
+                List<Future<Integer>> futures = new ArrayList<>();
+                for (int thread = 0; thread < THREADS; thread++) {
+                    String name = "thread-" + thread;
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        int calls = 0;
+                        for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                            // The advice reports the arguments it observed next to the result of proceed()
+                            assertThat(service.echo(name, i)).isEqualTo(name + ":" + i + "=" + name + "#" + i);
+                            assertThat(service.rewrite(name, i)).isEqualTo(name.toUpperCase() + "#" + (i + 1));
+                            calls++;
+                        }
+                        return calls;
+                    }));
+                }
+                start.countDown();
+
+                for (Future<Integer> future : futures) {
+                    assertThat(future.get(2, TimeUnit.MINUTES)).isEqualTo(CALLS_PER_THREAD);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        });
+    }
+
+    @Aspect
+    static class EchoAspect {
+        @Around("execution(* com.sylvona.leona.proxy.ConcurrentJoinPointTest.EchoService.echo(..))")
+        public Object echo(ProceedingJoinPoint joinPoint) throws Throwable {
+            Object[] arguments = joinPoint.getArgs();
+            Object result = joinPoint.proceed();
+            // Widen the window between reading the arguments and returning, other threads keep proceeding meanwhile
+            Thread.yield();
+            return arguments[0] + ":" + arguments[1] + "=" + result;
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.ConcurrentJoinPointTest.EchoService.rewrite(..))")
+        public Object rewrite(ProceedingJoinPoint joinPoint) throws Throwable {
+            Object[] arguments = joinPoint.getArgs();
+            return joinPoint.proceed(new Object[] {((String) arguments[0]).toUpperCase(), (Integer) arguments[1] + 1});
+        }
+    }
+
+    @AspectAware(EchoAspect.class)
+    static class EchoService {
+        public String echo(String name, int index) {
+            return name + "#" + index;
+        }
+
+        public String rewrite(String name, int index) {
+            return name + "#" + index;
+        }
+    }
+}
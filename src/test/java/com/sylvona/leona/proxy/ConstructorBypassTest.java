@@ -0,0 +1,130 @@
+package com.sylvona.leona.proxy;
+
+import com.sylvona.leona.proxy.aspects.LeonaAspectAutoConfiguration;
+import com.sylvona.leona.proxy.aspects.ProxyProducer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Proxies allocated without invoking a constructor must not run the constructor of the proxied class, whatever the
+ * class definition strategy.
+ */
+class ConstructorBypassTest {
+    private static final AtomicInteger CONSTRUCTIONS = new AtomicInteger();
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(LeonaAspectAutoConfiguration.class))
+            .withUserConfiguration(PayloadAspect.class, DelegatingProducer.class, BypassingProducer.class, ConstructingProducer.class);
+
+    @BeforeEach
+    void resetConstructions() {
+        CONSTRUCTIONS.set(0);
+    }
+
+    @Test
+    void delegatingProxiesAreCreatedWithoutConstruction() {
+        for (ProxyClassDefiner.Strategy strategy : ProxyClassDefiner.Strategy.values()) {
+            contextRunner.withPropertyValues("leona.proxy.class-definition=" + strategy).run(context -> {
+                Payload payload = context.getBean(DelegatingProducer.class).produce("delegated");
+                assertThat(payload).isInstanceOf(LeonaProxy.class);
+                assertThat(payload.getName()).isEqualTo("<delegated>");
+
+                CONSTRUCTIONS.set(0);
+                for (int i = 0; i < 10; i++) context.getBean(DelegatingProducer.class).produce("delegated");
+                // Only the produced objects themselves are constructed
+                assertThat(CONSTRUCTIONS).as("constructions with %s", strategy).hasValue(10);
+                // Hidden classes cannot be allocated without invoking a constructor
+                ProxyClassDefiner.Statistics statistics = context.getBean(CachingBeanProxyMachine.class).getClassStatistics();
+                assertThat(statistics.definedClasses()).as("defined classes with %s", strategy).isPositive();
+                assertThat(statistics.hiddenClasses()).as("hidden classes with %s", strategy).isZero();
+            });
+        }
+    }
+
+    @Test
+    void bypassingProxiesAreCreatedWithoutConstruction() {
+        for (ProxyClassDefiner.Strategy strategy : ProxyClassDefiner.Strategy.values()) {
+            contextRunner.withPropertyValues("leona.proxy.class-definition=" + strategy).run(context -> {
+                Payload payload = context.getBean(BypassingProducer.class).produce("copied");
+                assertThat(payload).isInstanceOf(LeonaProxy.class);
+                assertThat(payload.getName()).isEqualTo("<copied>");
+
+                CONSTRUCTIONS.set(0);
+                for (int i = 0; i < 10; i++) context.getBean(BypassingProducer.class).produce("copied");
+                assertThat(CONSTRUCTIONS).as("constructions with %s", strategy).hasValue(10);
+                ProxyClassDefiner.Statistics statistics = context.getBean(CachingBeanProxyMachine.class).getClassStatistics();
+                assertThat(statistics.definedClasses()).as("defined classes with %s", strategy).isPositive();
+                assertThat(statistics.hiddenClasses()).as("hidden classes with %s", strategy).isZero();
+            });
+        }
+    }
+
+    @Test
+    void constructedProxiesWithoutAuxiliaryTypesAreHidden() {
+        contextRunner.withPropertyValues("leona.proxy.class-definition=HIDDEN", "leona.proxy.weaving=INLINE").run(context -> {
+            Payload payload = context.getBean(ConstructingProducer.class).produce("inlined");
+            assertThat(payload).isInstanceOf(LeonaProxy.class);
+            assertThat(payload.getName()).isEqualTo("<inlined>");
+            assertThat(payload.getClass().isHidden()).isTrue();
+
+            // Inlined advice needs no accessor of the super method, unlike the proxies of the other producers
+            ProxyClassDefiner.Statistics statistics = context.getBean(CachingBeanProxyMachine.class).getClassStatistics();
+            assertThat(statistics.hiddenClasses()).isEqualTo(1);
+        });
+    }
+
+    @Aspect
+    static class PayloadAspect {
+        @Around("execution(* com.sylvona.leona.proxy.ConstructorBypassTest.Payload.getName())")
+        public Object name(ProceedingJoinPoint joinPoint) throws Throwable {
+            return "<" + joinPoint.proceed() + ">";
+        }
+    }
+
+    public static class Payload {
+        private String name;
+
+        public Payload() {
+            CONSTRUCTIONS.incrementAndGet();
+        }
+
+        public Payload(String name) {
+            this();
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    @ProxyProducer(delegating = true)
+    static class DelegatingProducer {
+        public Payload produce(String name) {
+            return new Payload(name);
+        }
+    }
+
+    @ProxyProducer(useCopyConstructor = false)
+    static class ConstructingProducer {
+        public Payload produce(String name) {
+            return new Payload(name);
+        }
+    }
+
+    @ProxyProducer(useCopyConstructor = false, bypassConstructor = true)
+    static class BypassingProducer {
+        public Payload produce(String name) {
+            return new Payload(name);
+        }
+    }
+}
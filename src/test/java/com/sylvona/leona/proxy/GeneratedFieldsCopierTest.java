@@ -0,0 +1,156 @@
+package com.sylvona.leona.proxy;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Copies the fields of a small class hierarchy through each of the copying strategies.
+ */
+class GeneratedFieldsCopierTest {
+    private final GeneratedFieldsCopier fieldsCopier = new GeneratedFieldsCopier();
+
+    @Test
+    void copiesPrivateAndInheritedFields() {
+        Leaf source = Leaf.sample();
+        Leaf target = new Leaf("target");
+
+        fieldsCopier.copyFieldValues(source, target);
+
+        assertCopied(target);
+    }
+
+    @Test
+    void leavesFinalAndStaticFieldsUntouched() {
+        Leaf source = Leaf.sample();
+        Leaf target = new Leaf("target");
+        Leaf.instances = 42;
+
+        fieldsCopier.copyFieldValues(source, target);
+
+        assertThat(target.id).isEqualTo("target");
+        assertThat(Leaf.instances).isEqualTo(42);
+    }
+
+    @Test
+    void definesHiddenCopiersNextToTheCopiedClass() {
+        // Root only declares copyable fields itself, so its copier is not composed of several copiers
+        FieldCopier copier = fieldsCopier.getCopier(Root.class);
+
+        assertThat(copier.getClass().isHidden()).isTrue();
+        assertThat(copier.getClass().isNestmateOf(Root.class)).isTrue();
+        assertThat(fieldsCopier.getCopier(Root.class)).isSameAs(copier);
+    }
+
+    @Test
+    void varHandleCopierCopiesPrivateFields() throws IllegalAccessException {
+        Leaf source = Leaf.sample();
+        Leaf target = new Leaf("target");
+
+        for (Class<?> type : List.of(Leaf.class, Middle.class, Root.class)) {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            GeneratedFieldsCopier.createVarHandleCopier(lookup, copyableFields(type)).copy(source, target);
+        }
+
+        assertCopied(target);
+        assertThat(target.id).isEqualTo("target");
+    }
+
+    @Test
+    void reflectiveCopierCopiesPrivateFields() {
+        Leaf source = Leaf.sample();
+        Leaf target = new Leaf("target");
+
+        for (Class<?> type : List.of(Leaf.class, Middle.class, Root.class)) {
+            GeneratedFieldsCopier.createReflectiveCopier(copyableFields(type)).copy(source, target);
+        }
+
+        assertCopied(target);
+        assertThat(target.id).isEqualTo("target");
+    }
+
+    @Test
+    void skipsFieldsOfPackagesWhichAreNotOpen() {
+        NamedList source = new NamedList();
+        source.name = "source";
+        source.add("element");
+        NamedList target = new NamedList();
+
+        // java.util is not open to this module, so the fields declared by ArrayList and AbstractList cannot be copied
+        fieldsCopier.copyFieldValues(source, target);
+
+        assertThat(target.name).isEqualTo("source");
+        assertThat(target).isEmpty();
+    }
+
+    private static void assertCopied(Leaf target) {
+        assertThat(target.leafCount).isEqualTo(3L);
+        assertThat(target.leafValue).isEqualTo("leaf");
+        assertThat(target.getMiddleFlag()).isTrue();
+        assertThat(target.getMiddleRatio()).isEqualTo(0.5);
+        assertThat(target.getRootIndex()).isEqualTo(7);
+        assertThat(target.rootName).isEqualTo("root");
+    }
+
+    private static List<Field> copyableFields(Class<?> type) {
+        return Arrays.stream(type.getDeclaredFields())
+                .filter(field -> !Modifier.isStatic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers()))
+                .toList();
+    }
+
+    static class Root {
+        private int rootIndex;
+        protected String rootName;
+
+        int getRootIndex() {
+            return rootIndex;
+        }
+    }
+
+    static class Middle extends Root {
+        private boolean middleFlag;
+        private double middleRatio;
+
+        boolean getMiddleFlag() {
+            return middleFlag;
+        }
+
+        double getMiddleRatio() {
+            return middleRatio;
+        }
+    }
+
+    private static final class Leaf extends Middle {
+        private static int instances;
+
+        private final String id;
+        private long leafCount;
+        Object leafValue;
+
+        private Leaf(String id) {
+            this.id = id;
+        }
+
+        static Leaf sample() {
+            Leaf leaf = new Leaf("source");
+            leaf.leafCount = 3L;
+            leaf.leafValue = "leaf";
+            ((Middle) leaf).middleFlag = true;
+            ((Middle) leaf).middleRatio = 0.5;
+            ((Root) leaf).rootIndex = 7;
+            leaf.rootName = "root";
+            return leaf;
+        }
+    }
+
+    static class NamedList extends ArrayList<String> {
+        private String name;
+    }
+}
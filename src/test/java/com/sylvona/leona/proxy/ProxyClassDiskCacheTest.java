@@ -0,0 +1,201 @@
+package com.sylvona.leona.proxy;
+
+import com.sylvona.leona.proxy.aspects.AspectBeanRegistry;
+import com.sylvona.leona.proxy.aspects.LeonaAspectAutoConfiguration;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.implementation.FixedValue;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.Advisor;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.ApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Persists proxy classes across machines, keyed by the bytecode they were generated from.
+ */
+class ProxyClassDiskCacheTest {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(LeonaAspectAutoConfiguration.class))
+            .withUserConfiguration(GreetingAspect.class);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void storedProxyClassIsRestoredByFreshMachine() {
+        contextRunner.run(context -> {
+            ProxyClassDiskCache storingCache = new ProxyClassDiskCache(directory);
+            Object stored = createGreeter(context, storingCache, Greeter.class);
+            assertThat(greet(stored)).isEqualTo("<hello>");
+            assertThat(storingCache.getStatistics()).isEqualTo(new ProxyClassDiskCache.Statistics(0, 1, 1));
+
+            // The proxied class is loaded again, as by a new JVM, so that the restored proxy class can be defined
+            Class<?> reloadedGreeter = reload(Greeter.class);
+            ProxyClassDiskCache restoringCache = new ProxyClassDiskCache(directory);
+            Object restored = createGreeter(context, restoringCache, reloadedGreeter);
+
+            assertThat(greet(restored)).isEqualTo("<hello>");
+            assertThat(restored.getClass()).isNotSameAs(stored.getClass());
+            assertThat(restored.getClass().getName()).isEqualTo(stored.getClass().getName());
+            assertThat(restored.getClass().getSuperclass()).isSameAs(reloadedGreeter);
+            assertThat(restoringCache.getStatistics()).isEqualTo(new ProxyClassDiskCache.Statistics(1, 0, 0));
+        });
+    }
+
+    @Test
+    void alreadyDefinedProxyClassIsGeneratedAgain() {
+        contextRunner.run(context -> {
+            ProxyClassDiskCache storingCache = new ProxyClassDiskCache(directory);
+            Object stored = createGreeter(context, storingCache, Greeter.class);
+
+            // The restored proxy class cannot be defined next to the one stored by the other machine
+            ProxyClassDiskCache restoringCache = new ProxyClassDiskCache(directory);
+            Object generated = createGreeter(context, restoringCache, Greeter.class);
+
+            assertThat(greet(generated)).isEqualTo("<hello>");
+            assertThat(generated.getClass().getName()).isNotEqualTo(stored.getClass().getName());
+            assertThat(restoringCache.getStatistics()).isEqualTo(new ProxyClassDiskCache.Statistics(1, 0, 1));
+        });
+    }
+
+    @Test
+    void malformedFileIsIgnored() {
+        contextRunner.run(context -> {
+            createGreeter(context, new ProxyClassDiskCache(directory), Greeter.class);
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) Files.write(file, new byte[] {1, 2, 3});
+            }
+
+            ProxyClassDiskCache restoringCache = new ProxyClassDiskCache(directory);
+            Object generated = createGreeter(context, restoringCache, reload(Greeter.class));
+
+            assertThat(greet(generated)).isEqualTo("<hello>");
+            assertThat(restoringCache.getStatistics()).isEqualTo(new ProxyClassDiskCache.Statistics(0, 1, 1));
+        });
+    }
+
+    @Test
+    void storedFileReplacesPreviousFileAtomically() {
+        contextRunner.run(context -> {
+            ProxyClassDiskCache cache = new ProxyClassDiskCache(directory);
+            CachingBeanProxyMachine proxyMachine = CachingBeanProxyMachine.builder(context).build();
+            List<Advisor> advisors = context.getBean(AspectBeanRegistry.class).getAdvisorsForClass(Greeter.class);
+            ProxyClassPlan plan = proxyMachine.createDelegatingPlan(Greeter.class, advisors);
+            DynamicType.Unloaded<?> dynamicType = proxyMachine.createDynamicType(plan);
+
+            cache.store(plan, dynamicType);
+            cache.store(plan, dynamicType);
+
+            // Temporary files are moved into place, never left behind
+            try (Stream<Path> files = Files.list(directory)) {
+                assertThat(files.map(file -> file.getFileName().toString()))
+                        .containsExactly(ProxyClassDiskCache.computeKey(plan) + ".classes");
+            }
+            assertThat(cache.getStatistics().writes()).isEqualTo(2);
+            assertThat(cache.load(plan).getTypeDescription().getName()).isEqualTo(dynamicType.getTypeDescription().getName());
+        });
+    }
+
+    @Test
+    void unwritableDirectoryIsIgnored() throws Exception {
+        Path file = Files.createFile(directory.resolve("file"));
+        contextRunner.run(context -> {
+            ProxyClassDiskCache cache = new ProxyClassDiskCache(file);
+            Object generated = createGreeter(context, cache, Greeter.class);
+
+            assertThat(greet(generated)).isEqualTo("<hello>");
+            assertThat(cache.getStatistics()).isEqualTo(new ProxyClassDiskCache.Statistics(0, 1, 0));
+        });
+    }
+
+    @Test
+    void keyDependsOnBytecodeOfClassesAndInterfaces() {
+        DynamicType.Unloaded<?> named = new ByteBuddy().makeInterface().name("com.sylvona.leona.proxy.generated.Named").make();
+        DynamicType.Unloaded<?> extended = new ByteBuddy().makeInterface().name("com.sylvona.leona.proxy.generated.Named")
+                .defineMethod("name", String.class, Visibility.PUBLIC).intercept(FixedValue.value("name")).make();
+
+        String key = computeKey(generateSample(named, "a"));
+        assertThat(computeKey(generateSample(named, "a"))).isEqualTo(key);
+        assertThat(computeKey(generateSample(named, "b"))).isNotEqualTo(key);
+        assertThat(computeKey(generateSample(extended, "a"))).isNotEqualTo(key);
+    }
+
+    private static Object createGreeter(ApplicationContext context, ProxyClassDiskCache cache, Class<?> greeterClass) throws Exception {
+        CachingBeanProxyMachine proxyMachine = CachingBeanProxyMachine.builder(context).proxyClassDiskCache(cache).build();
+        List<Advisor> advisors = context.getBean(AspectBeanRegistry.class).getAdvisorsForClass(greeterClass);
+        assertThat(advisors).hasSize(1);
+        return proxyMachine.create(greeterClass.getConstructor().newInstance(), advisors, false, false);
+    }
+
+    private static String greet(Object greeter) throws Exception {
+        return (String) greeter.getClass().getMethod("greet").invoke(greeter);
+    }
+
+    private static String computeKey(Class<?> sourceClass) {
+        return ProxyClassDiskCache.computeKey(ProxyClassPlan.createDelegating(new PointcutMatchIndex().match(List.of(), sourceClass)));
+    }
+
+    /**
+     * Generates a class implementing an interface, both loaded by a class loader of their own which keeps their
+     * bytecode readable.
+     */
+    private static Class<?> generateSample(DynamicType.Unloaded<?> implemented, String value) {
+        return new ByteBuddy().subclass(Object.class).implement(implemented.getTypeDescription())
+                .name("com.sylvona.leona.proxy.generated.Sample")
+                .defineMethod("value", String.class, Visibility.PUBLIC).intercept(FixedValue.value(value))
+                .make()
+                .include(implemented)
+                .load(ProxyClassDiskCacheTest.class.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER_PERSISTENT)
+                .getLoaded();
+    }
+
+    /**
+     * Defines a class again in a class loader of its own.
+     */
+    private static Class<?> reload(Class<?> type) throws ClassNotFoundException {
+        String name = type.getName();
+        byte[] bytes = ClassFileLocator.ForClassLoader.read(type);
+        ClassLoader reloadingClassLoader = new ClassLoader(ProxyClassDiskCacheTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException {
+                if (!className.equals(name)) return super.loadClass(className, resolve);
+                synchronized (getClassLoadingLock(className)) {
+                    Class<?> loaded = findLoadedClass(className);
+                    return loaded != null ? loaded : defineClass(className, bytes, 0, bytes.length);
+                }
+            }
+        };
+        Class<?> reloaded = reloadingClassLoader.loadClass(name);
+        assertThat(reloaded).isNotSameAs(type);
+        return reloaded;
+    }
+
+    @Aspect
+    static class GreetingAspect {
+        @Around("execution(* com.sylvona.leona.proxy.ProxyClassDiskCacheTest.Greeter.greet())")
+        public Object greet(ProceedingJoinPoint joinPoint) throws Throwable {
+            return "<" + joinPoint.proceed() + ">";
+        }
+    }
+
+    public static class Greeter {
+        public String greet() {
+            return "hello";
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.sylvona.leona.proxy.aot;
+
+import com.sylvona.leona.proxy.CachingBeanProxyMachine;
+import com.sylvona.leona.proxy.LeonaProxy;
+import com.sylvona.leona.proxy.PointcutMatchIndex;
+import com.sylvona.leona.proxy.ProxyClassPlan;
+import com.sylvona.leona.proxy.aspects.AspectAware;
+import com.sylvona.leona.proxy.aspects.LeonaAspectAutoConfiguration;
+import com.sylvona.leona.proxy.aspects.ProxyProducer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.generate.ClassNameGenerator;
+import org.springframework.aot.generate.DefaultGenerationContext;
+import org.springframework.aot.generate.GeneratedFiles;
+import org.springframework.aot.generate.InMemoryGeneratedFiles;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.javapoet.ClassName;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The proxy classes generated ahead of time must be those the runtime looks up, or they could not be found in a
+ * native image.
+ */
+class AotProxyClassNameTest {
+    private static final Class<?>[] CONFIGURATIONS = {AuditAspect.class, TraceAspect.class, LedgerConfiguration.class, ReceiptProducer.class};
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(LeonaAspectAutoConfiguration.class))
+            .withUserConfiguration(CONFIGURATIONS)
+            .withUserConfiguration(RecordingConfiguration.class);
+
+    @Test
+    void aheadOfTimeProxyClassesAreThoseLookedUpAtRuntime() {
+        Set<String> generatedClasses = generateProxyClassesAheadOfTime();
+
+        contextRunner.run(context -> {
+            Ledger ledger = context.getBean(Ledger.class);
+            Receipt receipt = context.getBean(ReceiptProducer.class).issue("r-1");
+            assertThat(ledger).isInstanceOf(LeonaProxy.class);
+            assertThat(receipt).isInstanceOf(LeonaProxy.class);
+            // Both aspects advise the ledger, and were registered in the opposite order of their definitions
+            assertThat(ledger.balance()).isEqualTo("audit(trace(10))");
+            assertThat(receipt.getId()).isEqualTo("audit(r-1)");
+
+            Set<String> lookedUpClasses = context.getBean(RecordingProxyMachine.class).lookedUpClasses;
+            assertThat(lookedUpClasses).anyMatch(name -> name.startsWith(Ledger.class.getName() + "$"));
+            assertThat(lookedUpClasses).anyMatch(name -> name.startsWith(Receipt.class.getName() + "$"));
+            assertThat(generatedClasses).containsAll(lookedUpClasses);
+        });
+    }
+
+    private static Set<String> generateProxyClassesAheadOfTime() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.register(LeonaAspectAutoConfiguration.class);
+            context.register(CONFIGURATIONS);
+            context.refreshForAotProcessing(new RuntimeHints());
+
+            BeanFactoryInitializationAotContribution contribution = new LeonaProxyBeanFactoryInitializationAotProcessor().processAheadOfTime(context.getBeanFactory());
+            assertThat(contribution).isNotNull();
+            InMemoryGeneratedFiles generatedFiles = new InMemoryGeneratedFiles();
+            contribution.applyTo(new DefaultGenerationContext(new ClassNameGenerator(ClassName.get(AotProxyClassNameTest.class)), generatedFiles), null);
+
+            return generatedFiles.getGeneratedFiles(GeneratedFiles.Kind.CLASS).keySet().stream()
+                    .map(path -> path.substring(0, path.length() - ".class".length()).replace('/', '.'))
+                    .collect(Collectors.toSet());
+        }
+    }
+
+    /**
+     * Records the names under which each proxy class is looked up among the pregenerated classes.
+     */
+    static class RecordingProxyMachine extends CachingBeanProxyMachine {
+        final Set<String> lookedUpClasses = ConcurrentHashMap.newKeySet();
+
+        RecordingProxyMachine(ApplicationContext applicationContext, PointcutMatchIndex pointcutMatchIndex) {
+            super(CachingBeanProxyMachine.builder(applicationContext).pointcutMatchIndex(pointcutMatchIndex));
+        }
+
+        @Override
+        protected Class<?> loadPregeneratedClass(ProxyClassPlan plan) {
+            lookedUpClasses.add(plan.getProxyClassName());
+            return super.loadPregeneratedClass(plan);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class RecordingConfiguration {
+        @Bean
+        RecordingProxyMachine recordingProxyMachine(ApplicationContext applicationContext, PointcutMatchIndex pointcutMatchIndex) {
+            return new RecordingProxyMachine(applicationContext, pointcutMatchIndex);
+        }
+    }
+
+    /**
+     * Depends on {@link TraceAspect}, so it is registered after it although it is defined first.
+     */
+    @Aspect
+    static class AuditAspect {
+        AuditAspect(TraceAspect traceAspect) {}
+
+        @Around("execution(* com.sylvona.leona.proxy.aot.AotProxyClassNameTest.Ledger.balance()) || execution(* com.sylvona.leona.proxy.aot.AotProxyClassNameTest.Receipt.getId())")
+        public Object audit(ProceedingJoinPoint joinPoint) throws Throwable {
+            return "audit(" + joinPoint.proceed() + ")";
+        }
+    }
+
+    @Aspect
+    static class TraceAspect {
+        @Around("execution(* com.sylvona.leona.proxy.aot.AotProxyClassNameTest.Ledger.balance())")
+        public Object trace(ProceedingJoinPoint joinPoint) throws Throwable {
+            return "trace(" + joinPoint.proceed() + ")";
+        }
+    }
+
+    static class LedgerStore {
+        int balance() {
+            return 10;
+        }
+    }
+
+    @AspectAware({AuditAspect.class, TraceAspect.class})
+    static class Ledger {
+        private final LedgerStore store;
+
+        Ledger(LedgerStore store) {
+            this.store = store;
+        }
+
+        public String balance() {
+            return String.valueOf(store.balance());
+        }
+    }
+
+    /**
+     * Declares the ledger through a factory method, while its proxy class mirrors its autowired constructor.
+     */
+    @Configuration(proxyBeanMethods = false)
+    static class LedgerConfiguration {
+        @Bean
+        LedgerStore ledgerStore() {
+            return new LedgerStore();
+        }
+
+        @Bean
+        Ledger ledger(LedgerStore ledgerStore) {
+            return new Ledger(ledgerStore);
+        }
+    }
+
+    public static class Receipt {
+        private String id;
+
+        public Receipt() {}
+
+        public Receipt(String id) {
+            this.id = id;
+        }
+
+        public String getId() {
+            return id;
+        }
+    }
+
+    @ProxyProducer
+    static class ReceiptProducer {
+        public Receipt issue(String id) {
+            return new Receipt(id);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.sylvona.leona.proxy.aspects;
+
+import com.sylvona.leona.proxy.LeonaProxy;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.dynamic.DynamicType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Matches classes to the index of the class path root they were loaded from, whether a directory or a jar.
+ */
+class AspectCandidateIndexTest {
+    private static final String INDEX = """
+            # Classes post-processed by leona-proxy, and their stereotypes
+            generated.Aware=aspect-aware,proxy-producer
+            generated.Producer=proxy-producer
+            """;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void indexedDirectoryDeterminesStereotypes() throws Exception {
+        Map<String, byte[]> classes = generateClasses();
+        classes.forEach((path, bytes) -> write(root.resolve(path), bytes));
+        write(root.resolve(AspectCandidateIndex.INDEX_LOCATION), INDEX.getBytes(StandardCharsets.UTF_8));
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {root.toUri().toURL()}, getClass().getClassLoader())) {
+            assertIndexedStereotypes(AspectCandidateIndex.load(classLoader), classLoader);
+        }
+    }
+
+    @Test
+    void indexedJarDeterminesStereotypes() throws Exception {
+        Path jar = root.resolve("beans.jar");
+        try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (Map.Entry<String, byte[]> entry : generateClasses().entrySet()) {
+                writeEntry(output, entry.getKey(), entry.getValue());
+            }
+            writeEntry(output, AspectCandidateIndex.INDEX_LOCATION, INDEX.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // The index is found at jar:file:/.../beans.jar!/, the classes' code source is file:/.../beans.jar
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {jar.toUri().toURL()}, getClass().getClassLoader())) {
+            assertIndexedStereotypes(AspectCandidateIndex.load(classLoader), classLoader);
+        }
+    }
+
+    @Test
+    void classesOutsideIndexedRootsAreUnknown() throws Exception {
+        write(root.resolve(AspectCandidateIndex.INDEX_LOCATION), INDEX.getBytes(StandardCharsets.UTF_8));
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {root.toUri().toURL()}, getClass().getClassLoader())) {
+            AspectCandidateIndex index = AspectCandidateIndex.load(classLoader);
+            // Loaded from the test classes, which have no index of their own
+            assertThat(index.excludes(AspectCandidateIndexTest.class, AspectCandidateIndex.Stereotype.ASPECT_AWARE)).isFalse();
+            // Loaded by the bootstrap class loader, without code source
+            assertThat(index.excludes(String.class, AspectCandidateIndex.Stereotype.ASPECT)).isFalse();
+        }
+    }
+
+    @Test
+    void classLoaderWithoutIndexLoadsEmptyIndex() throws Exception {
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {root.toUri().toURL()}, null)) {
+            AspectCandidateIndex index = AspectCandidateIndex.load(classLoader);
+
+            assertThat(index).isSameAs(AspectCandidateIndex.EMPTY);
+            assertThat(index.excludes(AspectCandidateIndexTest.class, AspectCandidateIndex.Stereotype.ASPECT_AWARE)).isFalse();
+        }
+    }
+
+    private static void assertIndexedStereotypes(AspectCandidateIndex index, ClassLoader classLoader) throws ClassNotFoundException {
+        Class<?> aware = classLoader.loadClass("generated.Aware");
+        assertThat(aware.getClassLoader()).isSameAs(classLoader);
+        assertThat(index.excludes(aware, AspectCandidateIndex.Stereotype.ASPECT_AWARE)).isFalse();
+        assertThat(index.excludes(aware, AspectCandidateIndex.Stereotype.PROXY_PRODUCER)).isFalse();
+        assertThat(index.excludes(aware, AspectCandidateIndex.Stereotype.ASPECT)).isTrue();
+
+        Class<?> producer = classLoader.loadClass("generated.Producer");
+        assertThat(index.excludes(producer, AspectCandidateIndex.Stereotype.ASPECT_AWARE)).isTrue();
+        assertThat(index.excludes(producer, AspectCandidateIndex.Stereotype.PROXY_PRODUCER)).isFalse();
+
+        // Listed in no index entry, although compiled along with the index
+        Class<?> plain = classLoader.loadClass("generated.Plain");
+        for (AspectCandidateIndex.Stereotype stereotype : AspectCandidateIndex.Stereotype.values()) {
+            assertThat(index.excludes(plain, stereotype)).isTrue();
+        }
+
+        // Generated subclasses may inherit the annotations of their superclass
+        Class<?> proxy = classLoader.loadClass("generated.Aware$Proxy");
+        assertThat(index.excludes(proxy, AspectCandidateIndex.Stereotype.ASPECT)).isFalse();
+    }
+
+    /**
+     * Generates the classes of a class path root, by their path within it.
+     */
+    private static Map<String, byte[]> generateClasses() {
+        DynamicType.Unloaded<?> aware = new ByteBuddy().subclass(Object.class).name("generated.Aware").make();
+        return Map.of(
+                "generated/Aware.class", aware.getBytes(),
+                "generated/Producer.class", new ByteBuddy().subclass(Object.class).name("generated.Producer").make().getBytes(),
+                "generated/Plain.class", new ByteBuddy().subclass(Object.class).name("generated.Plain").make().getBytes(),
+                "generated/Aware$Proxy.class", new ByteBuddy().subclass(aware.getTypeDescription()).name("generated.Aware$Proxy")
+                        .implement(LeonaProxy.class).make().getBytes());
+    }
+
+    private static void write(Path file, byte[] bytes) {
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeEntry(JarOutputStream output, String name, byte[] bytes) throws IOException {
+        output.putNextEntry(new JarEntry(name));
+        output.write(bytes);
+        output.closeEntry();
+    }
+}
@@ -0,0 +1,229 @@
+package com.sylvona.leona.proxy.aspects;
+
+import com.sylvona.leona.proxy.LeonaProxy;
+import com.sylvona.leona.proxy.PointcutMatchIndex;
+import com.sylvona.leona.proxy.ProxyClassPlan;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.Advisor;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Memoizes the results of {@link Memoized} methods within their bounds, under both weaving strategies.
+ */
+class MemoizingAspectTest {
+    private static final AtomicInteger CALLS = new AtomicInteger();
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(LeonaAspectAutoConfiguration.class))
+            .withUserConfiguration(Catalog.class);
+
+    @BeforeEach
+    void resetCalls() {
+        CALLS.set(0);
+    }
+
+    @Test
+    void resultsAreMemoizedPerArguments() {
+        for (String weaving : List.of("DELEGATION", "INLINE")) {
+            contextRunner.withPropertyValues("leona.proxy.weaving=" + weaving).run(context -> {
+                Catalog catalog = context.getBean(Catalog.class);
+                assertThat(catalog).isInstanceOf(LeonaProxy.class);
+                CALLS.set(0);
+
+                assertThat(catalog.name()).isEqualTo("catalog");
+                assertThat(catalog.name()).isEqualTo("catalog");
+                assertThat(catalog.missing()).isNull();
+                assertThat(catalog.missing()).isNull();
+                assertThat(catalog.label("a", 1)).isEqualTo("a1");
+                assertThat(catalog.label("a", 1)).isEqualTo("a1");
+                assertThat(catalog.label("a", 2)).isEqualTo("a2");
+                assertThat(catalog.path(1, new int[] {2, 3}, "x")).isEqualTo("1/[2, 3]/x");
+                assertThat(catalog.path(1, new int[] {2, 3}, "x")).isEqualTo("1/[2, 3]/x");
+                assertThat(CALLS).as("calls with %s", weaving).hasValue(5);
+
+                MemoizingAspect aspect = context.getBean(MemoizingAspect.class);
+                assertThat(aspect.getStatistics(Catalog.class.getMethod("name"))).isEqualTo(new MemoizingAspect.Statistics(1, 1, 0, 1));
+                assertThat(aspect.getStatistics(Catalog.class.getMethod("missing"))).isEqualTo(new MemoizingAspect.Statistics(1, 1, 0, 1));
+                assertThat(aspect.getStatistics(Catalog.class.getMethod("label", String.class, long.class))).isEqualTo(new MemoizingAspect.Statistics(1, 2, 0, 2));
+                assertThat(aspect.getStatistics(Catalog.class.getMethod("count"))).isNull();
+            });
+        }
+    }
+
+    @Test
+    void primitiveArgumentsAreComparedByValue() {
+        contextRunner.run(context -> {
+            Catalog catalog = context.getBean(Catalog.class);
+
+            assertThat(catalog.area(2, 3)).isEqualTo(6);
+            assertThat(catalog.area(2, 3)).isEqualTo(6);
+            assertThat(catalog.area(3, 2)).isEqualTo(6);
+            assertThat(catalog.half(0.0)).isEqualTo(0.0);
+            assertThat(catalog.half(-0.0)).isEqualTo(-0.0);
+            assertThat(catalog.half(Double.NaN)).isNaN();
+            assertThat(catalog.half(Double.NaN)).isNaN();
+            // Like their boxes, 0.0 and -0.0 differ while NaN equals itself
+            assertThat(CALLS).hasValue(5);
+        });
+    }
+
+    @Test
+    void oldestResultsAreEvictedBeyondMaximumSize() {
+        contextRunner.run(context -> {
+            Catalog catalog = context.getBean(Catalog.class);
+
+            catalog.bounded(1);
+            catalog.bounded(2);
+            catalog.bounded(3);
+            assertThat(CALLS).hasValue(3);
+            catalog.bounded(3);
+            catalog.bounded(2);
+            assertThat(CALLS).hasValue(3);
+            catalog.bounded(1);
+            assertThat(CALLS).hasValue(4);
+
+            MemoizingAspect.Statistics statistics = context.getBean(MemoizingAspect.class).getStatistics(Catalog.class.getMethod("bounded", int.class));
+            assertThat(statistics).isEqualTo(new MemoizingAspect.Statistics(2, 4, 2, 2));
+        });
+    }
+
+    @Test
+    void resultsExpireAfterWrite() {
+        contextRunner.run(context -> {
+            Catalog catalog = context.getBean(Catalog.class);
+
+            catalog.expiring(1);
+            catalog.expiring(1);
+            assertThat(CALLS).hasValue(1);
+            Thread.sleep(100);
+            catalog.expiring(1);
+            assertThat(CALLS).hasValue(2);
+
+            MemoizingAspect.Statistics statistics = context.getBean(MemoizingAspect.class).getStatistics(Catalog.class.getMethod("expiring", int.class));
+            assertThat(statistics).isEqualTo(new MemoizingAspect.Statistics(1, 2, 1, 1));
+        });
+    }
+
+    @Test
+    void weakResultsAreEvictedOnceCollected() {
+        contextRunner.run(context -> {
+            Catalog catalog = context.getBean(Catalog.class);
+
+            Object first = catalog.weak();
+            assertThat(catalog.weak()).isSameAs(first);
+            first = null;
+            for (int i = 0; i < 100 && CALLS.get() < 2; i++) {
+                System.gc();
+                catalog.weak();
+            }
+            assertThat(CALLS).hasValue(2);
+
+            MemoizingAspect.Statistics statistics = context.getBean(MemoizingAspect.class).getStatistics(Catalog.class.getMethod("weak"));
+            assertThat(statistics.misses()).isEqualTo(2);
+            assertThat(statistics.evictions()).isEqualTo(1);
+            assertThat(statistics.size()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void clearingEvictsEveryResult() {
+        contextRunner.run(context -> {
+            Catalog catalog = context.getBean(Catalog.class);
+            MemoizingAspect aspect = context.getBean(MemoizingAspect.class);
+
+            catalog.name();
+            catalog.area(1, 2);
+            aspect.clear();
+            catalog.name();
+            assertThat(CALLS).hasValue(3);
+            assertThat(aspect.getStatistics(Catalog.class.getMethod("area", int.class, int.class))).isEqualTo(new MemoizingAspect.Statistics(0, 1, 1, 0));
+        });
+    }
+
+    @Test
+    void argumentsAreOnlyCapturedForMethodsWithArguments() {
+        contextRunner.run(context -> {
+            List<Advisor> advisors = context.getBean(AspectBeanRegistry.class).getAdvisorsForClass(Catalog.class);
+            ProxyClassPlan plan = ProxyClassPlan.create(new PointcutMatchIndex().match(advisors, Catalog.class), false, null);
+
+            Map<String, Boolean> readsArguments = plan.getAdvisedMethods().stream()
+                    .collect(Collectors.toMap(advised -> advised.method().getName(), ProxyClassPlan.AdvisedMethod::readsArguments));
+            assertThat(readsArguments).containsEntry("name", false).containsEntry("weak", false)
+                    .containsEntry("label", true).containsEntry("area", true)
+                    // Unannotated and void methods are not memoized
+                    .doesNotContainKeys("count", "touch");
+        });
+    }
+
+    @AspectAware(MemoizingAspect.class)
+    public static class Catalog {
+        @Memoized
+        public String name() {
+            return call("catalog");
+        }
+
+        @Memoized
+        public String missing() {
+            return call(null);
+        }
+
+        @Memoized
+        public String label(String prefix, long number) {
+            return call(prefix + number);
+        }
+
+        @Memoized
+        public String path(int first, int[] middle, String last) {
+            return call(first + "/" + Arrays.toString(middle) + "/" + last);
+        }
+
+        @Memoized
+        public int area(int width, int height) {
+            return call(width * height);
+        }
+
+        @Memoized
+        public double half(double value) {
+            return call(value / 2);
+        }
+
+        @Memoized(maximumSize = 2)
+        public int bounded(int value) {
+            return call(value);
+        }
+
+        @Memoized(expireAfterWrite = 50)
+        public int expiring(int value) {
+            return call(value);
+        }
+
+        @Memoized(weakValues = true)
+        public Object weak() {
+            return call(new Object());
+        }
+
+        public int count() {
+            return CALLS.get();
+        }
+
+        @Memoized
+        public void touch() {
+            CALLS.incrementAndGet();
+        }
+
+        private static <T> T call(T result) {
+            CALLS.incrementAndGet();
+            return result;
+        }
+    }
+}
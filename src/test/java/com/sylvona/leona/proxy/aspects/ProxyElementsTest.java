@@ -0,0 +1,221 @@
+package com.sylvona.leona.proxy.aspects;
+
+import com.sylvona.leona.proxy.LeonaProxy;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Proxies the elements of containers returned by {@link ProxyProducer#proxyElements()} producers, in bulk for
+ * collections and arrays and lazily for streams and iterators.
+ */
+class ProxyElementsTest {
+    /**
+     * Counts the proxies created, as the source elements are created through another constructor.
+     */
+    private static final AtomicInteger PROXIES = new AtomicInteger();
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(LeonaAspectAutoConfiguration.class))
+            .withUserConfiguration(ElementAspect.class, ElementProducer.class, ItemProducer.class);
+
+    @BeforeEach
+    void resetProxies() {
+        PROXIES.set(0);
+    }
+
+    @Test
+    void collectionsAndArraysAreProxiedInBulk() {
+        contextRunner.run(context -> {
+            ElementProducer producer = context.getBean(ElementProducer.class);
+
+            List<Item> list = producer.list();
+            assertThat(list).isInstanceOf(ArrayList.class).hasSize(3).containsNull();
+            assertThat(list.get(0)).isInstanceOf(LeonaProxy.class);
+            assertThat(list.get(0).getName()).isEqualTo("<a>");
+            assertThat(list.get(2).getName()).isEqualTo("<b>");
+            assertThat(PROXIES).hasValue(2);
+
+            assertThat(producer.collection()).extracting(Item::getName).containsExactly("<c>");
+
+            Item[] array = producer.array();
+            assertThat(array).isExactlyInstanceOf(Item[].class).hasSize(2);
+            assertThat(array[0].getName()).isEqualTo("<x>");
+            assertThat(array[1]).isNull();
+
+            // Iterables which are collections are proxied in bulk too
+            Iterable<Item> iterable = producer.collectedIterable();
+            assertThat(iterable).isInstanceOf(List.class).extracting(Item::getName).containsExactly("<i>");
+        });
+    }
+
+    @Test
+    void streamsAndIteratorsAreProxiedLazily() {
+        contextRunner.run(context -> {
+            ElementProducer producer = context.getBean(ElementProducer.class);
+
+            Stream<Item> stream = producer.stream();
+            assertThat(PROXIES).hasValue(0);
+            assertThat(stream.limit(3).map(Item::getName)).containsExactly("<s0>", "<s1>", "<s2>");
+            // Elements which are never consumed are never proxied
+            assertThat(PROXIES).hasValue(3);
+
+            PROXIES.set(0);
+            Iterator<Item> iterator = producer.iterator();
+            assertThat(PROXIES).hasValue(0);
+            assertThat(iterator.next().getName()).isEqualTo("<t0>");
+            assertThat(PROXIES).hasValue(1);
+
+            PROXIES.set(0);
+            Iterable<Item> iterable = producer.lazyIterable();
+            assertThat(iterable).isNotInstanceOf(Collection.class);
+            assertThat(iterable.iterator().next().getName()).isEqualTo("<t0>");
+            assertThat(iterable.iterator().next().getName()).isEqualTo("<t0>");
+            assertThat(PROXIES).hasValue(2);
+        });
+    }
+
+    @Test
+    void parallelStreamsAreProxiedConcurrently() {
+        contextRunner.run(context -> {
+            ElementProducer producer = context.getBean(ElementProducer.class);
+
+            assertThat(producer.stream().parallel().filter(item -> item instanceof LeonaProxy && item.getName().startsWith("<")).count())
+                    .isEqualTo(1000);
+        });
+    }
+
+    @Test
+    void mixedElementClassesAreEachProxiedWithTheirOwnAdvisors() {
+        contextRunner.run(context -> {
+            ElementProducer producer = context.getBean(ElementProducer.class);
+
+            List<Object> mixed = producer.mixed();
+            assertThat(mixed).hasSize(5);
+            assertThat(mixed.get(0)).isInstanceOf(Item.class).isInstanceOf(LeonaProxy.class);
+            assertThat(mixed.get(1)).isInstanceOf(Tag.class).isInstanceOf(LeonaProxy.class);
+            assertThat(((Tag) mixed.get(1)).getLabel()).isEqualTo("#t");
+            assertThat(mixed.get(2)).isInstanceOf(Item.class).isInstanceOf(LeonaProxy.class);
+            assertThat(mixed.get(0).getClass()).isSameAs(mixed.get(2).getClass());
+            // Elements without advisors are returned as is
+            assertThat(mixed.get(3)).isEqualTo("plain");
+            assertThat(mixed.get(4)).isExactlyInstanceOf(Unadvised.class);
+        });
+    }
+
+    @Test
+    void targetTypesApplyToEachElement() {
+        contextRunner.run(context -> {
+            ItemProducer producer = context.getBean(ItemProducer.class);
+            Item item = context.getBean(ElementProducer.class).list().get(0);
+
+            List<Object> mixed = producer.mixed(item);
+            assertThat(mixed.get(0)).isInstanceOf(LeonaProxy.class);
+            assertThat(mixed.get(1)).isExactlyInstanceOf(Tag.class);
+            // Proxies are not proxied again
+            assertThat(mixed.get(2)).isSameAs(item);
+        });
+    }
+
+    @Aspect
+    static class ElementAspect {
+        @Around("execution(* com.sylvona.leona.proxy.aspects.ProxyElementsTest.Item.getName())")
+        public Object name(ProceedingJoinPoint joinPoint) throws Throwable {
+            return "<" + joinPoint.proceed() + ">";
+        }
+
+        @Around("execution(* com.sylvona.leona.proxy.aspects.ProxyElementsTest.Tag.getLabel())")
+        public Object label(ProceedingJoinPoint joinPoint) throws Throwable {
+            return "#" + joinPoint.proceed();
+        }
+    }
+
+    public static class Item {
+        private String name;
+
+        public Item() {
+            PROXIES.incrementAndGet();
+        }
+
+        public Item(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public static class Tag {
+        private String label;
+
+        public Tag() {}
+
+        public Tag(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    public static class Unadvised {}
+
+    @ProxyProducer(proxyElements = true, useCopyConstructor = false)
+    public static class ElementProducer {
+        public List<Item> list() {
+            return Arrays.asList(new Item("a"), null, new Item("b"));
+        }
+
+        public Collection<Item> collection() {
+            return List.of(new Item("c"));
+        }
+
+        public Item[] array() {
+            return new Item[] {new Item("x"), null};
+        }
+
+        public Iterable<Item> collectedIterable() {
+            return List.of(new Item("i"));
+        }
+
+        public Iterable<Item> lazyIterable() {
+            return this::iterator;
+        }
+
+        public Stream<Item> stream() {
+            return IntStream.range(0, 1000).mapToObj(i -> new Item("s" + i));
+        }
+
+        public Iterator<Item> iterator() {
+            return IntStream.range(0, 1000).mapToObj(i -> new Item("t" + i)).iterator();
+        }
+
+        public List<Object> mixed() {
+            return List.of(new Item("m"), new Tag("t"), new Item("n"), "plain", new Unadvised());
+        }
+    }
+
+    @ProxyProducer(proxyElements = true, useCopyConstructor = false, targetTypes = Item.class)
+    public static class ItemProducer {
+        public List<Object> mixed(Item proxied) {
+            return List.of(new Item("m"), new Tag("t"), proxied);
+        }
+    }
+}